@@ -1,26 +1,509 @@
 package com.zombie;
 
 import com.zombie.data.World;
+import com.zombie.data.WorldMetrics;
+import com.zombie.server.SimulationServer;
+import com.zombie.service.BandedZombieServiceImpl;
+import com.zombie.service.CachingZombieService;
+import com.zombie.service.Checkpointer;
+import com.zombie.service.CreatureFeed;
+import com.zombie.service.InfectionTrace;
+import com.zombie.service.InfectionTraceReplay;
+import com.zombie.service.LockstepZombieServiceImpl;
+import com.zombie.service.ParallelZombieServiceImpl;
+import com.zombie.service.ResultCache;
+import com.zombie.service.ShardedZombieServiceImpl;
+import com.zombie.service.WorldGenerator;
+import com.zombie.service.WorldSnapshot;
 import com.zombie.service.ZombieService;
 import com.zombie.service.ZombieServiceImpl;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
 /**
  * The starting point for zombie adventures in a new world
  */
 public class ZombieWorld {
+    /**
+     * The system property used to choose the engine that moves the zombies (sequential by default)
+     */
+    private static final String ENGINE_PROPERTY = "zombie.engine";
+    /**
+     * The system property giving a file to write a binary snapshot of the new world to (before the zombies move)
+     */
+    private static final String SNAPSHOT_PROPERTY = "zombie.snapshot";
+    /**
+     * The system property giving the most worlds to simulate at once when several input files are given
+     */
+    private static final String PARALLELISM_PROPERTY = "zombie.parallelism";
+    /**
+     * The system property giving the file to keep checkpoints of a long simulation in (and resume from)
+     */
+    private static final String CHECKPOINT_PROPERTY = "zombie.checkpoint";
+    /**
+     * The system property giving the number of seconds between checkpoints
+     */
+    private static final String CHECKPOINT_INTERVAL_PROPERTY = "zombie.checkpoint.interval";
+    /**
+     * The system property giving a file to trace every infection to
+     */
+    private static final String TRACE_PROPERTY = "zombie.trace";
+    /**
+     * The argument that replays an infection trace on a world instead of simulating it
+     */
+    private static final String REPLAY_ARGUMENT = "--replay";
+    /**
+     * The argument that writes a synthetic world's set up details instead of simulating a world
+     */
+    private static final String GENERATE_ARGUMENT = "--generate";
+    /**
+     * The argument that simulates a world while reading batches of new creatures from the standard input
+     */
+    private static final String CONTINUOUS_ARGUMENT = "--continuous";
+    /**
+     * The system property giving the number of milliseconds between the running results of a continuous simulation
+     */
+    private static final String CONTINUOUS_INTERVAL_PROPERTY = "zombie.continuous.interval";
+    /**
+     * The argument that starts a local simulation server instead of simulating a single world
+     */
+    private static final String SERVER_ARGUMENT = "--server";
+    /**
+     * The system property giving the most worlds the server simulates at once
+     */
+    private static final String SERVER_CONCURRENCY_PROPERTY = "zombie.server.concurrency";
+    /**
+     * The system property giving the memory (in megabytes) the server and batch runs may keep results in (0 turns the
+     * cache off)
+     */
+    private static final String CACHE_MEMORY_PROPERTY = "zombie.cache.memory";
+    /**
+     * The system property giving a directory the server and batch runs also keep results in
+     */
+    private static final String CACHE_DIRECTORY_PROPERTY = "zombie.cache.dir";
+    /**
+     * The system property giving the space (in megabytes) the results in the cache directory may use
+     */
+    private static final String CACHE_DISK_PROPERTY = "zombie.cache.disk";
+    /**
+     * The port the server listens on unless another is given
+     */
+    private static final int DEFAULT_SERVER_PORT = 8080;
+
     public static void main(String[] args) {
-        ZombieService service = ZombieServiceImpl.getService();
-        World world = service.createWorld(args);
+        ZombieService service = getService(System.getProperty(ENGINE_PROPERTY, "sequential"));
+        if (args.length > 0 && SERVER_ARGUMENT.equals(args[0])) {
+            int port = args.length > 1 ? parsePort(args[1]) : DEFAULT_SERVER_PORT;
+            if (port < 0) {
+                System.out.println("The server port must be a number from 0 to 65535 but was: " + args[1]);
+                return;
+            }
+            runServer(service, port);
+            return;
+        } else if (args.length > 0 && REPLAY_ARGUMENT.equals(args[0])) {
+            replay(service, args);
+            return;
+        } else if (args.length > 0 && GENERATE_ARGUMENT.equals(args[0])) {
+            generate(args);
+            return;
+        } else if (args.length > 0 && CONTINUOUS_ARGUMENT.equals(args[0])) {
+            runContinuous(service, Arrays.copyOfRange(args, 1, args.length));
+            return;
+        } else if (args.length > 1) {
+            runBatch(service, args);
+            return;
+        }
+
+        String checkpoint = System.getProperty(CHECKPOINT_PROPERTY);
+        String inputKey = checkpoint == null ? null : inputKey(args);
+        if (checkpoint != null && inputKey == null) {
+            System.out.println("The zombie world could not be set up...");
+            return;
+        }
+
+        World world;
+        if (checkpoint != null && Files.exists(Paths.get(checkpoint))) {
+            if (!isCheckpointOf(checkpoint, inputKey)) {
+                System.out.println("The checkpoint " + checkpoint + " was not taken of this zombie world - remove it to "
+                        + "start the world afresh");
+                return;
+            }
+            System.err.println("Resuming the zombie world from the checkpoint: " + checkpoint);
+            world = service.createWorld(new String[]{checkpoint});
+        } else {
+            world = service.createWorld(args);
+        }
+
+        if (world == null) {
+            System.out.println("The zombie world could not be set up...");
+            return;
+        }
+
+        WorldMetrics metrics = world.getMetrics();
+        try {
+            writeSnapshot(world, System.getProperty(SNAPSHOT_PROPERTY));
+            publish(metrics);
+            InfectionTrace trace = startTrace(world, System.getProperty(TRACE_PROPERTY));
+
+            if (checkpoint != null) {
+                simulateWithCheckpoints(service, world, checkpoint, inputKey);
+            } else {
+                service.simulate(world);
+            }
+            finishTrace(world, trace);
+
+            long renderStart = System.nanoTime();
+            System.out.println("zombies score: " + world.getScore());
+            System.out.print("zombies positions: ");
+            writePositions(world);
+            System.out.println();
+            metrics.addPhaseTime(WorldMetrics.Phase.RENDER, System.nanoTime() - renderStart);
+        } finally {
+            // even if the simulation failed, so the metrics of a dead world are not left behind in the MBean server
+            unpublish(metrics);
+            close(world);
+        }
+    }
 
+    /**
+     * Release the resources held by a world once it is finished with
+     *
+     * @param world the world (which may be null)
+     */
+    private static void close(World world) {
         if (world != null) {
-            while (world.isActiveZombies()) {
-                service.monitorZombie(world);
+            try {
+                world.close();
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        }
+    }
+
+    /**
+     * Create the key of the input a world is set up from, which every checkpoint of the world keeps
+     *
+     * @param args the arguments given (the input file, or none for the default input)
+     * @return the key of the input (or null if the input could not be read)
+     */
+    private static String inputKey(String[] args) {
+        try (InputStream input = args.length > 0 ? Files.newInputStream(Paths.get(args[0]))
+                : ZombieWorld.class.getClassLoader().getResourceAsStream(ZombieServiceImpl.DEFAULT_FILE_NAME)) {
+            return input == null ? null : ResultCache.key(input);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Check a checkpoint was taken of the world set up from the input, so a checkpoint left behind by another world is
+     * never carried on from in its place
+     *
+     * @param checkpoint the checkpoint file
+     * @param inputKey   the key of the input the world is set up from
+     * @return true if the checkpoint was taken of the input
+     */
+    private static boolean isCheckpointOf(String checkpoint, String inputKey) {
+        try {
+            return inputKey.equals(WorldSnapshot.readInputKey(Paths.get(checkpoint)));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Simulate the world, taking checkpoints as it goes. The checkpoint is removed once every zombie has finished.
+     *
+     * @param service    the zombie service
+     * @param world      the world to simulate
+     * @param checkpoint the file to keep the checkpoints in
+     * @param inputKey   the key of the input the world was set up from (kept in every checkpoint)
+     */
+    private static void simulateWithCheckpoints(ZombieService service, World world, String checkpoint,
+                                                String inputKey) {
+        long interval = Long.getLong(CHECKPOINT_INTERVAL_PROPERTY, 60);
+        try (Checkpointer checkpointer = new Checkpointer(Paths.get(checkpoint), inputKey, interval,
+                TimeUnit.SECONDS)) {
+            service.simulate(world, checkpointer);
+            checkpointer.delete();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
+    /**
+     * Start tracing the infections of the world
+     *
+     * @param world    the newly created world
+     * @param fileName the file to write the trace to (or null if no trace is wanted)
+     * @return the trace (or null if there is no trace)
+     */
+    private static InfectionTrace startTrace(World world, String fileName) {
+        if (fileName != null) {
+            try {
+                InfectionTrace trace = new InfectionTrace(Paths.get(fileName));
+                world.setInfectionListener(trace);
+                return trace;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return null;
+    }
+
+    private static void finishTrace(World world, InfectionTrace trace) {
+        if (trace != null) {
+            try {
+                trace.finish(world);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Rebuild a world from an infection trace (instead of moving its zombies), checking the trace against the world,
+     * and show the results
+     *
+     * @param service the zombie service
+     * @param args    the replay argument, the input file of the world and the trace file
+     */
+    private static void replay(ZombieService service, String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: " + REPLAY_ARGUMENT + " <input file> <trace file>");
+            return;
+        }
+
+        World world = service.createWorld(new String[]{args[1]});
+        if (world == null) {
+            System.out.println("The zombie world could not be set up...");
+            return;
+        }
+        try {
+            long infections = InfectionTraceReplay.replay(world, Paths.get(args[2]));
+            System.out.println("The trace matches the world (" + infections + " infections)");
             System.out.println("zombies score: " + world.getScore());
-            System.out.println("zombies positions: " + world.getZombiePositions());
-        } else {
+            System.out.print("zombies positions: ");
+            writePositions(world);
+            System.out.println();
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("The trace does not match the world: " + e.getMessage());
+        } finally {
+            close(world);
+        }
+    }
+
+    /**
+     * Simulate a world while merging in the batches of creatures (one line of positions per batch) read from the
+     * standard input, showing the running score and positions every interval, until every zombie has finished and
+     * the input has ended
+     *
+     * @param service the zombie service
+     * @param args    either empty (if using the default resources file) or a file path to an external input file
+     */
+    private static void runContinuous(ZombieService service, String[] args) {
+        World world = service.createWorld(args);
+        if (world == null) {
             System.out.println("The zombie world could not be set up...");
+            return;
+        }
+
+        long interval = Long.getLong(CONTINUOUS_INTERVAL_PROPERTY, 1000);
+        try (CreatureFeed feed = new CreatureFeed(System.in, world.getSize(), false)) {
+            service.simulate(world, feed, interval, status -> System.out.println("zombies score: " +
+                    status.getScore() + " (running, " + status.getActiveZombies() + " active zombies, " +
+                    status.getFinishedZombies() + " finished zombies)"));
+            System.out.println("zombies score: " + world.getScore());
+            System.out.print("zombies positions: ");
+            writePositions(world);
+            System.out.println();
+            System.err.println("Creatures fed into the world: " + feed.getCreaturesMerged() + " in " +
+                    feed.getBatchesRead() + " batches (" + feed.getBatchesSkipped() + " skipped)");
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(world);
+        }
+    }
+
+    /**
+     * Write the set up details of a synthetic world
+     *
+     * @param args the generate argument, the file to write to, the size of the world, the number of creatures, their
+     *             distribution (uniform, clustered or dense_rows), the number of movements and optionally the number
+     *             of zombies (1 by default) and the seed (0 by default)
+     */
+    private static void generate(String[] args) {
+        if (args.length < 6) {
+            System.err.println("Usage: " + GENERATE_ARGUMENT + " <file> <size> <creatures> " +
+                    "<uniform|clustered|dense_rows> <movements> [zombies] [seed]");
+            return;
+        }
+
+        try {
+            new WorldGenerator(Integer.parseInt(args[2]), Long.parseLong(args[3]),
+                    WorldGenerator.Distribution.valueOf(args[4].toUpperCase(Locale.ROOT)), Integer.parseInt(args[5]),
+                    args.length > 6 ? Integer.parseInt(args[6]) : 1, args.length > 7 ? Long.parseLong(args[7]) : 0)
+                    .write(Paths.get(args[1]));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("The world could not be generated: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stream the positions of the finished zombies to the console
+     *
+     * @param world the world whose zombies have all finished moving
+     */
+    private static void writePositions(World world) {
+        try {
+            world.writeZombiePositions(System.out);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Simulate several worlds at once, printing the results of each world as it finishes (worlds that have been
+     * simulated before are answered from the cache)
+     *
+     * @param service the zombie service
+     * @param args    the file paths of the input files
+     */
+    private static void runBatch(ZombieService service, String[] args) {
+        int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+        try {
+            ResultCache cache = createCache();
+            if (cache != null) {
+                service = new CachingZombieService(service, cache);
+            }
+            service.simulateBatch(Arrays.asList(args), parallelism, result -> {
+                System.out.println(result.getSource());
+                if (result.isSuccess()) {
+                    System.out.println("zombies score: " + result.getScore());
+                    System.out.println("zombies positions: " + result.getPositions());
+                } else {
+                    System.out.println(result.getError());
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the port, or -1 if it is not a valid port number
+     */
+    private static int parsePort(String text) {
+        try {
+            int port = Integer.parseInt(text.trim());
+            return port >= 0 && port <= 65535 ? port : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Run a local simulation server until the JVM is stopped
+     *
+     * @param service the zombie service
+     * @param port    the port to listen on
+     */
+    private static void runServer(ZombieService service, int port) {
+        int concurrency = Integer.getInteger(SERVER_CONCURRENCY_PROPERTY, Runtime.getRuntime().availableProcessors());
+        try {
+            SimulationServer server = new SimulationServer(service, port, concurrency, createCache());
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            server.start();
+            System.out.println("Simulating zombie worlds POSTed to http://127.0.0.1:" + server.getPort() +
+                    SimulationServer.PATH);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Create the cache of results for the server or a batch run from the cache system properties
+     *
+     * @return the cache, or null if caching is turned off
+     * @throws IOException if the cache directory could not be read
+     */
+    private static ResultCache createCache() throws IOException {
+        long memory = Long.getLong(CACHE_MEMORY_PROPERTY, 64) << 20;
+        String directory = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+        if (directory != null) {
+            return new ResultCache(memory, Paths.get(directory), Long.getLong(CACHE_DISK_PROPERTY, 1024) << 20);
+        }
+        return memory > 0 ? new ResultCache(memory) : null;
+    }
+
+    /**
+     * Publish the live metrics of the world over JMX while the zombies move (the run carries on without them if they
+     * cannot be published)
+     *
+     * @param metrics the metrics of the world
+     */
+    private static void publish(WorldMetrics metrics) {
+        try {
+            metrics.register();
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void unpublish(WorldMetrics metrics) {
+        try {
+            metrics.unregister();
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write a binary snapshot of the world, which can be used as the input file for later runs
+     *
+     * @param world    the newly created world
+     * @param fileName the file to write the snapshot to (or null if no snapshot is wanted)
+     */
+    private static void writeSnapshot(World world, String fileName) {
+        if (fileName != null) {
+            try {
+                WorldSnapshot.write(world, Paths.get(fileName));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Get the zombie service for an engine
+     *
+     * @param engine the name of the engine - sequential, parallel, banded, sharded or lockstep
+     * @return the zombie service that implements the engine
+     */
+    private static ZombieService getService(String engine) {
+        if ("parallel".equalsIgnoreCase(engine)) {
+            return ParallelZombieServiceImpl.getService();
+        } else if ("banded".equalsIgnoreCase(engine)) {
+            return BandedZombieServiceImpl.getService();
+        } else if ("sharded".equalsIgnoreCase(engine)) {
+            return ShardedZombieServiceImpl.getService();
+        } else if ("lockstep".equalsIgnoreCase(engine)) {
+            return LockstepZombieServiceImpl.getService();
         }
+        return ZombieServiceImpl.getService();
     }
 }
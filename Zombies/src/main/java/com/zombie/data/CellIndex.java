@@ -0,0 +1,77 @@
+package com.zombie.data;
+
+/**
+ * An index of the uninfected creatures in the world keyed by their grid cell.
+ * <p>
+ * All creatures that share a cell are identical (they only have a position), so an index only needs to keep a count
+ * of the creatures in each cell. Implementations must not allocate when looking up or removing a cell, as these calls
+ * are made once for every step of every zombie.
+ */
+public interface CellIndex {
+    /**
+     * Add creatures to a cell in the world (grid)
+     *
+     * @param x     the horizontal (x-axis) position of the cell
+     * @param y     the vertical (y-axis) position of the cell
+     * @param count the number of creatures to add (adding none leaves an empty cell empty)
+     */
+    void add(int x, int y, int count);
+
+    /**
+     * Get the number of uninfected creatures in a cell
+     *
+     * @param x the horizontal (x-axis) position of the cell
+     * @param y the vertical (y-axis) position of the cell
+     * @return the number of creatures in the cell (0 if it is empty)
+     */
+    int count(int x, int y);
+
+    /**
+     * Get the number of uninfected creatures in many cells at once (for example the cells a whole generation of
+     * zombies has stepped into)
+     *
+     * @param xs     the horizontal (x-axis) positions of the cells
+     * @param ys     the vertical (y-axis) positions of the cells
+     * @param length the number of cells to look up
+     * @param into   set to the number of creatures in each cell (0 if it is empty)
+     */
+    default void count(int[] xs, int[] ys, int length, int[] into) {
+        for (int i = 0; i < length; i++) {
+            into[i] = count(xs[i], ys[i]);
+        }
+    }
+
+    /**
+     * Remove all the creatures from a cell (i.e. they have been bitten and are now zombies)
+     *
+     * @param x the horizontal (x-axis) position of the cell
+     * @param y the vertical (y-axis) position of the cell
+     * @return the number of creatures that were removed (0 if the cell was empty)
+     */
+    int remove(int x, int y);
+
+    /**
+     * @return the number of cells that contain at least one creature
+     */
+    int size();
+
+    /**
+     * @return the total number of creatures remaining in the index
+     */
+    long getCreatureCount();
+
+    /**
+     * Visit every occupied cell in the index
+     *
+     * @param visitor the visitor called once for each occupied cell
+     */
+    void forEach(CellVisitor visitor);
+
+    /**
+     * A callback for visiting the occupied cells of an index
+     */
+    @FunctionalInterface
+    interface CellVisitor {
+        void visit(int x, int y, int count);
+    }
+}
@@ -0,0 +1,110 @@
+package com.zombie.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+/**
+ * Chooses the cell index implementation best suited to the dimensions and population of a world
+ */
+public final class CellIndexFactory {
+    /**
+     * The system property used to force a particular index (dense, sparse, offheap or tiled) rather than choosing one
+     */
+    public static final String STORE_PROPERTY = "zombie.store";
+    /**
+     * The system property giving the memory (in megabytes) a tiled index may keep its resident tiles in
+     */
+    public static final String STORE_MEMORY_PROPERTY = "zombie.store.memory";
+    /**
+     * The memory (in bytes) a dense index may always use, regardless of how few creatures there are
+     */
+    private static final long DENSE_MIN_BUDGET = 16L * 1024 * 1024;
+    /**
+     * The approximate memory (in bytes) a sparse index uses per creature (two table slots of a long key and int count)
+     */
+    private static final long SPARSE_BYTES_PER_CREATURE = 24L;
+    /**
+     * The largest number of cells a dense index can hold in a single array
+     */
+    private static final long DENSE_MAX_CELLS = Integer.MAX_VALUE - 8;
+    /**
+     * The share of the maximum heap an in-memory index may take before the world is spilled to disk instead
+     */
+    private static final int HEAP_FRACTION = 2;
+
+    private CellIndexFactory() {
+    }
+
+    /**
+     * Create a cell index for a world.
+     * <p>
+     * A dense index is used whenever its flat array of counts would take no more memory than a sparse index holding the
+     * same creatures (or the grid is small enough that the difference does not matter), otherwise a sparse index sized
+     * for the creatures is used. If neither would fit comfortably in the heap, a tiled index that spills to disk is
+     * used instead. The choice can be forced with the {@value #STORE_PROPERTY} system property, which is also the only
+     * way to choose an {@link OffHeapCellIndex}.
+     *
+     * @param size          the length and height of the world (n by n)
+     * @param creatureCount the number of creatures expected to be added to the world
+     * @return a new, empty cell index
+     */
+    public static CellIndex create(int size, long creatureCount) {
+        String store = System.getProperty(STORE_PROPERTY, "");
+        if ("dense".equals(store)) {
+            return new DenseCellIndex(size);
+        } else if ("sparse".equals(store)) {
+            return new SparseCellIndex((int) Math.min(creatureCount, Integer.MAX_VALUE));
+        } else if ("offheap".equals(store)) {
+            return new OffHeapCellIndex((int) Math.min(creatureCount, Integer.MAX_VALUE));
+        } else if (isTiled(size, creatureCount)) {
+            return createTiled();
+        } else if (isDense(size, creatureCount)) {
+            return new DenseCellIndex(size);
+        }
+        return new SparseCellIndex((int) Math.min(creatureCount, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Check whether a world should keep its creatures in a tiled index (spilling to disk) rather than in memory
+     *
+     * @param size          the length and height of the world (n by n)
+     * @param creatureCount the number of creatures expected to be added to the world
+     * @return true if {@link #create(int, long)} would create a tiled index
+     */
+    public static boolean isTiled(int size, long creatureCount) {
+        String store = System.getProperty(STORE_PROPERTY, "");
+        if (!store.isEmpty()) {
+            return "tiled".equals(store);
+        }
+
+        long bytes = isDense(size, creatureCount) ? (long) size * size * Integer.BYTES :
+                creatureCount * SPARSE_BYTES_PER_CREATURE;
+        return bytes > Runtime.getRuntime().maxMemory() / HEAP_FRACTION;
+    }
+
+    /**
+     * Create a tiled index with its spill file in the temporary directory, keeping as many tiles in memory as the
+     * {@value #STORE_MEMORY_PROPERTY} system property allows (an eighth of the maximum heap by default)
+     *
+     * @return a new, empty tiled index
+     */
+    public static TiledCellIndex createTiled() {
+        int tileBytes = TiledCellIndex.DEFAULT_TILE_SIZE * TiledCellIndex.DEFAULT_TILE_SIZE * Integer.BYTES;
+        long memory = Long.getLong(STORE_MEMORY_PROPERTY, Runtime.getRuntime().maxMemory() / (8L << 20)) << 20;
+        int tiles = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memory / tileBytes));
+        try {
+            return new TiledCellIndex(TiledCellIndex.DEFAULT_TILE_SIZE, tiles,
+                    Paths.get(System.getProperty("java.io.tmpdir")));
+        } catch (IOException e) {
+            throw new UncheckedIOException("The spill file for the world could not be created", e);
+        }
+    }
+
+    private static boolean isDense(int size, long creatureCount) {
+        long cells = (long) size * size;
+        long denseBytes = cells * Integer.BYTES;
+        long sparseBytes = creatureCount * SPARSE_BYTES_PER_CREATURE;
+        return cells <= DENSE_MAX_CELLS && denseBytes <= Math.max(DENSE_MIN_BUDGET, sparseBytes);
+    }
+}
@@ -0,0 +1,128 @@
+package com.zombie.data;
+
+/**
+ * A creature index that keeps its changes to itself, on top of another index which is left exactly as it was (so that
+ * another thread can read the frozen index, for example to write a checkpoint, while the world carries on changing).
+ * <p>
+ * Every cell that has changed since the index was frozen is kept in a small hash table of its own, holding the number of
+ * creatures now in the cell plus one (so a cell that has been emptied is still told apart from one that has not
+ * changed). Lookups check the changes before the frozen index, and the changes are merged into the frozen index once
+ * it is no longer being read. The table of changes grows with the number of cells changed (the infections while the
+ * index is frozen), so unlike the other indexes removing a cell can allocate.
+ */
+final class CellIndexOverlay implements CellIndex {
+    /**
+     * The index as it was when it was frozen (which is not changed until the overlay is merged into it)
+     */
+    private final CellIndex frozen;
+    /**
+     * The number of creatures plus one in every cell that has changed since the index was frozen
+     */
+    private final SparseCellIndex changes = new SparseCellIndex();
+    /**
+     * The number of cells containing at least one creature
+     */
+    private int occupied;
+    /**
+     * The total number of creatures in the index
+     */
+    private long creatureCount;
+
+    CellIndexOverlay(CellIndex frozen) {
+        this.frozen = frozen;
+        this.occupied = frozen.size();
+        this.creatureCount = frozen.getCreatureCount();
+    }
+
+    /**
+     * @return the index as it was when it was frozen
+     */
+    CellIndex getFrozen() {
+        return frozen;
+    }
+
+    @Override
+    public void add(int x, int y, int count) {
+        if (count == 0) {
+            return;
+        }
+        int current = count(x, y);
+        set(x, y, current + count);
+        if (current == 0) {
+            occupied++;
+        }
+        creatureCount += count;
+    }
+
+    @Override
+    public int count(int x, int y) {
+        int changed = changes.count(x, y);
+        return changed > 0 ? changed - 1 : frozen.count(x, y);
+    }
+
+    @Override
+    public void count(int[] xs, int[] ys, int length, int[] into) {
+        frozen.count(xs, ys, length, into);
+        if (changes.size() > 0) {
+            for (int i = 0; i < length; i++) {
+                int changed = changes.count(xs[i], ys[i]);
+                if (changed > 0) {
+                    into[i] = changed - 1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int remove(int x, int y) {
+        int current = count(x, y);
+        if (current > 0) {
+            set(x, y, 0);
+            occupied--;
+            creatureCount -= current;
+        }
+        return current;
+    }
+
+    @Override
+    public int size() {
+        return occupied;
+    }
+
+    @Override
+    public long getCreatureCount() {
+        return creatureCount;
+    }
+
+    @Override
+    public void forEach(CellVisitor visitor) {
+        frozen.forEach((x, y, count) -> {
+            if (changes.count(x, y) == 0) {
+                visitor.visit(x, y, count);
+            }
+        });
+        changes.forEach((x, y, changed) -> {
+            if (changed > 1) {
+                visitor.visit(x, y, changed - 1);
+            }
+        });
+    }
+
+    /**
+     * Make the changes to the frozen index (once nothing else is reading it)
+     *
+     * @return the frozen index, now holding the same creatures as the overlay
+     */
+    CellIndex merge() {
+        changes.forEach((x, y, changed) -> {
+            frozen.remove(x, y);
+            frozen.add(x, y, changed - 1);
+        });
+        return frozen;
+    }
+
+    private void set(int x, int y, int count) {
+        changes.remove(x, y);
+        changes.add(x, y, count + 1);
+    }
+}
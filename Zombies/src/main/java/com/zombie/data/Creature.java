@@ -13,6 +13,14 @@ public class Creature {
      */
     private int yPosition;
 
+    public Creature() {
+    }
+
+    public Creature(int xPosition, int yPosition) {
+        this.xPosition = xPosition;
+        this.yPosition = yPosition;
+    }
+
     public int getxPosition() {
         return xPosition;
     }
@@ -0,0 +1,16 @@
+package com.zombie.data;
+
+/**
+ * Told about the creatures added to a world while it is being simulated (with {@link World#addCreatures}), in the order
+ * they are added
+ */
+@FunctionalInterface
+public interface CreatureListener {
+    /**
+     * Called after creatures have been added to the world
+     *
+     * @param positions the x and y of each creature, one after the other
+     * @param length    the number of values of the positions that were added (twice the number of creatures)
+     */
+    void added(int[] positions, int length);
+}
@@ -0,0 +1,84 @@
+package com.zombie.data;
+
+/**
+ * A cell index for small grids where every cell of the world has a slot in a flat {@code int[]} of counts
+ */
+public class DenseCellIndex implements CellIndex {
+    /**
+     * The length and height of the world (grid)
+     */
+    private final int size;
+    /**
+     * The number of creatures in each cell, laid out row by row (index = y * size + x)
+     */
+    private final int[] counts;
+    /**
+     * The number of cells containing at least one creature
+     */
+    private int occupied;
+    /**
+     * The total number of creatures in the index
+     */
+    private long creatureCount;
+
+    public DenseCellIndex(int size) {
+        this.size = size;
+        this.counts = new int[Math.multiplyExact(size, size)];
+    }
+
+    @Override
+    public void add(int x, int y, int count) {
+        if (count == 0) {
+            return;
+        }
+        int cell = y * size + x;
+        if (counts[cell] == 0) {
+            occupied++;
+        }
+        counts[cell] += count;
+        creatureCount += count;
+    }
+
+    @Override
+    public int count(int x, int y) {
+        return counts[y * size + x];
+    }
+
+    @Override
+    public void count(int[] xs, int[] ys, int length, int[] into) {
+        for (int i = 0; i < length; i++) {
+            into[i] = counts[ys[i] * size + xs[i]];
+        }
+    }
+
+    @Override
+    public int remove(int x, int y) {
+        int cell = y * size + x;
+        int count = counts[cell];
+        if (count > 0) {
+            counts[cell] = 0;
+            occupied--;
+            creatureCount -= count;
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return occupied;
+    }
+
+    @Override
+    public long getCreatureCount() {
+        return creatureCount;
+    }
+
+    @Override
+    public void forEach(CellVisitor visitor) {
+        for (int cell = 0; cell < counts.length; cell++) {
+            if (counts[cell] > 0) {
+                visitor.visit(cell % size, cell / size, counts[cell]);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.zombie.data;
+
+/**
+ * Told about every infection in a world, in the order the infections happen
+ */
+@FunctionalInterface
+public interface InfectionListener {
+    /**
+     * Called after the creatures in a cell have been bitten
+     *
+     * @param zombie  the number of the zombie that bit them (zombies are numbered from 0 in the order they set off)
+     * @param step    the step of the zombie's movements at which it bit them
+     * @param x       the horizontal (x-axis) position of the cell
+     * @param y       the vertical (y-axis) position of the cell
+     * @param victims the number of creatures bitten
+     */
+    void infected(int zombie, int step, int x, int y, int victims);
+}
@@ -0,0 +1,205 @@
+package com.zombie.data;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The zombie movements compiled for a particular world, shared by every zombie in that world.
+ * <p>
+ * Rather than interpreting the movement characters for every zombie, the program stores the cumulative offset of each
+ * step from the zombie's starting position (already wrapped to the size of the world), so the position of a zombie
+ * after any step is its starting position plus the offset, wrapped at most once.
+ */
+public final class MovementProgram {
+    /**
+     * The length and height of the world the program was compiled for
+     */
+    private final int size;
+    /**
+     * The horizontal offset from the starting position after each step (0 to size - 1)
+     */
+    private final int[] xOffsets;
+    /**
+     * The vertical offset from the starting position after each step (0 to size - 1)
+     */
+    private final int[] yOffsets;
+    /**
+     * The number of movement characters that were not valid (and are skipped)
+     */
+    private final int invalidMovements;
+
+    private MovementProgram(int size, int[] xOffsets, int[] yOffsets, int invalidMovements) {
+        this.size = size;
+        this.xOffsets = xOffsets;
+        this.yOffsets = yOffsets;
+        this.invalidMovements = invalidMovements;
+    }
+
+    /**
+     * Re-create a program from offsets that have already been compiled (for example from a world snapshot)
+     *
+     * @param size             the length and height of the world the offsets were compiled for
+     * @param xOffsets         the horizontal offset from the starting position after each step (0 to size - 1)
+     * @param yOffsets         the vertical offset from the starting position after each step (0 to size - 1)
+     * @param invalidMovements the number of movements that were not valid when the program was compiled
+     * @return the movement program
+     * @throws IllegalArgumentException if the offsets do not fit the world
+     */
+    public static MovementProgram of(int size, int[] xOffsets, int[] yOffsets, int invalidMovements) {
+        if (xOffsets.length != yOffsets.length) {
+            throw new IllegalArgumentException("The horizontal and vertical offsets must have the same length");
+        }
+        if (size < 0 || invalidMovements < 0) {
+            throw new IllegalArgumentException("The size (" + size + ") and number of invalid movements (" +
+                    invalidMovements + ") can not be negative");
+        }
+        // a world with no cells still compiles its offsets as if it had one
+        int wrap = Math.max(size, 1);
+        for (int step = 0; step < xOffsets.length; step++) {
+            if (xOffsets[step] < 0 || xOffsets[step] >= wrap || yOffsets[step] < 0 || yOffsets[step] >= wrap) {
+                throw new IllegalArgumentException("The offsets of step " + step + " are outside the grid: " +
+                        xOffsets[step] + "," + yOffsets[step]);
+            }
+        }
+        return new MovementProgram(size, xOffsets, yOffsets, invalidMovements);
+    }
+
+    /**
+     * Compile the zombie movements for a world. Any invalid movements are reported (once) and skipped - the zombie
+     * stays where it is for that step.
+     *
+     * @param movements the movement actions (U - Up, D - Down, L - Left or R - Right, in either case)
+     * @param size      the length and height of the world (n by n)
+     * @return the compiled movement program
+     */
+    public static MovementProgram compile(String movements, int size) {
+        int length = movements == null ? 0 : movements.length();
+        int wrap = Math.max(size, 1);
+        int[] xOffsets = new int[length];
+        int[] yOffsets = new int[length];
+        Map<Character, Integer> invalid = new TreeMap<>();
+
+        int x = 0;
+        int y = 0;
+        for (int step = 0; step < length; step++) {
+            char movement = Character.toUpperCase(movements.charAt(step));
+            switch (movement) {
+                case 'U':
+                    y = y == 0 ? wrap - 1 : y - 1;
+                    break;
+                case 'D':
+                    y = y == wrap - 1 ? 0 : y + 1;
+                    break;
+                case 'L':
+                    x = x == 0 ? wrap - 1 : x - 1;
+                    break;
+                case 'R':
+                    x = x == wrap - 1 ? 0 : x + 1;
+                    break;
+                default:
+                    invalid.merge(movement, 1, Integer::sum);
+            }
+            xOffsets[step] = x;
+            yOffsets[step] = y;
+        }
+
+        int invalidMovements = 0;
+        for (Map.Entry<Character, Integer> entry : invalid.entrySet()) {
+            System.err.println("Movement was skipped - Incorrect zombie movement specified: " + entry.getKey() +
+                    " (" + entry.getValue() + " times)");
+            invalidMovements += entry.getValue();
+        }
+
+        return new MovementProgram(size, xOffsets, yOffsets, invalidMovements);
+    }
+
+    /**
+     * @return the number of steps in the program (including skipped, invalid movements)
+     */
+    public int length() {
+        return xOffsets.length;
+    }
+
+    public int getInvalidMovements() {
+        return invalidMovements;
+    }
+
+    /**
+     * @return the horizontal offset after each step (the program's own array, which must not be modified)
+     */
+    public int[] getXOffsets() {
+        return xOffsets;
+    }
+
+    /**
+     * @return the vertical offset after each step (the program's own array, which must not be modified)
+     */
+    public int[] getYOffsets() {
+        return yOffsets;
+    }
+
+    /**
+     * Get the horizontal position of a zombie after a step
+     *
+     * @param startX the horizontal position the zombie started the program from
+     * @param step   the step (zero based)
+     * @return the horizontal position after the step
+     */
+    public int xAt(int startX, int step) {
+        return wrap(startX + xOffsets[step]);
+    }
+
+    /**
+     * Get the vertical position of a zombie after a step
+     *
+     * @param startY the vertical position the zombie started the program from
+     * @param step   the step (zero based)
+     * @return the vertical position after the step
+     */
+    public int yAt(int startY, int step) {
+        return wrap(startY + yOffsets[step]);
+    }
+
+    /**
+     * Get the horizontal position of a zombie once it has completed the whole program
+     *
+     * @param startX the horizontal position the zombie started the program from
+     * @return the final horizontal position
+     */
+    public int finalX(int startX) {
+        return wrap(startX + getNetX());
+    }
+
+    /**
+     * Get the vertical position of a zombie once it has completed the whole program
+     *
+     * @param startY the vertical position the zombie started the program from
+     * @return the final vertical position
+     */
+    public int finalY(int startY) {
+        return wrap(startY + getNetY());
+    }
+
+    /**
+     * @return the net horizontal displacement of the whole program (0 to size - 1)
+     */
+    public int getNetX() {
+        return xOffsets.length == 0 ? 0 : xOffsets[xOffsets.length - 1];
+    }
+
+    /**
+     * @return the net vertical displacement of the whole program (0 to size - 1)
+     */
+    public int getNetY() {
+        return yOffsets.length == 0 ? 0 : yOffsets[yOffsets.length - 1];
+    }
+
+    /**
+     * Wrap a position that is less than one world length past the far edge. In a world larger than 2^30 the sum of
+     * the start and the offset can overflow to a negative int, but subtracting the size still gives the right position
+     * (as the arithmetic wraps around in the same way).
+     */
+    private int wrap(int position) {
+        return position < 0 || position >= size ? position - size : position;
+    }
+}
@@ -0,0 +1,239 @@
+package com.zombie.data;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A cell index that keeps its hash table outside the Java heap, in direct byte buffers, so worlds with tens of
+ * millions of occupied cells put no pressure on the garbage collector.
+ * <p>
+ * The table works in the same way as {@link SparseCellIndex} (open addressing with linear probing, and entries shifted
+ * back on removal instead of tombstones), but each slot is 12 bytes of a direct buffer - the packed cell key
+ * ({@code (x << 32) | y}) followed by the count. Tables larger than a single buffer can address are split into
+ * segments. The heap only holds the buffer objects themselves, however many creatures there are.
+ * <p>
+ * Direct memory is limited to the maximum heap size unless {@code -XX:MaxDirectMemorySize} is set. Java has no way
+ * to free a direct buffer straight away, so when the table grows the old buffers are only given back once the garbage
+ * collector finds them unreachable - while it grows the index needs room for both tables (three times the old table),
+ * and the old one stays allocated until the next collection that reaches it.
+ */
+public class OffHeapCellIndex implements CellIndex {
+    /**
+     * The key used to mark an empty slot (co-ordinates are never negative so no real cell packs to this value)
+     */
+    private static final long EMPTY = -1L;
+    /**
+     * The bytes taken by each slot - a long key then an int count
+     */
+    private static final int SLOT_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int COUNT_OFFSET = Long.BYTES;
+    /**
+     * The slots in each segment are 1 << SEGMENT_SHIFT unless another shift is given (so a segment is at most 768MB)
+     */
+    private static final int SEGMENT_SHIFT = 26;
+    /**
+     * The smallest table that will be allocated
+     */
+    private static final int MIN_CAPACITY = 16;
+    /**
+     * The largest table that will be allocated
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The slots in each segment are 1 << segmentShift
+     */
+    private final int segmentShift;
+    private final int segmentMask;
+    /**
+     * The segments of the table, each holding 1 << segmentShift slots (or the whole table if it is smaller)
+     */
+    private ByteBuffer[] segments;
+    /**
+     * The capacity of the table minus one (the capacity is always a power of two)
+     */
+    private int mask;
+    /**
+     * The number of cells containing at least one creature
+     */
+    private int occupied;
+    /**
+     * The total number of creatures in the index
+     */
+    private long creatureCount;
+
+    public OffHeapCellIndex() {
+        this(0);
+    }
+
+    /**
+     * @param expectedCells the number of distinct cells expected to be added (used to size the table up front)
+     */
+    public OffHeapCellIndex(int expectedCells) {
+        this(expectedCells, SEGMENT_SHIFT);
+    }
+
+    /**
+     * @param expectedCells the number of distinct cells expected to be added (used to size the table up front)
+     * @param segmentShift  the slots in each segment are 1 << segmentShift (smaller segments let tests cover tables
+     *                      that span several of them)
+     */
+    OffHeapCellIndex(int expectedCells, int segmentShift) {
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1 << segmentShift) - 1;
+        allocate(tableSizeFor(expectedCells));
+    }
+
+    @Override
+    public void add(int x, int y, int count) {
+        if (count == 0) {
+            return;
+        }
+        long key = SparseCellIndex.pack(x, y);
+        int slot = find(key);
+        if (keyAt(slot) == EMPTY) {
+            setSlot(slot, key, count);
+            creatureCount += count;
+            if (++occupied > (mask + 1) >> 1 && mask + 1 < MAX_CAPACITY) {
+                rehash((mask + 1) << 1);
+            }
+        } else {
+            setCount(slot, countAt(slot) + count);
+            creatureCount += count;
+        }
+    }
+
+    @Override
+    public int count(int x, int y) {
+        int slot = find(SparseCellIndex.pack(x, y));
+        return keyAt(slot) == EMPTY ? 0 : countAt(slot);
+    }
+
+    @Override
+    public int remove(int x, int y) {
+        int slot = find(SparseCellIndex.pack(x, y));
+        if (keyAt(slot) == EMPTY) {
+            return 0;
+        }
+
+        int count = countAt(slot);
+        occupied--;
+        creatureCount -= count;
+        shiftBack(slot);
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return occupied;
+    }
+
+    @Override
+    public long getCreatureCount() {
+        return creatureCount;
+    }
+
+    @Override
+    public void forEach(CellVisitor visitor) {
+        for (int slot = 0; slot <= mask; slot++) {
+            long key = keyAt(slot);
+            if (key != EMPTY) {
+                visitor.visit((int) (key >>> 32), (int) key, countAt(slot));
+            }
+        }
+    }
+
+    /**
+     * Find the slot holding the key, or the empty slot where it would be inserted
+     */
+    private int find(long key) {
+        int slot = SparseCellIndex.hash(key) & mask;
+        long current;
+        while ((current = keyAt(slot)) != EMPTY && current != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empty a slot and shift any following entries of the same probe run back into it, so that lookups never need
+     * tombstones
+     */
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        long key;
+        while ((key = keyAt(next)) != EMPTY) {
+            int home = SparseCellIndex.hash(key) & mask;
+            // move the entry into the gap unless its home slot lies cyclically between the gap and its current slot
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                setSlot(gap, key, countAt(next));
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        setSlot(gap, EMPTY, 0);
+    }
+
+    /**
+     * Move every entry into a new table (the old table's buffers are freed by the garbage collector once they are no
+     * longer reachable - there is no way to free them straight away)
+     */
+    private void rehash(int capacity) {
+        ByteBuffer[] oldSegments = segments;
+        int oldCapacity = mask + 1;
+        allocate(capacity);
+
+        int segmentSlots = Math.min(oldCapacity, 1 << segmentShift);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            ByteBuffer segment = oldSegments[slot / segmentSlots];
+            int offset = (slot % segmentSlots) * SLOT_BYTES;
+            long key = segment.getLong(offset);
+            if (key != EMPTY) {
+                setSlot(find(key), key, segment.getInt(offset + COUNT_OFFSET));
+            }
+        }
+    }
+
+    /**
+     * Allocate an empty table (the direct buffers are zeroed, so only the keys need to be marked empty)
+     */
+    private void allocate(int capacity) {
+        int segmentSlots = Math.min(capacity, 1 << segmentShift);
+        segments = new ByteBuffer[capacity / segmentSlots];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect(segmentSlots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            for (int slot = 0; slot < segmentSlots; slot++) {
+                segments[i].putLong(slot * SLOT_BYTES, EMPTY);
+            }
+        }
+        mask = capacity - 1;
+    }
+
+    private long keyAt(int slot) {
+        return segments[slot >>> segmentShift].getLong((slot & segmentMask) * SLOT_BYTES);
+    }
+
+    private int countAt(int slot) {
+        return segments[slot >>> segmentShift].getInt((slot & segmentMask) * SLOT_BYTES + COUNT_OFFSET);
+    }
+
+    private void setCount(int slot, int count) {
+        segments[slot >>> segmentShift].putInt((slot & segmentMask) * SLOT_BYTES + COUNT_OFFSET, count);
+    }
+
+    private void setSlot(int slot, long key, int count) {
+        ByteBuffer segment = segments[slot >>> segmentShift];
+        int offset = (slot & segmentMask) * SLOT_BYTES;
+        segment.putLong(offset, key);
+        segment.putInt(offset + COUNT_OFFSET, count);
+    }
+
+    private static int tableSizeFor(int expectedCells) {
+        long wanted = Math.max(MIN_CAPACITY, (long) expectedCells * 2);
+        if (wanted >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+}
@@ -0,0 +1,192 @@
+package com.zombie.data;
+
+import java.util.Arrays;
+
+/**
+ * A cell index for large, sparsely populated grids backed by an open-addressing (linear probing) hash table of
+ * {@code long} cell keys to creature counts
+ */
+public class SparseCellIndex implements CellIndex {
+    /**
+     * The key used to mark an empty slot (co-ordinates are never negative so no real cell packs to this value)
+     */
+    private static final long EMPTY = -1L;
+    /**
+     * The smallest table that will be allocated
+     */
+    private static final int MIN_CAPACITY = 16;
+    /**
+     * The largest table that will be allocated
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The packed cell keys ((x << 32) | y) for each slot of the table
+     */
+    private long[] keys;
+    /**
+     * The number of creatures in the cell stored in the matching slot of the keys table
+     */
+    private int[] counts;
+    /**
+     * The capacity of the table minus one (the capacity is always a power of two)
+     */
+    private int mask;
+    /**
+     * The number of cells containing at least one creature
+     */
+    private int occupied;
+    /**
+     * The total number of creatures in the index
+     */
+    private long creatureCount;
+
+    public SparseCellIndex() {
+        this(0);
+    }
+
+    /**
+     * @param expectedCells the number of distinct cells expected to be added (used to size the table up front)
+     */
+    public SparseCellIndex(int expectedCells) {
+        allocate(tableSizeFor(expectedCells));
+    }
+
+    @Override
+    public void add(int x, int y, int count) {
+        if (count == 0) {
+            return;
+        }
+        long key = pack(x, y);
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            counts[slot] = count;
+            creatureCount += count;
+            if (++occupied > (mask + 1) >> 1 && mask + 1 < MAX_CAPACITY) {
+                rehash((mask + 1) << 1);
+            }
+        } else {
+            counts[slot] += count;
+            creatureCount += count;
+        }
+    }
+
+    @Override
+    public int count(int x, int y) {
+        int slot = find(pack(x, y));
+        return keys[slot] == EMPTY ? 0 : counts[slot];
+    }
+
+    @Override
+    public int remove(int x, int y) {
+        int slot = find(pack(x, y));
+        if (keys[slot] == EMPTY) {
+            return 0;
+        }
+
+        int count = counts[slot];
+        occupied--;
+        creatureCount -= count;
+        shiftBack(slot);
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return occupied;
+    }
+
+    @Override
+    public long getCreatureCount() {
+        return creatureCount;
+    }
+
+    @Override
+    public void forEach(CellVisitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            long key = keys[slot];
+            if (key != EMPTY) {
+                visitor.visit((int) (key >>> 32), (int) key, counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * Find the slot holding the key, or the empty slot where it would be inserted
+     */
+    private int find(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empty a slot and shift any following entries of the same probe run back into it, so that lookups never need
+     * tombstones
+     */
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            // move the entry into the gap unless its home slot lies cyclically between the gap and its current slot
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                counts[gap] = counts[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        counts[gap] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(capacity);
+
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                int newSlot = find(oldKeys[slot]);
+                keys[newSlot] = oldKeys[slot];
+                counts[newSlot] = oldCounts[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private static int tableSizeFor(int expectedCells) {
+        long wanted = Math.max(MIN_CAPACITY, (long) expectedCells * 2);
+        if (wanted >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Spread the bits of the packed key (the finalisation step of MurmurHash3) so that neighbouring cells do not
+     * cluster in the table
+     */
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
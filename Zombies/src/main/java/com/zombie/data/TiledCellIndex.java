@@ -0,0 +1,420 @@
+package com.zombie.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cell index for worlds with more creatures than fit in memory.
+ * <p>
+ * The grid is split into square tiles, each holding the creature counts of its cells. Only the most recently used
+ * tiles are kept in memory; the least recently used tile is written to a spill file when room is needed and read back
+ * the next time one of its cells is looked up. Tiles without any creatures are never created (or are dropped from the
+ * spill file once they empty), so the memory used is bounded by the number of resident tiles no matter how many
+ * creatures there are.
+ * <p>
+ * Unlike the other indexes, lookups can page tiles in and out, so every call is synchronized to allow the parallel
+ * engine to look up cells from several threads at once.
+ */
+public class TiledCellIndex implements CellIndex, Closeable {
+    /**
+     * The length and height (in cells) of a tile unless another is given
+     */
+    public static final int DEFAULT_TILE_SIZE = 128;
+    /**
+     * The key used for "no tile" (tile co-ordinates are never negative so no real tile packs to this value)
+     */
+    private static final long NO_TILE = -1L;
+
+    /**
+     * log2 of the tile size
+     */
+    private final int tileShift;
+    /**
+     * The tile size minus one (the tile size is always a power of two)
+     */
+    private final int tileMask;
+    /**
+     * The number of bytes a tile takes up in the spill file
+     */
+    private final int tileBytes;
+    /**
+     * The largest number of tiles kept in memory at once
+     */
+    private final int maxResidentTiles;
+
+    /**
+     * The file the tiles are spilled to (deleted when the index is closed)
+     */
+    private final FileChannel spillFile;
+    /**
+     * The slot (plus one) of every tile that has a copy in the spill file, keyed by the tile co-ordinates
+     */
+    private final SparseCellIndex slots = new SparseCellIndex();
+    /**
+     * The slots of the spill file that have been freed by tiles that emptied (a stack)
+     */
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    /**
+     * The number of slots in the spill file (used or free)
+     */
+    private int slotCount;
+    /**
+     * The tiles held in memory, least recently used first
+     */
+    private final Map<Long, Tile> resident;
+    /**
+     * The last tile looked up, so that runs of steps within the same tile skip the map entirely
+     */
+    private long lastKey = NO_TILE;
+    private Tile lastTile;
+    /**
+     * The buffer tiles are copied through on their way to or from the spill file
+     */
+    private final ByteBuffer transfer;
+
+    /**
+     * The number of cells containing at least one creature
+     */
+    private int occupied;
+    /**
+     * The total number of creatures in the index
+     */
+    private long creatureCount;
+    /**
+     * The number of tiles read from and written to the spill file
+     */
+    private long tilesRead;
+    private long tilesWritten;
+
+    /**
+     * @param tileSize         the length and height of a tile in cells (must be a power of two)
+     * @param maxResidentTiles the largest number of tiles to keep in memory at once
+     * @param directory        the directory to create the spill file in
+     * @throws IOException if the spill file could not be created
+     */
+    public TiledCellIndex(int tileSize, int maxResidentTiles, Path directory) throws IOException {
+        if (tileSize <= 0 || Integer.bitCount(tileSize) != 1 || tileSize > 1 << 14) {
+            throw new IllegalArgumentException("The tile size must be a power of two no larger than 16384: " +
+                    tileSize);
+        }
+        if (maxResidentTiles < 1) {
+            throw new IllegalArgumentException("At least one tile must be kept in memory: " + maxResidentTiles);
+        }
+
+        this.tileShift = Integer.numberOfTrailingZeros(tileSize);
+        this.tileMask = tileSize - 1;
+        this.tileBytes = tileSize * tileSize * Integer.BYTES;
+        this.maxResidentTiles = maxResidentTiles;
+        this.transfer = ByteBuffer.allocateDirect(tileBytes);
+        this.resident = new LinkedHashMap<Long, Tile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+                if (size() <= TiledCellIndex.this.maxResidentTiles) {
+                    return false;
+                }
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+
+        Path file = Files.createTempFile(directory, "zombie-world", ".tiles");
+        this.spillFile = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    @Override
+    public synchronized void add(int x, int y, int count) {
+        if (count == 0) {
+            return;
+        }
+        Tile tile = tile(x, y, true);
+        int cell = cell(x, y);
+        if (tile.counts[cell] == 0) {
+            tile.occupied++;
+            occupied++;
+        }
+        tile.counts[cell] += count;
+        tile.dirty = true;
+        creatureCount += count;
+    }
+
+    @Override
+    public synchronized int count(int x, int y) {
+        Tile tile = tile(x, y, false);
+        return tile == null ? 0 : tile.counts[cell(x, y)];
+    }
+
+    @Override
+    public synchronized int remove(int x, int y) {
+        Tile tile = tile(x, y, false);
+        if (tile == null) {
+            return 0;
+        }
+
+        int cell = cell(x, y);
+        int count = tile.counts[cell];
+        if (count > 0) {
+            tile.counts[cell] = 0;
+            tile.occupied--;
+            tile.dirty = true;
+            occupied--;
+            creatureCount -= count;
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized int size() {
+        return occupied;
+    }
+
+    @Override
+    public synchronized long getCreatureCount() {
+        return creatureCount;
+    }
+
+    /**
+     * Visit every occupied cell in the index, a tile at a time. Tiles that are not in memory are read straight from the
+     * spill file (without disturbing the tiles that are), so the visitor must not change the index.
+     * <p>
+     * The index is only locked while each tile is copied, not while the visitor runs, so other threads can look up cells
+     * in between (which lets a {@link World#freezeCreatures() frozen} index be written out without holding up the
+     * simulation). Changes made by other threads while the index is being visited may or may not be seen.
+     */
+    @Override
+    public void forEach(CellVisitor visitor) {
+        Tile[] residentTiles;
+        long[] spilledKeys;
+        synchronized (this) {
+            residentTiles = resident.values().toArray(new Tile[0]);
+            long[] keys = new long[slots.size()];
+            int[] spilled = {0};
+            slots.forEach((tileX, tileY, slot) -> {
+                long key = SparseCellIndex.pack(tileX, tileY);
+                if (!resident.containsKey(key)) {
+                    keys[spilled[0]++] = key;
+                }
+            });
+            spilledKeys = Arrays.copyOf(keys, spilled[0]);
+        }
+
+        int[] counts = new int[tileBytes / Integer.BYTES];
+        for (Tile tile : residentTiles) {
+            copy(tile, counts);
+            visit(tile.key, counts, visitor);
+        }
+        for (long key : spilledKeys) {
+            if (readSpilled(key, counts)) {
+                visit(key, counts, visitor);
+            }
+        }
+    }
+
+    /**
+     * @return the number of tiles that have been read back from the spill file
+     */
+    public synchronized long getTilesRead() {
+        return tilesRead;
+    }
+
+    /**
+     * @return the number of tiles that have been written to the spill file
+     */
+    public synchronized long getTilesWritten() {
+        return tilesWritten;
+    }
+
+    /**
+     * Close (and delete) the spill file. The index can not be used afterwards.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        resident.clear();
+        lastKey = NO_TILE;
+        lastTile = null;
+        spillFile.close();
+    }
+
+    /**
+     * Find the tile holding a cell, reading it back from the spill file if it is not in memory
+     *
+     * @param create whether to create the tile if it does not exist yet
+     * @return the tile, or null if it does not exist and was not created
+     */
+    private Tile tile(int x, int y, boolean create) {
+        int tileX = x >>> tileShift;
+        int tileY = y >>> tileShift;
+        long key = SparseCellIndex.pack(tileX, tileY);
+        if (key == lastKey) {
+            return lastTile;
+        }
+
+        Tile tile = resident.get(key);
+        if (tile == null) {
+            int slot = slots.count(tileX, tileY) - 1;
+            if (slot >= 0) {
+                tile = new Tile(key, tileBytes / Integer.BYTES);
+                tile.slot = slot;
+                tile.occupied = read(slot, tile.counts);
+                tilesRead++;
+            } else if (create) {
+                tile = new Tile(key, tileBytes / Integer.BYTES);
+            } else {
+                return null;
+            }
+            resident.put(key, tile);
+        }
+
+        lastKey = key;
+        lastTile = tile;
+        return tile;
+    }
+
+    /**
+     * Write a tile that is leaving memory to the spill file (if it has changed), or give up its slot if it is empty
+     */
+    private void evict(Tile tile) {
+        if (tile.key == lastKey) {
+            lastKey = NO_TILE;
+            lastTile = null;
+        }
+
+        int tileX = (int) (tile.key >>> 32);
+        int tileY = (int) tile.key;
+        if (tile.occupied == 0) {
+            if (tile.slot >= 0) {
+                slots.remove(tileX, tileY);
+                if (freeSlotCount == freeSlots.length) {
+                    freeSlots = Arrays.copyOf(freeSlots, freeSlotCount << 1);
+                }
+                freeSlots[freeSlotCount++] = tile.slot;
+            }
+            return;
+        }
+        if (!tile.dirty) {
+            return;
+        }
+
+        if (tile.slot < 0) {
+            tile.slot = freeSlotCount > 0 ? freeSlots[--freeSlotCount] : slotCount++;
+            slots.add(tileX, tileY, tile.slot + 1);
+        }
+        transfer.clear();
+        transfer.asIntBuffer().put(tile.counts);
+        try {
+            long position = (long) tile.slot * tileBytes;
+            while (transfer.hasRemaining()) {
+                position += spillFile.write(transfer, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("A tile of the world could not be written to the spill file", e);
+        }
+        tilesWritten++;
+    }
+
+    private synchronized void copy(Tile tile, int[] counts) {
+        System.arraycopy(tile.counts, 0, counts, 0, counts.length);
+    }
+
+    /**
+     * Read a tile from the spill file as it was last written out
+     *
+     * @return false if the tile is no longer in the spill file (it has emptied)
+     */
+    private synchronized boolean readSpilled(long key, int[] counts) {
+        int slot = slots.count((int) (key >>> 32), (int) key) - 1;
+        if (slot < 0) {
+            return false;
+        }
+        read(slot, counts);
+        return true;
+    }
+
+    /**
+     * Read a tile from its slot in the spill file
+     *
+     * @return the number of occupied cells in the tile
+     */
+    private int read(int slot, int[] counts) {
+        transfer.clear();
+        try {
+            long position = (long) slot * tileBytes;
+            while (transfer.hasRemaining()) {
+                int read = spillFile.read(transfer, position);
+                if (read < 0) {
+                    throw new IOException("The spill file is truncated");
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("A tile of the world could not be read from the spill file", e);
+        }
+
+        transfer.flip();
+        IntBuffer ints = transfer.asIntBuffer();
+        ints.get(counts);
+        int occupiedCells = 0;
+        for (int count : counts) {
+            if (count != 0) {
+                occupiedCells++;
+            }
+        }
+        return occupiedCells;
+    }
+
+    private void visit(long key, int[] counts, CellVisitor visitor) {
+        int originX = (int) (key >>> 32) << tileShift;
+        int originY = (int) key << tileShift;
+        for (int cell = 0; cell < counts.length; cell++) {
+            if (counts[cell] != 0) {
+                visitor.visit(originX + (cell & tileMask), originY + (cell >>> tileShift), counts[cell]);
+            }
+        }
+    }
+
+    private int cell(int x, int y) {
+        return ((y & tileMask) << tileShift) | (x & tileMask);
+    }
+
+    /**
+     * The creature counts of a square block of cells
+     */
+    private static final class Tile {
+        /**
+         * The packed tile co-ordinates ((x << 32) | y)
+         */
+        private final long key;
+        /**
+         * The number of creatures in each cell of the tile, row by row
+         */
+        private final int[] counts;
+        /**
+         * The number of cells in the tile containing at least one creature
+         */
+        private int occupied;
+        /**
+         * Whether the tile has changed since it was last written to the spill file
+         */
+        private boolean dirty;
+        /**
+         * The slot of the tile in the spill file (or -1 if it has never been written)
+         */
+        private int slot = -1;
+
+        private Tile(long key, int cells) {
+            this.key = key;
+            this.counts = new int[cells];
+        }
+    }
+}
@@ -1,15 +1,34 @@
 package com.zombie.data;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
 import java.util.stream.Collectors;
 
 /**
  * The world in which the zombies and creatures live
+ * <p>
+ * A world is changed by one thread at a time (the one simulating it), but any number of other threads can ask it for
+ * its {@link #query() status} or the {@link #queryCreaturesAt(int, int) creatures in a cell} while it is being
+ * simulated. The changes the queries depend on (infections, creatures being added and zombies being finished) are made
+ * inside write sections of a sequence lock, and the queries read optimistically and try again if a change was made
+ * while they were reading - like a seqlock, the readers do not hold a lock, so they do not hold up the simulation. A
+ * query that keeps being overtaken by changes gives up on reading optimistically after a few attempts and takes the
+ * read lock instead, which holds up the next change only until the query has read what it needs.
+ * <p>
+ * The creature index can be {@link #freezeCreatures() frozen} so that another thread can read it as it stands (for
+ * example to write a checkpoint without copying the creatures first) while the world carries on changing.
+ * <p>
+ * A world should be closed once it is no longer needed, to release anything its creature index holds outside the heap
+ * (such as the spill file of a {@link TiledCellIndex}) and anything a zombie service has {@link #addResource added} to it
+ * (such as the worker processes of a sharded simulation).
  */
-public class World {
+public class World implements Closeable {
     /**
      * The length and height of the world (n by n) where n is size
      */
@@ -18,25 +37,88 @@ public class World {
      * The predetermined movements of the zombies
      */
     private String zombieMovements;
+    /**
+     * The zombie movements compiled for this world (shared by all the zombies)
+     */
+    private MovementProgram movementProgram;
     /**
      * The number of creatures that the initial zombie has infected
      */
     private int score;
     /**
-     * A map of lists containing uninfected creatures keyed by their co-ordinates in the world (grid)
+     * An index of the uninfected creatures keyed by their co-ordinates in the world (grid) - while the index is frozen,
+     * an overlay of the changes made since on top of it
      */
-    private Map<String, List<Creature>> creatures = new HashMap();
+    private CellIndex creatures;
     /**
-     * A list (stack) of zombies that are active and are yet to move (and infect creatures)
+     * A queue of zombies that are active and are yet to move (and infect creatures)
      */
-    private List<Creature> activeZombies = new ArrayList<>();
+    private final ZombieQueue activeZombies = new ZombieQueue();
     /**
      * A list of all the zombies that have finished their movements
      */
-    private List<Creature> finishedZombies = new ArrayList<>();
+    private final ZombieQueue finishedZombies = new ZombieQueue();
+    /**
+     * The live metrics of the world (published over JMX while the zombies move)
+     */
+    private final WorldMetrics metrics = new WorldMetrics(this);
+    /**
+     * Told about every infection (or null if nothing is listening)
+     */
+    private InfectionListener infectionListener;
+    /**
+     * Told about every batch of creatures added while the world is being simulated (or null if nothing is listening)
+     */
+    private CreatureListener creatureListener;
+    /**
+     * The resources released when the world is closed, in the order they were added (guarded by itself)
+     */
+    private final List<Closeable> resources = new ArrayList<>();
+    /**
+     * The number of times a query reads optimistically before it takes the read lock
+     */
+    private static final int OPTIMISTIC_ATTEMPTS = 8;
+
+    /**
+     * Guards the changes the queries read (the queries read optimistically, so they rarely block a change)
+     */
+    private final StampedLock queryLock = new StampedLock();
+    /**
+     * The number of changes made inside the query lock
+     */
+    private long version;
+    /**
+     * The number of zombies in the world less the score (which stays the same as creatures are infected), noted each
+     * time zombies set off - or -1 if no zombies have set off yet
+     */
+    private int zombiesLessScore = -1;
+    /**
+     * The number of uninfected creatures, noted inside every change so a query does not have to ask the index (which
+     * may take a lock of its own) while the world is being simulated - or -1 if nothing has been noted yet (while the
+     * world is still being set up, and creatures are added straight to the index)
+     */
+    private volatile long creatureCount = -1;
 
     public World(int size) {
+        this(size, 0);
+    }
+
+    /**
+     * @param size          the length and height of the world (n by n)
+     * @param creatureCount the number of creatures that will be added (used to choose how the creatures are indexed)
+     */
+    public World(int size, long creatureCount) {
+        this(size, CellIndexFactory.create(size, creatureCount));
+    }
+
+    /**
+     * @param size      the length and height of the world (n by n)
+     * @param creatures the index of the creatures in the world (which may already hold creatures)
+     */
+    public World(int size, CellIndex creatures) {
         this.size = size;
+        this.creatures = creatures;
+        this.movementProgram = MovementProgram.compile("", size);
     }
 
     public int getSize() {
@@ -47,35 +129,385 @@ public class World {
         return zombieMovements;
     }
 
+    /**
+     * Set the zombie movements, compiling them into the program every zombie will follow
+     *
+     * @param zombieMovements the movement actions (U - Up, D - Down, L - Left or R - Right)
+     */
     public void setZombieMovements(String zombieMovements) {
         this.zombieMovements = zombieMovements;
+        this.movementProgram = MovementProgram.compile(zombieMovements, size);
+    }
+
+    /**
+     * Set the zombie movements along with the program they have already been compiled into
+     *
+     * @param zombieMovements the movement actions (U - Up, D - Down, L - Left or R - Right)
+     * @param movementProgram the movements compiled for the size of this world
+     */
+    public void setZombieMovements(String zombieMovements, MovementProgram movementProgram) {
+        this.zombieMovements = zombieMovements;
+        this.movementProgram = movementProgram;
+    }
+
+    public MovementProgram getMovementProgram() {
+        return movementProgram;
     }
 
     public int getScore() {
         return score;
     }
 
-    public Map<String, List<Creature>> getCreatures() {
+    public CellIndex getCreatures() {
         return creatures;
     }
 
-    public List<Creature> getActiveZombies() {
+    /**
+     * Freeze the creature index so that it can be read from another thread. The world carries on changing, but the
+     * changes are kept in an overlay (and the index returned by {@link #getCreatures()} is the overlay) until the index is
+     * {@link #thawCreatures() thawed}. This must be called between zombies, on the thread simulating the world.
+     *
+     * @return the creature index as it is now, which does not change until it is thawed
+     */
+    public CellIndex freezeCreatures() {
+        long stamp = queryLock.writeLock();
+        try {
+            if (!(creatures instanceof CellIndexOverlay)) {
+                creatures = new CellIndexOverlay(creatures);
+            }
+            return ((CellIndexOverlay) creatures).getFrozen();
+        } finally {
+            queryLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Make the changes kept since the creature index was frozen to the index itself (once nothing else is reading it).
+     * This must be called between zombies, on the thread simulating the world.
+     */
+    public void thawCreatures() {
+        if (creatures instanceof CellIndexOverlay) {
+            long stamp = queryLock.writeLock();
+            try {
+                creatures = ((CellIndexOverlay) creatures).merge();
+            } finally {
+                queryLock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    public ZombieQueue getActiveZombies() {
         return activeZombies;
     }
 
-    public List<Creature> getFinishedZombies() {
+    public ZombieQueue getFinishedZombies() {
         return finishedZombies;
     }
 
+    public WorldMetrics getMetrics() {
+        return metrics;
+    }
+
+    public InfectionListener getInfectionListener() {
+        return infectionListener;
+    }
+
+    public void setInfectionListener(InfectionListener infectionListener) {
+        this.infectionListener = infectionListener;
+    }
+
+    public CreatureListener getCreatureListener() {
+        return creatureListener;
+    }
+
+    public void setCreatureListener(CreatureListener creatureListener) {
+        this.creatureListener = creatureListener;
+    }
+
     public void addScore(int noOfVictims) {
         this.score += noOfVictims;
     }
 
+    /**
+     * Infect all the creatures in a cell - they become active zombies and count towards the score
+     *
+     * @param x the horizontal (x-axis) position of the cell
+     * @param y the vertical (y-axis) position of the cell
+     * @return the number of creatures that were infected
+     */
+    public int infect(int x, int y) {
+        if (creatures.count(x, y) == 0) {
+            return 0; // nothing changes, so there is no need to hold up the queries
+        }
+
+        int victims;
+        long stamp = queryLock.writeLock();
+        try {
+            victims = creatures.remove(x, y);
+            creatureCount = creatures.getCreatureCount();
+            score += victims;
+            for (int i = 0; i < victims; i++) {
+                activeZombies.add(x, y);
+            }
+            version++;
+        } finally {
+            queryLock.unlockWrite(stamp);
+        }
+        metrics.addInfections(victims);
+        return victims;
+    }
+
+    /**
+     * Add creatures to the world while it is being simulated (in one change, as far as the queries are concerned),
+     * telling the creature listener (if there is one) about them
+     *
+     * @param positions the x and y of each creature, one after the other
+     * @param length    the number of values of the positions to add (twice the number of creatures)
+     */
+    public void addCreatures(int[] positions, int length) {
+        long stamp = queryLock.writeLock();
+        try {
+            for (int i = 0; i < length; i += 2) {
+                creatures.add(positions[i], positions[i + 1], 1);
+            }
+            creatureCount = creatures.getCreatureCount();
+            version++;
+        } finally {
+            queryLock.unlockWrite(stamp);
+        }
+        if (creatureListener != null) {
+            creatureListener.added(positions, length);
+        }
+    }
+
+    /**
+     * Infect all the creatures in a cell, telling the infection listener (if there is one) which zombie bit them
+     *
+     * @param x      the horizontal (x-axis) position of the cell
+     * @param y      the vertical (y-axis) position of the cell
+     * @param zombie the number of the zombie that bit them (zombies are numbered from 0 in the order they set off)
+     * @param step   the step of the zombie's movements at which it bit them
+     * @return the number of creatures that were infected
+     */
+    public int infect(int x, int y, int zombie, int step) {
+        int victims = infect(x, y);
+        if (victims > 0 && infectionListener != null) {
+            infectionListener.infected(zombie, step, x, y, victims);
+        }
+        return victims;
+    }
+
+    /**
+     * Finish every active zombie straight away if there are no creatures left for them to bite. Each zombie ends up
+     * wherever the net displacement of the movements takes it, so none of them needs to walk the movements step by
+     * step.
+     * <p>
+     * Every engine calls this before the next zombie (or generation of zombies) sets off, when none of the zombies is
+     * part way through its movements, so it is also where the world notes how many zombies it has for the queries.
+     *
+     * @return true if there were no creatures left (and every active zombie has been finished)
+     */
+    public boolean finishZombiesIfNoCreatures() {
+        long stamp = queryLock.writeLock();
+        try {
+            zombiesLessScore = activeZombies.size() + finishedZombies.size() - score;
+            creatureCount = creatures.getCreatureCount();
+            if (creatureCount > 0) {
+                return false;
+            }
+
+            for (int i = 0; i < activeZombies.size(); i++) {
+                finishedZombies.add(movementProgram.finalX(activeZombies.getX(i)),
+                        movementProgram.finalY(activeZombies.getY(i)));
+            }
+            activeZombies.clear();
+            version++;
+            return true;
+        } finally {
+            queryLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get the status of the world at a single point in time. This can be called from any thread while the world is
+     * being simulated - once the zombies have set off it does not touch the creature index, so it costs the simulation
+     * nothing unless it falls back to the read lock.
+     *
+     * @return the score, the numbers of active and finished zombies and the number of creatures remaining
+     */
+    public WorldStatus query() {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = optimisticRead(attempt);
+            if (stamp != 0) {
+                WorldStatus status = readStatus();
+                if (queryLock.validate(stamp)) {
+                    return status;
+                }
+            }
+        }
+
+        long stamp = queryLock.readLock();
+        try {
+            return readStatus();
+        } finally {
+            queryLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Get the number of creatures in a cell at a single point in time. This can be called from any thread while the
+     * world is being simulated.
+     * <p>
+     * The count is read from the creature index itself. An in-memory index is read without a lock, but a
+     * {@link TiledCellIndex} only lets one thread in at a time and may have to read the cell's tile from disk (and
+     * write another tile out to make room for it), so with a tiled index a query can hold up the simulation for as
+     * long as that takes.
+     *
+     * @param x the horizontal (x-axis) position of the cell
+     * @param y the vertical (y-axis) position of the cell
+     * @return the number of uninfected creatures in the cell
+     */
+    public int queryCreaturesAt(int x, int y) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = optimisticRead(attempt);
+            if (stamp == 0) {
+                continue;
+            }
+            int count;
+            try {
+                count = creatures.count(x, y);
+            } catch (RuntimeException e) {
+                if (queryLock.validate(stamp)) {
+                    throw e; // nothing changed while reading, so the failure is real
+                }
+                // the index was part way through a change (such as growing its table), so read it again
+                continue;
+            }
+            if (queryLock.validate(stamp)) {
+                return count;
+            }
+        }
+
+        long stamp = queryLock.readLock();
+        try {
+            return creatures.count(x, y);
+        } finally {
+            queryLock.unlockRead(stamp);
+        }
+    }
+
+    private WorldStatus readStatus() {
+        int readScore = score;
+        int finished = finishedZombies.size();
+        // the zombies moving at the moment are neither in the active queue nor finished
+        int active = zombiesLessScore < 0 ? activeZombies.size() : zombiesLessScore + readScore - finished;
+        long remaining = creatureCount;
+        return new WorldStatus(version, readScore, active, finished,
+                remaining < 0 ? creatures.getCreatureCount() : remaining);
+    }
+
+    /**
+     * Start an optimistic read, giving the writer a chance to finish a run of changes first if this is not the first
+     * attempt
+     *
+     * @return the stamp to validate the read with, or 0 if a change is in progress
+     */
+    private long optimisticRead(int attempt) {
+        if (attempt > 0) {
+            Thread.yield();
+        }
+        return queryLock.tryOptimisticRead();
+    }
+
     public boolean isActiveZombies() {
         return activeZombies.size() > 0;
     }
 
     public String getZombiePositions() {
-        return finishedZombies.stream().map(Creature::getPosition).collect(Collectors.joining(" "));
+        return finishedZombies.asCreatures().stream().map(Creature::getPosition).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Have a resource released when the world is closed, for example the processes a zombie service has started to
+     * simulate the world, so they do not outlive it if the simulation stops part way through. The resource may already
+     * have been released by then (closing it again should do nothing).
+     *
+     * @param resource the resource to close along with the world
+     */
+    public void addResource(Closeable resource) {
+        synchronized (resources) {
+            resources.add(resource);
+        }
+    }
+
+    /**
+     * Release the resources that have been added to the world (the last added first), and then the resources held by
+     * the creature index (if it holds any). The creatures can not be used afterwards, but the score and zombie
+     * positions can still be read.
+     *
+     * @throws IOException if the resources could not be released (once every resource has been closed)
+     */
+    @Override
+    public void close() throws IOException {
+        Closeable[] added;
+        synchronized (resources) {
+            added = resources.toArray(new Closeable[0]);
+            resources.clear();
+        }
+
+        IOException failure = null;
+        for (int i = added.length - 1; i >= 0; i--) {
+            try {
+                added[i].close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        thawCreatures();
+        if (creatures instanceof Closeable) {
+            try {
+                ((Closeable) creatures).close();
+            } catch (IOException e) {
+                if (failure != null) {
+                    e.addSuppressed(failure);
+                }
+                throw e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Write the positions of the finished zombies (in the same form as {@link #getZombiePositions()}) a buffer at a
+     * time, without building the whole string in memory
+     *
+     * @param channel the channel to write the positions to
+     * @throws IOException if the positions could not be written
+     */
+    public void writeZombiePositions(WritableByteChannel channel) throws IOException {
+        ZombiePositionWriter writer = new ZombiePositionWriter(channel);
+        for (int i = 0; i < finishedZombies.size(); i++) {
+            writer.write(finishedZombies.getX(i), finishedZombies.getY(i));
+        }
+        writer.flush();
+    }
+
+    /**
+     * Write the positions of the finished zombies (in the same form as {@link #getZombiePositions()}) a buffer at a
+     * time, without building the whole string in memory
+     *
+     * @param output the stream to write the positions to (it is not closed)
+     * @throws IOException if the positions could not be written
+     */
+    public void writeZombiePositions(OutputStream output) throws IOException {
+        writeZombiePositions(Channels.newChannel(output));
+        output.flush();
     }
 }
@@ -0,0 +1,224 @@
+package com.zombie.data;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of a world: counters updated while the zombies move and the time spent in each phase of a run.
+ * <p>
+ * The counters are striped ({@link LongAdder}) so that the engines can update them from any thread without
+ * contention, and they are only updated once per zombie (not once per step). The counts taken from the world itself
+ * (such as the number of active zombies) come from a {@link World#query() query}, so they are consistent with each
+ * other at the moment they are read without holding up the zombies.
+ */
+public class WorldMetrics implements WorldMetricsMBean {
+    /**
+     * The phases of a run that are timed
+     */
+    public enum Phase {
+        /**
+         * Reading the set up details
+         */
+        READ,
+        /**
+         * Parsing and validating the set up details
+         */
+        VALIDATE,
+        /**
+         * Adding the creatures and zombies to the world
+         */
+        BUILD,
+        /**
+         * Moving the zombies
+         */
+        SIMULATE,
+        /**
+         * Writing the results
+         */
+        RENDER
+    }
+
+    /**
+     * Used to give every world registered with JMX a unique name
+     */
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final World world;
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder infections = new LongAdder();
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+    /**
+     * The time the zombies started moving (or 0 if they have not started)
+     */
+    private volatile long simulationStart;
+    /**
+     * The name the metrics are registered with JMX under (or null if they are not registered)
+     */
+    private ObjectName name;
+
+    WorldMetrics(World world) {
+        this.world = world;
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record the steps processed by a zombie (or a group of zombies)
+     *
+     * @param count the number of steps
+     */
+    public void addSteps(long count) {
+        steps.add(count);
+    }
+
+    void addInfections(int count) {
+        infections.add(count);
+    }
+
+    /**
+     * Record time spent in a phase of the run
+     *
+     * @param phase the phase of the run
+     * @param nanos the time spent in nanoseconds
+     */
+    public void addPhaseTime(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    /**
+     * Mark the start of the zombies moving
+     */
+    public void startSimulation() {
+        simulationStart = System.nanoTime();
+    }
+
+    /**
+     * Mark the end of the zombies moving, recording the time spent moving them
+     */
+    public void endSimulation() {
+        long start = simulationStart;
+        if (start != 0) {
+            addPhaseTime(Phase.SIMULATE, System.nanoTime() - start);
+            simulationStart = 0;
+        }
+    }
+
+    /**
+     * Publish the metrics with the platform MBean server (under com.zombie:type=World,id=n)
+     *
+     * @throws JMException if the metrics could not be registered
+     */
+    public synchronized void register() throws JMException {
+        if (name == null) {
+            ObjectName newName = new ObjectName("com.zombie:type=World,id=" + NEXT_ID.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newName);
+            name = newName;
+        }
+    }
+
+    /**
+     * Remove the metrics from the platform MBean server (if they were registered)
+     *
+     * @throws JMException if the metrics could not be unregistered
+     */
+    public synchronized void unregister() throws JMException {
+        if (name != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            name = null;
+        }
+    }
+
+    public synchronized ObjectName getName() {
+        return name;
+    }
+
+    @Override
+    public int getSize() {
+        return world.getSize();
+    }
+
+    @Override
+    public int getScore() {
+        return world.query().getScore();
+    }
+
+    @Override
+    public long getStepsProcessed() {
+        return steps.sum();
+    }
+
+    @Override
+    public long getInfections() {
+        return infections.sum();
+    }
+
+    @Override
+    public int getActiveZombies() {
+        return world.query().getActiveZombies();
+    }
+
+    @Override
+    public int getFinishedZombies() {
+        return world.query().getFinishedZombies();
+    }
+
+    @Override
+    public long getCreaturesRemaining() {
+        return world.query().getCreaturesRemaining();
+    }
+
+    @Override
+    public double getStepsPerSecond() {
+        long start = simulationStart;
+        long nanos = start != 0 ? System.nanoTime() - start : phaseNanos[Phase.SIMULATE.ordinal()].sum();
+        return nanos == 0 ? 0 : steps.sum() * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    @Override
+    public long getReadMillis() {
+        return getPhaseMillis(Phase.READ);
+    }
+
+    @Override
+    public long getValidateMillis() {
+        return getPhaseMillis(Phase.VALIDATE);
+    }
+
+    @Override
+    public long getBuildMillis() {
+        return getPhaseMillis(Phase.BUILD);
+    }
+
+    @Override
+    public long getSimulateMillis() {
+        long start = simulationStart;
+        long running = start != 0 ? System.nanoTime() - start : 0;
+        return TimeUnit.NANOSECONDS.toMillis(phaseNanos[Phase.SIMULATE.ordinal()].sum() + running);
+    }
+
+    @Override
+    public long getRenderMillis() {
+        return getPhaseMillis(Phase.RENDER);
+    }
+
+    /**
+     * @param phase the phase of the run
+     * @return the time spent in the phase in nanoseconds
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    private long getPhaseMillis(Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(getPhaseNanos(phase));
+    }
+}
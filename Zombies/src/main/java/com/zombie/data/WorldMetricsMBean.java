@@ -0,0 +1,44 @@
+package com.zombie.data;
+
+/**
+ * The live metrics of a world, published over JMX while the zombies move
+ */
+public interface WorldMetricsMBean {
+    int getSize();
+
+    int getScore();
+
+    /**
+     * @return the number of zombie steps processed so far
+     */
+    long getStepsProcessed();
+
+    /**
+     * @return the number of creatures infected so far
+     */
+    long getInfections();
+
+    int getActiveZombies();
+
+    int getFinishedZombies();
+
+    /**
+     * @return the number of uninfected creatures left in the world
+     */
+    long getCreaturesRemaining();
+
+    /**
+     * @return the average number of steps processed per second since the zombies started moving
+     */
+    double getStepsPerSecond();
+
+    long getReadMillis();
+
+    long getValidateMillis();
+
+    long getBuildMillis();
+
+    long getSimulateMillis();
+
+    long getRenderMillis();
+}
@@ -0,0 +1,61 @@
+package com.zombie.data;
+
+/**
+ * The state of a world at a single point in time, as seen by a {@link World#query() query} from any thread
+ */
+public final class WorldStatus {
+    /**
+     * The number of changes made to the world before this point
+     */
+    private final long version;
+    /**
+     * The number of creatures the zombies have infected
+     */
+    private final int score;
+    /**
+     * The number of zombies that have not finished their movements (waiting to move or moving)
+     */
+    private final int activeZombies;
+    /**
+     * The number of zombies that have finished their movements
+     */
+    private final int finishedZombies;
+    /**
+     * The number of uninfected creatures left in the world
+     */
+    private final long creaturesRemaining;
+
+    WorldStatus(long version, int score, int activeZombies, int finishedZombies, long creaturesRemaining) {
+        this.version = version;
+        this.score = score;
+        this.activeZombies = activeZombies;
+        this.finishedZombies = finishedZombies;
+        this.creaturesRemaining = creaturesRemaining;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getActiveZombies() {
+        return activeZombies;
+    }
+
+    public int getFinishedZombies() {
+        return finishedZombies;
+    }
+
+    public long getCreaturesRemaining() {
+        return creaturesRemaining;
+    }
+
+    @Override
+    public String toString() {
+        return "version " + version + ": score " + score + ", " + activeZombies + " active zombies, " +
+                finishedZombies + " finished zombies, " + creaturesRemaining + " creatures remaining";
+    }
+}
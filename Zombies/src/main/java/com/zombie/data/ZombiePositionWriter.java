@@ -0,0 +1,90 @@
+package com.zombie.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes zombie positions in the same form as {@link Creature#getPosition()} (separated by spaces) straight to a
+ * channel.
+ * <p>
+ * The co-ordinates are formatted directly into a fixed size byte buffer that is written out whenever it fills up, so
+ * the memory used stays the same no matter how many positions are written.
+ */
+public class ZombiePositionWriter {
+    /**
+     * The size of the buffer the positions are formatted into
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The longest a single position can be: "(" + 11 characters + ", " + 11 characters + ")" plus a separator
+     */
+    private static final int MAX_POSITION_LENGTH = 27;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * True once the first position has been written (every later position is preceded by a space)
+     */
+    private boolean started;
+
+    public ZombiePositionWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Write the position of a zombie
+     *
+     * @param x the horizontal (x-axis) position of the zombie
+     * @param y the vertical (y-axis) position of the zombie
+     * @throws IOException if the buffer could not be written to the channel
+     */
+    public void write(int x, int y) throws IOException {
+        if (buffer.remaining() < MAX_POSITION_LENGTH) {
+            drain();
+        }
+
+        if (started) {
+            buffer.put((byte) ' ');
+        }
+        started = true;
+        buffer.put((byte) '(');
+        putNumber(x);
+        buffer.put((byte) ',').put((byte) ' ');
+        putNumber(y);
+        buffer.put((byte) ')');
+    }
+
+    /**
+     * Write out any positions still held in the buffer
+     *
+     * @throws IOException if the buffer could not be written to the channel
+     */
+    public void flush() throws IOException {
+        drain();
+    }
+
+    private void putNumber(int number) {
+        long value = number;
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+
+        long divisor = 1;
+        while (divisor * 10 <= value) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,237 @@
+package com.zombie.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A queue of zombie positions kept as two growable ring buffers of x and y co-ordinates.
+ * <p>
+ * Zombies are added to the back and taken from the front in constant time, without any per zombie objects, so the
+ * queue is read and changed through the co-ordinates of its zombies. {@link #asCreatures()} gives a read only list of
+ * {@link Creature}s for code that wants one, but each creature in it is a new copy of the position.
+ */
+public class ZombieQueue {
+    /**
+     * The capacity of a new queue
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * The largest capacity a queue can grow to
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The x and y co-ordinates of the zombies, starting at the head and wrapping around the end of the arrays
+     */
+    private int[] xs = new int[INITIAL_CAPACITY];
+    private int[] ys = new int[INITIAL_CAPACITY];
+    /**
+     * The capacity minus one (the capacity is always a power of two)
+     */
+    private int mask = INITIAL_CAPACITY - 1;
+    /**
+     * The slot of the zombie at the front of the queue
+     */
+    private int head;
+    /**
+     * The number of zombies in the queue
+     */
+    private int size;
+
+    /**
+     * Add a zombie to the back of the queue
+     *
+     * @param x the horizontal (x-axis) position of the zombie
+     * @param y the vertical (y-axis) position of the zombie
+     */
+    public void add(int x, int y) {
+        if (size == xs.length) {
+            grow();
+        }
+        int slot = (head + size) & mask;
+        xs[slot] = x;
+        ys[slot] = y;
+        size++;
+    }
+
+    /**
+     * Add a zombie to the back of the queue
+     *
+     * @param zombie the zombie to add (its position is copied, so later changes to it do not change the queue)
+     */
+    public void add(Creature zombie) {
+        add(zombie.getxPosition(), zombie.getyPosition());
+    }
+
+    /**
+     * Add copies of all the zombies in another queue to the back of this one
+     *
+     * @param zombies the zombies to add
+     */
+    public void addAll(ZombieQueue zombies) {
+        for (int i = 0; i < zombies.size; i++) {
+            add(zombies.getX(i), zombies.getY(i));
+        }
+    }
+
+    /**
+     * @return the horizontal position of the zombie at the front of the queue
+     */
+    public int firstX() {
+        checkNotEmpty();
+        return xs[head];
+    }
+
+    /**
+     * @return the vertical position of the zombie at the front of the queue
+     */
+    public int firstY() {
+        checkNotEmpty();
+        return ys[head];
+    }
+
+    /**
+     * Remove the zombie at the front of the queue
+     */
+    public void removeFirst() {
+        checkNotEmpty();
+        head = (head + 1) & mask;
+        size--;
+    }
+
+    /**
+     * @param index the position of the zombie in the queue (0 is the front)
+     * @return the horizontal position of the zombie
+     */
+    public int getX(int index) {
+        return xs[slot(index)];
+    }
+
+    /**
+     * @param index the position of the zombie in the queue (0 is the front)
+     * @return the vertical position of the zombie
+     */
+    public int getY(int index) {
+        return ys[slot(index)];
+    }
+
+    /**
+     * Move a zombie in the queue
+     *
+     * @param index the position of the zombie in the queue (0 is the front)
+     * @param x     the new horizontal position of the zombie
+     * @param y     the new vertical position of the zombie
+     */
+    public void set(int index, int x, int y) {
+        int slot = slot(index);
+        xs[slot] = x;
+        ys[slot] = y;
+    }
+
+    /**
+     * Remove a zombie from the queue (in constant time from the front or back, otherwise by shifting the zombies
+     * behind it forward)
+     *
+     * @param index the position of the zombie in the queue (0 is the front)
+     */
+    public void remove(int index) {
+        slot(index);
+        if (index == 0) {
+            removeFirst();
+            return;
+        }
+
+        for (int i = index; i < size - 1; i++) {
+            set(i, getX(i + 1), getY(i + 1));
+        }
+        size--;
+    }
+
+    /**
+     * Remove all the zombies from the queue
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * @return the number of zombies in the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if there are no zombies in the queue
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get a read only view of the zombies as creatures. The view follows the queue as it changes, but every call to
+     * {@code get} returns a new creature holding a copy of the zombie's position - changing that creature does not
+     * move the zombie (use {@link #set(int, int, int)} for that).
+     *
+     * @return the zombies in the queue, front first
+     */
+    public List<Creature> asCreatures() {
+        return new CreatureView();
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (head + index) & mask;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("There are no zombies in the queue");
+        }
+    }
+
+    /**
+     * Double the capacity, unwrapping the zombies so the front of the queue is at the start of the new arrays
+     */
+    private void grow() {
+        if (xs.length == MAX_CAPACITY) {
+            throw new IllegalStateException("Too many zombies: " + size);
+        }
+
+        int capacity = xs.length << 1;
+        xs = unwrap(xs, capacity);
+        ys = unwrap(ys, capacity);
+        head = 0;
+        mask = capacity - 1;
+    }
+
+    private int[] unwrap(int[] values, int capacity) {
+        int[] unwrapped = Arrays.copyOfRange(values, head, head + capacity);
+        System.arraycopy(values, 0, unwrapped, values.length - head, head);
+        return unwrapped;
+    }
+
+    /**
+     * The read only list of creatures returned by {@link #asCreatures()}
+     */
+    private class CreatureView extends AbstractList<Creature> implements RandomAccess {
+        /**
+         * @return a new creature at the position of the zombie
+         */
+        @Override
+        public Creature get(int index) {
+            int slot = slot(index);
+            return new Creature(xs[slot], ys[slot]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
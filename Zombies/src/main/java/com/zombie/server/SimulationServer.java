@@ -0,0 +1,360 @@
+package com.zombie.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.zombie.data.World;
+import com.zombie.service.CachingZombieService;
+import com.zombie.service.LoadError;
+import com.zombie.service.LoadResult;
+import com.zombie.service.ResultCache;
+import com.zombie.service.WorldParser;
+import com.zombie.service.WorldResult;
+import com.zombie.service.ZombieService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A long lived local server that simulates worlds sent to it over HTTP, so the cost of starting the JVM and warming up
+ * the JIT is only paid once.
+ * <p>
+ * A world is simulated by POSTing its set up details (in the 4 line text format) to {@value #PATH}. The response has
+ * the same two lines that are printed for a single world, or the errors in the set up details (one per line, with the
+ * line and column they were found at) and a 400 status. Only a limited number of worlds are simulated at once; any
+ * more are turned away straight away with a 503 status rather than queueing up, and set up details larger than the
+ * server's limit are turned away with a 413 status. If the server has a result cache, a world that has been simulated
+ * before is answered from the cache without being simulated again.
+ */
+public class SimulationServer implements Closeable {
+    /**
+     * The path worlds are posted to
+     */
+    public static final String PATH = "/simulate";
+    /**
+     * The largest set up details (in bytes) a server accepts unless it is given another limit
+     */
+    public static final long DEFAULT_MAX_BODY_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Set on the thread handling a request that was turned away because every permit was in use
+     */
+    private static final ThreadLocal<Boolean> TURNED_AWAY = new ThreadLocal<>();
+
+    /**
+     * The zombie service that moves the zombies (which must be safe to share between worlds)
+     */
+    private final ZombieService service;
+    /**
+     * The permits for simulating a world (one per world that may be simulated at once)
+     */
+    private final Semaphore permits;
+    /**
+     * Answers the worlds from the result cache, simulating them only if they are not cached (or null if results are not
+     * cached)
+     */
+    private final CachingZombieService cachingService;
+    /**
+     * The largest set up details (in bytes) that are read
+     */
+    private final long maxBodyBytes;
+    /**
+     * The threads the requests are handled on (one per permit)
+     */
+    private final ExecutorService executor;
+    private final HttpServer server;
+
+    /**
+     * Create a server listening on the loopback address (it does not accept requests until it is started)
+     *
+     * @param service       the zombie service that moves the zombies
+     * @param port          the port to listen on (0 for any free port)
+     * @param maxConcurrent the most worlds to simulate at once
+     * @throws IOException if the server could not listen on the port
+     */
+    public SimulationServer(ZombieService service, int port, int maxConcurrent) throws IOException {
+        this(service, port, maxConcurrent, null);
+    }
+
+    /**
+     * Create a server listening on the loopback address (it does not accept requests until it is started)
+     *
+     * @param service       the zombie service that moves the zombies
+     * @param port          the port to listen on (0 for any free port)
+     * @param maxConcurrent the most worlds to simulate at once
+     * @param cache         the cache to keep the results in (or null to simulate every world)
+     * @throws IOException if the server could not listen on the port
+     */
+    public SimulationServer(ZombieService service, int port, int maxConcurrent, ResultCache cache)
+            throws IOException {
+        this(service, port, maxConcurrent, cache, DEFAULT_MAX_BODY_BYTES);
+    }
+
+    /**
+     * Create a server listening on the loopback address (it does not accept requests until it is started)
+     *
+     * @param service       the zombie service that moves the zombies
+     * @param port          the port to listen on (0 for any free port)
+     * @param maxConcurrent the most worlds to simulate at once
+     * @param cache         the cache to keep the results in (or null to simulate every world)
+     * @param maxBodyBytes  the largest set up details (in bytes) to accept
+     * @throws IOException if the server could not listen on the port
+     */
+    public SimulationServer(ZombieService service, int port, int maxConcurrent, ResultCache cache, long maxBodyBytes)
+            throws IOException {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("The concurrency limit must be at least 1 but was " + maxConcurrent);
+        }
+        if (maxBodyBytes < 1) {
+            throw new IllegalArgumentException("The request size limit must be at least 1 but was " + maxBodyBytes);
+        }
+
+        this.service = service;
+        this.permits = new Semaphore(maxConcurrent);
+        this.cachingService = cache == null ? null : new CachingZombieService(service, cache);
+        this.maxBodyBytes = maxBodyBytes;
+        // a request only reaches the pool once it holds a permit, so its queue never grows past the permits
+        this.executor = Executors.newFixedThreadPool(maxConcurrent);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.server.createContext(PATH, this::handle);
+        this.server.setExecutor(this::dispatch);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return the port the server is listening on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop the server, waiting up to a second for the worlds being simulated to finish
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hand a request to the pool if a permit is free, or otherwise turn it away on the server's own thread (which only
+     * has to write the short 503 response)
+     */
+    private void dispatch(Runnable request) {
+        if (!permits.tryAcquire()) {
+            TURNED_AWAY.set(Boolean.TRUE);
+            try {
+                request.run();
+            } finally {
+                TURNED_AWAY.remove();
+            }
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    request.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (TURNED_AWAY.get() != null) {
+                respond(exchange, 503, "Too many worlds are being simulated - try again later\n");
+            } else if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "Worlds must be POSTed to " + PATH + "\n");
+            } else if (declaredLength(exchange) > maxBodyBytes) {
+                respondTooLarge(exchange);
+            } else {
+                simulate(exchange);
+            }
+        } catch (BodyTooLargeException e) {
+            respondTooLarge(exchange);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            // once the headers have gone the status can not be changed, so the response is just cut short
+            if (exchange.getResponseCode() < 0) {
+                respond(exchange, 500, e.toString() + "\n");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void simulate(HttpExchange exchange) throws IOException {
+        if (cachingService != null) {
+            simulateCached(exchange);
+            return;
+        }
+
+        LoadResult result = new WorldParser().load(Channels.newChannel(requestBody(exchange)));
+        if (!result.isSuccess()) {
+            respondErrors(exchange, result);
+            return;
+        }
+
+        try (World world = result.getWorld()) {
+            service.simulate(world);
+
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            body.write(("zombies score: " + world.getScore() + "\nzombies positions: ")
+                    .getBytes(StandardCharsets.UTF_8));
+            world.writeZombiePositions(body);
+            body.write('\n');
+            body.close();
+        }
+    }
+
+    /**
+     * Answer from the cache if the same input, or an input setting up the same world, has been simulated before
+     */
+    private void simulateCached(HttpExchange exchange) throws IOException {
+        byte[] input = readAll(requestBody(exchange));
+        LoadResult[] invalid = new LoadResult[1];
+        WorldResult result = cachingService.simulate(PATH, input, () -> {
+            LoadResult loaded = new WorldParser().load(Channels.newChannel(new ByteArrayInputStream(input)));
+            if (!loaded.isSuccess()) {
+                invalid[0] = loaded;
+                return null;
+            }
+            return loaded.getWorld();
+        });
+
+        if (invalid[0] != null) {
+            respondErrors(exchange, invalid[0]);
+        } else if (!result.isSuccess()) {
+            respond(exchange, 500, result.getError() + "\n");
+        } else {
+            respond(exchange, 200, "zombies score: " + result.getScore() + "\nzombies positions: " +
+                    result.getPositions() + "\n");
+        }
+    }
+
+    /**
+     * @return the length of the set up details the client says it is sending (or -1 if it did not say)
+     */
+    private static long declaredLength(HttpExchange exchange) {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        try {
+            return length == null ? -1 : Long.parseLong(length.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the set up details, which fail with a {@link BodyTooLargeException} once more than the limit is read
+     */
+    private InputStream requestBody(HttpExchange exchange) {
+        return new LimitedInputStream(exchange.getRequestBody(), maxBodyBytes);
+    }
+
+    private void respondTooLarge(HttpExchange exchange) throws IOException {
+        if (exchange.getResponseCode() < 0) {
+            exchange.getResponseHeaders().set("Connection", "close");
+            respond(exchange, 413, "The set up details must not be larger than " + maxBodyBytes + " bytes\n");
+        }
+    }
+
+    private static void respondErrors(HttpExchange exchange, LoadResult result) throws IOException {
+        StringBuilder errors = new StringBuilder();
+        for (LoadError error : result.getErrors()) {
+            errors.append(error).append('\n');
+        }
+        respond(exchange, 400, errors.toString());
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        for (int read; (read = input.read(buffer)) >= 0; ) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    /**
+     * Thrown when more of a request is read than the server accepts
+     */
+    private static class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException(long limit) {
+            super("The request is larger than " + limit + " bytes");
+        }
+    }
+
+    /**
+     * Fails with a {@link BodyTooLargeException} as soon as more than a limit has been read
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long remaining;
+
+        LimitedInputStream(InputStream input, long limit) {
+            super(input);
+            this.limit = limit;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws BodyTooLargeException {
+            remaining -= read;
+            if (remaining < 0) {
+                throw new BodyTooLargeException(limit);
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sets up and simulates worlds without blocking the calling thread.
+ * <p>
+ * Reading the set up details runs on the I/O executor and moving the zombies runs on the simulation executor, and
+ * each returns a {@link CompletableFuture}, so a single thread can drive many simulations at once. A simulation checks
+ * its future between zombies and stops as soon as the future is cancelled or times out (leaving the world part way
+ * through, with the zombies that have not moved yet still active).
+ */
+public class AsyncZombieService implements Closeable {
+    /**
+     * The zombie service that sets up the worlds and moves the zombies (which must be safe to share between worlds)
+     */
+    private final ZombieService service;
+    /**
+     * The executor the set up details are read on
+     */
+    private final Executor ioExecutor;
+    /**
+     * The executor the zombies are moved on
+     */
+    private final Executor simulationExecutor;
+    /**
+     * The executors created by this service (and shut down when it is closed), if it was not given its own
+     */
+    private final ExecutorService[] ownedExecutors;
+    /**
+     * Times out the simulations
+     */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            daemonThreads("zombie-async-timer"));
+
+    /**
+     * Create an async service with its own executors: a cached pool for the I/O and a pool with a thread per
+     * processor for the simulations
+     *
+     * @param service the zombie service that sets up the worlds and moves the zombies
+     */
+    public AsyncZombieService(ZombieService service) {
+        this(service, Executors.newCachedThreadPool(daemonThreads("zombie-async-io")),
+                Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                        daemonThreads("zombie-async-simulation")), true);
+    }
+
+    /**
+     * @param service            the zombie service that sets up the worlds and moves the zombies
+     * @param ioExecutor         the executor to read the set up details on
+     * @param simulationExecutor the executor to move the zombies on
+     */
+    public AsyncZombieService(ZombieService service, Executor ioExecutor, Executor simulationExecutor) {
+        this(service, ioExecutor, simulationExecutor, false);
+    }
+
+    private AsyncZombieService(ZombieService service, Executor ioExecutor, Executor simulationExecutor,
+                               boolean ownsExecutors) {
+        this.service = service;
+        this.ioExecutor = ioExecutor;
+        this.simulationExecutor = simulationExecutor;
+        this.ownedExecutors = ownsExecutors ?
+                new ExecutorService[]{(ExecutorService) ioExecutor, (ExecutorService) simulationExecutor} :
+                new ExecutorService[0];
+    }
+
+    /**
+     * Create the initial world from an input file
+     *
+     * @param inputPath the file path of the input file (in the 4 line text format or a binary world snapshot)
+     * @return the world, which is null if the set up details were invalid
+     */
+    public CompletableFuture<World> createWorld(String inputPath) {
+        return supply(() -> service.createWorld(new String[]{inputPath}), ioExecutor);
+    }
+
+    /**
+     * Create the initial world from set up details in the 4 line text format
+     *
+     * @param input the stream to read the set up details from (it is not closed)
+     * @return the world, which is null if the set up details were invalid
+     */
+    public CompletableFuture<World> createWorld(InputStream input) {
+        return supply(() -> service.createWorld(input), ioExecutor);
+    }
+
+    /**
+     * Monitor the zombies until every zombie has finished moving
+     *
+     * @param source the name of the input the world was created from
+     * @param world  the world in which the creatures and zombies co-exist
+     * @return the result once every zombie has finished moving (cancelling it stops the zombies moving)
+     */
+    public CompletableFuture<WorldResult> simulate(String source, World world) {
+        return simulate(source, world, false);
+    }
+
+    /**
+     * Monitor the zombies until every zombie has finished moving (or the result is cancelled)
+     *
+     * @param close whether to close the world once its zombies have stopped moving (when the service created it)
+     */
+    private CompletableFuture<WorldResult> simulate(String source, World world, boolean close) {
+        CompletableFuture<WorldResult> result = new CompletableFuture<>();
+        boolean accepted = execute(() -> {
+            world.getMetrics().startSimulation();
+            try {
+                while (world.isActiveZombies()) {
+                    if (result.isDone()) {
+                        return; // cancelled or timed out
+                    }
+                    service.monitorZombie(world);
+                }
+                result.complete(WorldResult.of(source, world));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            } finally {
+                world.getMetrics().endSimulation();
+                if (close) {
+                    closeQuietly(world);
+                }
+            }
+        }, result);
+        if (!accepted && close) {
+            closeQuietly(world);
+        }
+        return result;
+    }
+
+    /**
+     * Monitor the zombies until every zombie has finished moving, giving up if it takes too long
+     *
+     * @param source  the name of the input the world was created from
+     * @param world   the world in which the creatures and zombies co-exist
+     * @param timeout how long to let the zombies move for
+     * @param unit    the unit of the timeout
+     * @return the result once every zombie has finished moving, or a {@link TimeoutException} if they have not
+     * finished in time
+     */
+    public CompletableFuture<WorldResult> simulate(String source, World world, long timeout, TimeUnit unit) {
+        return withTimeout(simulate(source, world), timeout, unit);
+    }
+
+    /**
+     * Set up and simulate a world from an input file, giving up if it takes too long
+     *
+     * @param inputPath the file path of the input file (in the 4 line text format or a binary world snapshot)
+     * @param timeout   how long to allow for setting up the world and moving the zombies
+     * @param unit      the unit of the timeout
+     * @return the result of the world (a failed result if the set up details were invalid), or a
+     * {@link TimeoutException} if it did not finish in time
+     */
+    public CompletableFuture<WorldResult> run(String inputPath, long timeout, TimeUnit unit) {
+        CompletableFuture<WorldResult> result = new CompletableFuture<>();
+        createWorld(inputPath).whenComplete((world, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (world == null) {
+                result.complete(WorldResult.failed(inputPath, "The zombie world could not be set up..."));
+            } else if (result.isDone()) {
+                closeQuietly(world);
+            } else {
+                // the simulation checks its own future, so pass cancellation and time outs of the result on to it
+                CompletableFuture<WorldResult> simulation = simulate(inputPath, world, true);
+                result.whenComplete((value, failure) -> simulation.cancel(false));
+                simulation.whenComplete((value, failure) -> {
+                    if (failure != null) {
+                        result.completeExceptionally(failure);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            }
+        });
+        return withTimeout(result, timeout, unit);
+    }
+
+    /**
+     * Stop the timer, and the executors if they were created by this service
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        for (ExecutorService executor : ownedExecutors) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void closeQuietly(World world) {
+        try {
+            world.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> supplier, Executor executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!result.isDone()) {
+                        result.complete(supplier.get());
+                    }
+                } catch (RuntimeException | Error e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * @return false if the task was turned away (and the result completed with the reason)
+     */
+    private boolean execute(Runnable task, CompletableFuture<?> result) {
+        try {
+            simulationExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return false;
+        }
+    }
+
+    /**
+     * Complete the future with a {@link TimeoutException} if it has not completed in time
+     */
+    private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit) {
+        ScheduledFuture<?> timeoutTask = timer.schedule(() -> future.completeExceptionally(
+                new TimeoutException("The zombies did not finish within " + timeout + " " +
+                        unit.name().toLowerCase())), timeout, unit);
+        future.whenComplete((value, error) -> timeoutTask.cancel(false));
+        return future;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
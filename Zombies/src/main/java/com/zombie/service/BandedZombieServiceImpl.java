@@ -0,0 +1,371 @@
+package com.zombie.service;
+
+import com.zombie.data.CellIndex;
+import com.zombie.data.MovementProgram;
+import com.zombie.data.World;
+import com.zombie.data.ZombieQueue;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A zombie service that splits the world into horizontal bands of rows and moves each generation of zombies band by
+ * band in parallel.
+ * <p>
+ * Each band is worked on by one thread at a time, which only looks at the creatures in the band's own rows (a
+ * contiguous slice of a dense creature index) and records the cells its zombies pass through in its own claims table,
+ * so the bands never contend for a cell. When a zombie steps into another band (including wrapping from the top row
+ * to the bottom one) the rest of its walk is handed off to that band through a lock-free queue. Once every walk has
+ * finished, the claims of all the bands are resolved in the order the sequential service would have bitten the
+ * creatures, so the score and positions are exactly the same.
+ * <p>
+ * Any thread may take over a band that has work waiting, so the walks always finish no matter how many of the
+ * helper threads actually get to run.
+ */
+public class BandedZombieServiceImpl implements ZombieService {
+    /**
+     * The fewest steps in a generation worth sharing between threads
+     */
+    private static final long PARALLEL_THRESHOLD = 16 * 1024;
+    /**
+     * The fewest rows in a band
+     */
+    private static final int MIN_ROWS_PER_BAND = 8;
+
+    private static BandedZombieServiceImpl service;
+
+    /**
+     * The executor the helper threads run on
+     */
+    private final Executor executor;
+    /**
+     * The number of threads (and bands) to split the world between
+     */
+    private final int parallelism;
+
+    /**
+     * @param executor    the executor to run the helper threads on
+     * @param parallelism the number of threads (and bands) to split the world between
+     */
+    public BandedZombieServiceImpl(Executor executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1 but was " + parallelism);
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Get the instance of the banded zombie service, which runs on the common fork/join pool
+     *
+     * @return the zombie service
+     */
+    public static synchronized BandedZombieServiceImpl getService() {
+        if (service == null) {
+            service = new BandedZombieServiceImpl(ForkJoinPool.commonPool(),
+                    Runtime.getRuntime().availableProcessors());
+        }
+        return service;
+    }
+
+    /**
+     * Set up the world in exactly the same way as the sequential zombie service
+     *
+     * @param args either empty (if using the default resources file) or a file path to an external input file
+     * @return World object populated with creatures/zombies (or null if the set up instructions were invalid)
+     */
+    public World createWorld(String[] args) {
+        return ZombieServiceImpl.getService().createWorld(args);
+    }
+
+    /**
+     * Set up the world from details in the 4 line text format, in exactly the same way as the sequential zombie service
+     *
+     * @param input the stream to read the set up details from (it is not closed)
+     * @return World object populated with creatures/zombies (or null if the set up instructions were invalid)
+     */
+    public World createWorld(InputStream input) {
+        return ZombieServiceImpl.getService().createWorld(input);
+    }
+
+    /**
+     * Move every active zombie (one generation) around the world, band by band in parallel. The creatures they bite
+     * become the next generation of active zombies.
+     *
+     * @param world the world in which the creatures and zombies co-exist
+     */
+    public void monitorZombie(World world) {
+        if (world.finishZombiesIfNoCreatures()) {
+            return;
+        }
+
+        ZombieQueue active = world.getActiveZombies();
+        int count = active.size();
+        int[] startXs = new int[count];
+        int[] startYs = new int[count];
+        for (int i = 0; i < count; i++) {
+            startXs[i] = active.getX(i);
+            startYs[i] = active.getY(i);
+        }
+        active.clear();
+
+        MovementProgram program = world.getMovementProgram();
+        long steps = (long) count * program.length();
+        int bands = steps < PARALLEL_THRESHOLD ? 1 :
+                Math.max(1, Math.min(parallelism, world.getSize() / MIN_ROWS_PER_BAND));
+
+        Generation generation = new Generation(world, startXs, startYs, bands);
+        generation.start();
+        for (int helper = 1; helper < bands; helper++) {
+            int home = helper;
+            executor.execute(() -> generation.work(home));
+        }
+        generation.work(0);
+
+        generation.resolve();
+        world.getMetrics().addSteps(steps);
+
+        ZombieQueue finished = world.getFinishedZombies();
+        for (int i = 0; i < count; i++) {
+            finished.add(program.finalX(startXs[i]), program.finalY(startYs[i]));
+        }
+    }
+
+    /**
+     * The walks of one generation of zombies through the bands of the world
+     */
+    private static class Generation {
+        private final World world;
+        private final MovementProgram program;
+        private final CellIndex creatures;
+        private final int[] startXs;
+        private final int[] startYs;
+        /**
+         * The number of rows in each band (the last band also takes any rows left over)
+         */
+        private final int rowsPerBand;
+        private final Band[] bands;
+        /**
+         * The number of walks that are waiting in a queue or being walked
+         */
+        private final AtomicLong pending = new AtomicLong();
+
+        Generation(World world, int[] startXs, int[] startYs, int bandCount) {
+            this.world = world;
+            this.program = world.getMovementProgram();
+            this.creatures = world.getCreatures();
+            this.startXs = startXs;
+            this.startYs = startYs;
+            this.rowsPerBand = Math.max(1, world.getSize() / bandCount);
+            this.bands = new Band[bandCount];
+            for (int i = 0; i < bandCount; i++) {
+                bands[i] = new Band();
+            }
+        }
+
+        /**
+         * Queue the walk of every zombie in the band it takes its first step into
+         */
+        void start() {
+            if (program.length() == 0) {
+                return;
+            }
+            for (int zombie = 0; zombie < startXs.length; zombie++) {
+                handOff(zombie, 0);
+            }
+        }
+
+        /**
+         * Work on the bands until every walk has finished, starting with (and preferring) the home band
+         */
+        void work(int home) {
+            while (pending.get() > 0) {
+                boolean worked = false;
+                for (int i = 0; i < bands.length; i++) {
+                    Band band = bands[(home + i) % bands.length];
+                    if (!band.walks.isEmpty() && band.owned.compareAndSet(false, true)) {
+                        try {
+                            long walk;
+                            while ((walk = band.walks.poll()) >= 0) {
+                                walk(band, (int) (walk >>> 32), (int) walk);
+                                pending.decrementAndGet();
+                            }
+                        } finally {
+                            band.owned.set(false);
+                        }
+                        worked = true;
+                    }
+                }
+                if (!worked) {
+                    Thread.yield();
+                }
+            }
+        }
+
+        /**
+         * Walk a zombie through a band from a step, claiming the occupied cells, until it leaves the band or finishes
+         */
+        private void walk(Band band, int zombie, int fromStep) {
+            int startX = startXs[zombie];
+            int startY = startYs[zombie];
+            for (int step = fromStep; step < program.length(); step++) {
+                int y = program.yAt(startY, step);
+                if (bands[bandOf(y)] != band) {
+                    handOff(zombie, step);
+                    return;
+                }
+                int x = program.xAt(startX, step);
+                if (creatures.count(x, y) > 0) {
+                    band.claims.claim(x, y, ((long) zombie << 32) | step);
+                }
+            }
+        }
+
+        /**
+         * Queue the rest of a zombie's walk in the band that owns the row of its next step
+         */
+        private void handOff(int zombie, int step) {
+            pending.incrementAndGet();
+            bands[bandOf(program.yAt(startYs[zombie], step))].walks.add(((long) zombie << 32) | step);
+        }
+
+        private int bandOf(int y) {
+            return Math.min(y / rowsPerBand, bands.length - 1);
+        }
+
+        /**
+         * Infect the claimed cells in the order the zombies (and their steps) would have reached them one at a time
+         */
+        void resolve() {
+            int total = 0;
+            for (Band band : bands) {
+                total += band.claims.size();
+            }
+
+            long[] claims = new long[total];
+            int next = 0;
+            for (Band band : bands) {
+                System.arraycopy(band.claims.priorities(), 0, claims, next, band.claims.size());
+                next += band.claims.size();
+            }
+            Arrays.sort(claims);
+
+            // the zombies of this generation are numbered on from the ones that have already finished
+            int firstZombie = world.getFinishedZombies().size();
+            for (long claim : claims) {
+                int zombie = (int) (claim >>> 32);
+                int step = (int) claim;
+                world.infect(program.xAt(startXs[zombie], step), program.yAt(startYs[zombie], step),
+                        firstZombie + zombie, step);
+            }
+        }
+    }
+
+    /**
+     * The queue of walks waiting in a band and the cells claimed in it
+     */
+    private static class Band {
+        /**
+         * The walks handed to the band, each packed as (zombie << 32) | step
+         */
+        private final WalkQueue walks = new WalkQueue();
+        /**
+         * Whether a thread is working on the band
+         */
+        private final AtomicBoolean owned = new AtomicBoolean();
+        private final CellClaims claims = new CellClaims();
+    }
+
+    /**
+     * A lock-free queue of packed walks that any thread may add to, but only the thread working on the band takes from.
+     * <p>
+     * The walks are kept in chunks of primitive longs rather than a node (and a boxed Long) per walk: an adding thread
+     * claims a slot of the last chunk with a single increment, linking on a new chunk once it is full, and then
+     * publishes the walk in its slot. Each walk is stored plus one, so an empty slot (0) is one that has not been
+     * published yet.
+     */
+    private static class WalkQueue {
+        private static final int CHUNK_SIZE = 1024;
+
+        /**
+         * The chunk walks are being added to (it may briefly lag behind the last chunk while one is being linked on)
+         */
+        private final AtomicReference<Chunk> tail;
+        /**
+         * The chunk and slot of the next walk to take (only used by the thread working on the band, and handed between
+         * threads through the band's owned flag)
+         */
+        private Chunk head;
+        private int read;
+
+        WalkQueue() {
+            head = new Chunk();
+            tail = new AtomicReference<>(head);
+        }
+
+        /**
+         * @param walk the walk, packed as (zombie << 32) | step
+         */
+        void add(long walk) {
+            Chunk chunk = tail.get();
+            while (true) {
+                int slot = chunk.claimed.getAndIncrement();
+                if (slot < CHUNK_SIZE) {
+                    chunk.walks.set(slot, walk + 1);
+                    return;
+                }
+
+                Chunk next = chunk.next.get();
+                if (next == null) {
+                    chunk.next.compareAndSet(null, new Chunk());
+                    next = chunk.next.get();
+                }
+                tail.compareAndSet(chunk, next);
+                chunk = next;
+            }
+        }
+
+        /**
+         * @return the next walk, or -1 if there are none (or the next one has not been published yet)
+         */
+        long poll() {
+            long walk = peek();
+            if (walk >= 0) {
+                read++;
+            }
+            return walk;
+        }
+
+        boolean isEmpty() {
+            return peek() < 0;
+        }
+
+        private long peek() {
+            if (read == CHUNK_SIZE) {
+                Chunk next = head.next.get();
+                if (next == null) {
+                    return -1;
+                }
+                head = next;
+                read = 0;
+            }
+            return head.walks.get(read) - 1;
+        }
+
+        private static class Chunk {
+            private final AtomicLongArray walks = new AtomicLongArray(CHUNK_SIZE);
+            /**
+             * The number of slots handed out (which goes past the size of the chunk once it is full)
+             */
+            private final AtomicInteger claimed = new AtomicInteger();
+            private final AtomicReference<Chunk> next = new AtomicReference<>();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs a batch of worlds on a fixed size pool of threads in a single JVM, so the cost of starting the JVM and warming
+ * up the JIT is only paid once for the whole batch.
+ */
+final class BatchSimulation {
+    private BatchSimulation() {
+    }
+
+    /**
+     * Set up and simulate the worlds, passing each result back on the calling thread as soon as it is ready
+     *
+     * @param service     the zombie service used to move the zombies (which must be safe to share between worlds)
+     * @param names       the name of each world's input
+     * @param creators    creates each world (returning null if the set up details are invalid)
+     * @param parallelism the most worlds to set up and simulate at the same time
+     * @param onResult    called with the result of each world as it finishes
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the worlds
+     */
+    static void run(ZombieService service, List<String> names, List<Callable<World>> creators, int parallelism,
+                    Consumer<WorldResult> onResult) throws InterruptedException {
+        List<Callable<WorldResult>> simulations = new ArrayList<>();
+        for (int i = 0; i < creators.size(); i++) {
+            String name = names.get(i);
+            Callable<World> creator = creators.get(i);
+            simulations.add(() -> simulate(service, name, creator));
+        }
+        runAll(simulations, parallelism, onResult);
+    }
+
+    /**
+     * Run the simulations of the worlds, passing each result back on the calling thread as soon as it is ready
+     *
+     * @param simulations each gives the result of one world (catching any exceptions it can)
+     * @param parallelism the most worlds to simulate at the same time
+     * @param onResult    called with the result of each world as it finishes
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the worlds
+     */
+    static void runAll(List<Callable<WorldResult>> simulations, int parallelism, Consumer<WorldResult> onResult)
+            throws InterruptedException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1 but was " + parallelism);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(parallelism, Math.max(1, simulations.size())));
+        try {
+            CompletionService<WorldResult> completion = new ExecutorCompletionService<>(executor);
+            for (Callable<WorldResult> simulation : simulations) {
+                completion.submit(simulation);
+            }
+
+            for (int i = 0; i < simulations.size(); i++) {
+                try {
+                    onResult.accept(completion.take().get());
+                } catch (ExecutionException e) {
+                    // simulate() catches everything it can, so only errors (such as running out of memory) get here
+                    throw new IllegalStateException("A world in the batch failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static WorldResult simulate(ZombieService service, String name, Callable<World> creator) {
+        try (World world = creator.call()) {
+            if (world == null) {
+                return WorldResult.failed(name, "The zombie world could not be set up...");
+            }
+
+            service.simulate(world);
+            return WorldResult.of(name, world);
+        } catch (Exception e) {
+            return WorldResult.failed(name, e.toString());
+        }
+    }
+}
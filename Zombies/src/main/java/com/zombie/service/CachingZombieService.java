@@ -0,0 +1,163 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import com.zombie.data.WorldStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A zombie service that answers the worlds of a batch from a {@link ResultCache} when the same world has been
+ * simulated before, skipping both the set up and the simulation.
+ * <p>
+ * Each input is first looked up by a hash of its raw bytes, then (once it has been set up) by a hash of the world, and
+ * only simulated if neither is cached. Only {@link #simulateBatch} and {@link #simulateStreams} can be answered from the
+ * cache, as they hand back results - the other methods hand out or move a live world, so they go straight to the
+ * wrapped service.
+ */
+public class CachingZombieService implements ZombieService {
+    /**
+     * The zombie service that sets up the worlds and moves the zombies
+     */
+    private final ZombieService service;
+    /**
+     * The results of the worlds simulated so far
+     */
+    private final ResultCache cache;
+
+    /**
+     * @param service the zombie service that sets up the worlds and moves the zombies (which must be safe to share
+     *                between worlds)
+     * @param cache   the cache to keep the results in
+     */
+    public CachingZombieService(ZombieService service, ResultCache cache) {
+        this.service = service;
+        this.cache = cache;
+    }
+
+    @Override
+    public World createWorld(String[] args) {
+        return service.createWorld(args);
+    }
+
+    @Override
+    public World createWorld(InputStream input) {
+        return service.createWorld(input);
+    }
+
+    @Override
+    public void monitorZombie(World world) {
+        service.monitorZombie(world);
+    }
+
+    @Override
+    public void simulate(World world) {
+        service.simulate(world);
+    }
+
+    @Override
+    public void simulate(World world, Checkpointer checkpointer) {
+        service.simulate(world, checkpointer);
+    }
+
+    @Override
+    public void simulate(World world, CreatureFeed feed, long intervalMillis, Consumer<WorldStatus> onUpdate)
+            throws InterruptedException {
+        service.simulate(world, feed, intervalMillis, onUpdate);
+    }
+
+    @Override
+    public void simulateBatch(List<String> inputPaths, int parallelism, Consumer<WorldResult> onResult)
+            throws InterruptedException {
+        List<Callable<WorldResult>> simulations = new ArrayList<>();
+        for (String inputPath : inputPaths) {
+            // the file is set up by the service (rather than from the bytes read) as it may be a binary snapshot
+            simulations.add(() -> simulate(inputPath, () -> Files.readAllBytes(Paths.get(inputPath)),
+                    bytes -> service.createWorld(new String[]{inputPath})));
+        }
+        BatchSimulation.runAll(simulations, parallelism, onResult);
+    }
+
+    @Override
+    public void simulateStreams(List<InputStream> inputs, int parallelism, Consumer<WorldResult> onResult)
+            throws InterruptedException {
+        List<Callable<WorldResult>> simulations = new ArrayList<>();
+        for (InputStream input : inputs) {
+            String name = "stream-" + simulations.size();
+            simulations.add(() -> simulate(name, () -> {
+                try (InputStream stream = input) {
+                    return readAll(stream);
+                }
+            }, bytes -> service.createWorld(new ByteArrayInputStream(bytes))));
+        }
+        BatchSimulation.runAll(simulations, parallelism, onResult);
+    }
+
+    /**
+     * Answer a world from the cache if the same input, or an input setting up the same world, has been simulated
+     * before - otherwise set up and simulate the world, and cache its result under both keys
+     *
+     * @param name    the name to give the input in the result
+     * @param input   the set up details exactly as they were given
+     * @param creator sets up the world from the set up details (returning null if they are invalid)
+     * @return the result, or a failed result if the world could not be set up or simulated
+     */
+    public WorldResult simulate(String name, byte[] input, Callable<World> creator) {
+        try {
+            String inputKey = ResultCache.key(input);
+            WorldResult result = cache.get(inputKey, name);
+            if (result != null) {
+                return result;
+            }
+
+            try (World world = creator.call()) {
+                if (world == null) {
+                    return WorldResult.failed(name, "The zombie world could not be set up...");
+                }
+
+                String worldKey = ResultCache.key(world);
+                result = cache.get(worldKey, name);
+                if (result == null) {
+                    service.simulate(world);
+                    result = WorldResult.of(name, world);
+                    cache.put(worldKey, result);
+                }
+            }
+            cache.put(inputKey, result);
+            return result;
+        } catch (Exception e) {
+            return WorldResult.failed(name, e.toString());
+        }
+    }
+
+    private WorldResult simulate(String name, Callable<byte[]> reader, Function<byte[], World> creator) {
+        byte[] input;
+        try {
+            input = reader.call();
+        } catch (Exception e) {
+            // the same as the service not being able to read the input
+            e.printStackTrace();
+            return WorldResult.failed(name, "The zombie world could not be set up...");
+        }
+        return simulate(name, input, () -> creator.apply(input));
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+}
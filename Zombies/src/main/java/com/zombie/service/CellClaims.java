@@ -0,0 +1,116 @@
+package com.zombie.service;
+
+import java.util.Arrays;
+
+/**
+ * The steps at which zombies passed through occupied cells of one part of the world (a band or a shard).
+ * <p>
+ * The first zombie (and step) to reach a cell is the one that bites its creatures, and later visits find the cell
+ * empty, so only the earliest visit to each cell is kept. The cell of a visit is worked out again from the zombie and
+ * step when the claims are resolved, so only the visits are handed back.
+ */
+class CellClaims {
+    /**
+     * The key used to mark an empty slot (co-ordinates are never negative so no real cell packs to this value)
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * The earliest visit to each claimed cell, packed as (zombie << 32) | step
+     */
+    private long[] priorities = new long[64];
+    private int size;
+    /**
+     * An open-addressing (linear probing) table of the claimed cells ((x << 32) | y) and the index of each one's
+     * visit in priorities
+     */
+    private long[] cells = emptyCells(128);
+    private int[] indexes = new int[128];
+
+    /**
+     * Claim a cell for a visit, keeping the earliest visit if the cell has already been claimed
+     *
+     * @param x        the horizontal position of the cell
+     * @param y        the vertical position of the cell
+     * @param priority the visit, packed as (zombie << 32) | step
+     */
+    void claim(int x, int y, long priority) {
+        long cell = ((long) x << 32) | y;
+        int mask = cells.length - 1;
+        int slot = hash(cell) & mask;
+        while (cells[slot] != EMPTY) {
+            if (cells[slot] == cell) {
+                int index = indexes[slot];
+                priorities[index] = Math.min(priorities[index], priority);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == priorities.length) {
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        cells[slot] = cell;
+        indexes[slot] = size;
+        priorities[size++] = priority;
+        if (size > cells.length >> 1) {
+            rehash();
+        }
+    }
+
+    /**
+     * @return the number of cells claimed
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the earliest visit to each claimed cell (only the first {@link #size()} are used), in no order
+     */
+    long[] priorities() {
+        return priorities;
+    }
+
+    /**
+     * Forget every claim, so the table can be used for the next generation
+     */
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(cells, EMPTY);
+            size = 0;
+        }
+    }
+
+    private void rehash() {
+        long[] oldCells = cells;
+        int[] oldIndexes = indexes;
+        cells = emptyCells(oldCells.length * 2);
+        indexes = new int[oldCells.length * 2];
+
+        int mask = cells.length - 1;
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldCells[i] != EMPTY) {
+                int slot = hash(oldCells[i]) & mask;
+                while (cells[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                cells[slot] = oldCells[i];
+                indexes[slot] = oldIndexes[i];
+            }
+        }
+    }
+
+    private static long[] emptyCells(int capacity) {
+        long[] cells = new long[capacity];
+        Arrays.fill(cells, EMPTY);
+        return cells;
+    }
+
+    private static int hash(long cell) {
+        cell ^= cell >>> 33;
+        cell *= 0xff51afd7ed558ccdL;
+        cell ^= cell >>> 33;
+        return (int) cell;
+    }
+}
@@ -0,0 +1,184 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes periodic checkpoints of a world while its zombies move, so a long simulation can be carried on from the latest
+ * checkpoint if the process dies.
+ * <p>
+ * A checkpoint is a {@link WorldSnapshot}: between zombies, the simulation thread copies the zombies and score and
+ * {@link World#freezeCreatures() freezes} the creature index, then a background thread streams the creatures straight
+ * from the frozen index to disk, so the simulation neither copies the creatures nor waits for the disk. The changes
+ * made while the checkpoint is written are kept aside and merged into the index between zombies once it has been
+ * written. The snapshot is written to a temporary file and moved over the checkpoint file once complete, so the
+ * checkpoint file is always a whole snapshot (a temporary file left by a failed write is removed). If the previous
+ * checkpoint is still being written when the next one is due, the new one is skipped.
+ * <p>
+ * Each checkpoint keeps the key of the input the world was set up from (see {@link WorldSnapshot#readInputKey}), so a
+ * checkpoint is only carried on from when it was taken of the same input.
+ */
+public class Checkpointer implements Closeable {
+    /**
+     * The file the latest checkpoint is kept in
+     */
+    private final Path file;
+    /**
+     * The key of the input the world was set up from (empty if it is not known)
+     */
+    private final String inputKey;
+    /**
+     * The time between checkpoints
+     */
+    private final long intervalNanos;
+    /**
+     * Writes the checkpoints in the background
+     */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "zombie-checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long lastCheckpoint = System.nanoTime();
+    /**
+     * The checkpoint currently being written (or null if there is none)
+     */
+    private Future<?> pending;
+    /**
+     * The world whose creature index is frozen for the checkpoint being written (or null if there is none)
+     */
+    private World frozen;
+
+    /**
+     * @param file     the file to keep the latest checkpoint in
+     * @param interval the time between checkpoints
+     * @param unit     the unit of the interval
+     */
+    public Checkpointer(Path file, long interval, TimeUnit unit) {
+        this(file, "", interval, unit);
+    }
+
+    /**
+     * @param file     the file to keep the latest checkpoint in
+     * @param inputKey the key of the input the world was set up from (see {@link ResultCache#key(byte[])})
+     * @param interval the time between checkpoints
+     * @param unit     the unit of the interval
+     */
+    public Checkpointer(Path file, String inputKey, long interval, TimeUnit unit) {
+        this.file = file;
+        this.inputKey = inputKey;
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Take a checkpoint of the world if the interval has passed since the last one. This must be called between
+     * zombies, on the thread moving them.
+     *
+     * @param world the world being simulated
+     * @return true if a checkpoint was taken
+     */
+    public boolean checkpointIfDue(World world) {
+        if (pending != null && !pending.isDone()) {
+            return false;
+        }
+        thaw();
+
+        long now = System.nanoTime();
+        if (now - lastCheckpoint < intervalNanos) {
+            return false;
+        }
+
+        lastCheckpoint = now;
+        checkpoint(world);
+        return true;
+    }
+
+    /**
+     * Capture the world now and write it out in the background (once any checkpoint still being written is finished).
+     * This must be called between zombies, on the thread moving them.
+     *
+     * @param world the world being simulated
+     * @return the background write of the checkpoint
+     */
+    public Future<?> checkpoint(World world) {
+        awaitPending();
+        frozen = world;
+        WorldSnapshot snapshot = WorldSnapshot.capture(world, world.freezeCreatures(), inputKey);
+        pending = writer.submit(() -> write(snapshot));
+        return pending;
+    }
+
+    /**
+     * Remove the checkpoint file (once the simulation has finished and it is no longer needed)
+     *
+     * @throws IOException if the file could not be removed
+     */
+    public void delete() throws IOException {
+        awaitPending();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Wait for any checkpoint still being written (merging the changes made meanwhile into the world's creature index),
+     * then stop the background writer. This must be called on the thread moving the zombies.
+     */
+    @Override
+    public void close() {
+        awaitPending();
+        writer.shutdown();
+    }
+
+    private void write(WorldSnapshot snapshot) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            snapshot.writeTo(temporary);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+            }
+            e.printStackTrace(); // the simulation carries on - the previous checkpoint is left in place
+        }
+    }
+
+    /**
+     * Merge the changes made while the last checkpoint was written into the world's creature index
+     */
+    private void thaw() {
+        if (frozen != null) {
+            frozen.thawCreatures();
+            frozen = null;
+        }
+    }
+
+    private void awaitPending() {
+        if (pending != null) {
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+            pending = null;
+        }
+        thaw();
+    }
+}
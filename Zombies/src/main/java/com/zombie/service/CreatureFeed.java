@@ -0,0 +1,267 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds batches of new creatures into a world while its zombies are moving.
+ * <p>
+ * Each line of the input is a batch of creature positions in the same form as the 3rd line of the set up details,
+ * e.g. {@code (0,1)(1,2)}. The lines are read and parsed on a background thread, so the simulation never waits for
+ * the input, and the parsed batches are queued until the simulating thread {@link #mergeInto(World) merges} them into
+ * the world between zombies. Only a limited number of batches are queued - once the queue is full the reading thread
+ * waits for the simulation to catch up, rather than reading ever more of a fast input into memory. A batch with an
+ * invalid position (or one outside the grid) is skipped as a whole, and the error is logged.
+ */
+public class CreatureFeed implements Closeable {
+    /**
+     * Marks the end of the input in the queue of batches
+     */
+    private static final int[] END = new int[0];
+    /**
+     * The most batches queued up waiting to be merged, unless another limit is given
+     */
+    private static final int MAX_QUEUED_BATCHES = 1024;
+
+    private final int size;
+    private final BufferedReader reader;
+    /**
+     * Whether the feed closes the input (it does not close a stream it was lent, such as the standard input)
+     */
+    private final boolean closeInput;
+    private final BlockingQueue<int[]> batches;
+    private final Thread thread;
+    /**
+     * Set once the reading thread has queued its last batch (the end marker is only queued if there is room for it,
+     * so this is checked as well when the queue is empty)
+     */
+    private volatile boolean inputEnded;
+    /**
+     * Whether the end of the input has been taken off the queue (only used by the simulating thread)
+     */
+    private boolean ended;
+    /**
+     * A batch taken off the queue while waiting, which is merged before the rest of the queue
+     */
+    private int[] waiting;
+
+    private volatile long batchesRead;
+    private volatile long batchesSkipped;
+    private long creaturesMerged;
+
+    /**
+     * Start reading batches of creatures
+     *
+     * @param input the stream to read the batches from (it is closed once it ends, or when the feed is closed)
+     * @param size  the length and height of the world the creatures are fed into
+     */
+    public CreatureFeed(InputStream input, int size) {
+        this(input, size, true);
+    }
+
+    /**
+     * Start reading batches of creatures
+     *
+     * @param input      the stream to read the batches from
+     * @param size       the length and height of the world the creatures are fed into
+     * @param closeInput whether to close the stream once it ends or when the feed is closed - a stream the feed does
+     *                   not own (such as the standard input) is left open, and the reading thread (a daemon) is left
+     *                   waiting on it if the feed is closed first
+     */
+    public CreatureFeed(InputStream input, int size, boolean closeInput) {
+        this(input, size, closeInput, MAX_QUEUED_BATCHES);
+    }
+
+    /**
+     * @param maxQueued the most batches to queue up waiting to be merged
+     */
+    CreatureFeed(InputStream input, int size, boolean closeInput, int maxQueued) {
+        this.size = size;
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.closeInput = closeInput;
+        this.batches = new LinkedBlockingQueue<>(maxQueued);
+        thread = new Thread(this::read, "zombie-creature-feed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Add every batch that has been read so far to the world's creatures (without waiting for any more)
+     *
+     * @param world the world being simulated
+     * @return the number of creatures added
+     */
+    public long mergeInto(World world) {
+        long merged = 0;
+        int[] batch;
+        while (!ended && (batch = nextBatch()) != null) {
+            if (batch == END) {
+                ended = true;
+                break;
+            }
+            world.addCreatures(batch, batch.length);
+            merged += batch.length / 2;
+        }
+        creaturesMerged += merged;
+        return merged;
+    }
+
+    /**
+     * Wait until there is a batch to merge (or the input ends)
+     *
+     * @param timeout the longest time to wait
+     * @param unit    the unit of the timeout
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void awaitBatch(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!ended && waiting == null) {
+            waiting = batches.poll(timeout, unit);
+        }
+    }
+
+    /**
+     * @return true if more creatures may still arrive (the input has not ended, or its last batches have not been
+     * merged yet)
+     */
+    public boolean isOpen() {
+        return !ended;
+    }
+
+    /**
+     * @return the number of batches read so far (including the skipped ones)
+     */
+    public long getBatchesRead() {
+        return batchesRead;
+    }
+
+    /**
+     * @return the number of batches skipped because they had an invalid position
+     */
+    public long getBatchesSkipped() {
+        return batchesSkipped;
+    }
+
+    /**
+     * @return the number of creatures merged into the world so far
+     */
+    public long getCreaturesMerged() {
+        return creaturesMerged;
+    }
+
+    /**
+     * Stop reading the input, closing it if the feed owns it (any batches already read can still be merged)
+     *
+     * @throws IOException if the input could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        if (closeInput) {
+            reader.close();
+        }
+    }
+
+    /**
+     * Read and parse the batches until the input ends
+     */
+    private void read() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                batchesRead++;
+                int[] batch = parse(line, batchesRead);
+                if (batch == null) {
+                    batchesSkipped++;
+                } else if (batch.length > 0) {
+                    batches.put(batch); // waits while the queue is full
+                }
+            }
+        } catch (IOException e) {
+            if (!thread.isInterrupted()) {
+                System.err.println("The creature feed could not be read: " + e);
+            }
+        } catch (InterruptedException e) {
+            // the feed has been closed
+        } finally {
+            inputEnded = true;
+            // wake up a wait for the next batch (if the queue is full there are batches to merge anyway)
+            batches.offer(END);
+            if (closeInput) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // the input has already ended
+                }
+            }
+        }
+    }
+
+    private int[] nextBatch() {
+        int[] batch = waiting;
+        if (batch != null) {
+            waiting = null;
+            return batch;
+        }
+
+        batch = batches.poll();
+        if (batch == null && inputEnded) {
+            // every batch was queued before the end was noted, so if the queue is still empty there are no more
+            batch = batches.poll();
+            return batch == null ? END : batch;
+        }
+        return batch;
+    }
+
+    /**
+     * Parse the positions of a batch (text outside of brackets is ignored)
+     *
+     * @return the x and y of each creature, one after the other (or null if the batch has an invalid position)
+     */
+    private int[] parse(String line, long lineNumber) {
+        int[] positions = new int[16];
+        int count = 0;
+        int open = line.indexOf('(');
+        while (open >= 0) {
+            int close = line.indexOf(')', open);
+            if (close < 0) {
+                return skip(lineNumber, "A position is missing its closing bracket: " + line.substring(open));
+            }
+            String position = line.substring(open + 1, close);
+            int comma = position.indexOf(',');
+            int x;
+            int y;
+            try {
+                x = Integer.parseInt(position.substring(0, Math.max(comma, 0)).trim());
+                y = Integer.parseInt(position.substring(comma + 1).trim());
+            } catch (NumberFormatException e) {
+                return skip(lineNumber, "One of the position co-ordinates is not a valid number: " + position);
+            }
+            if (x < 0 || y < 0 || x >= size || y >= size) {
+                return skip(lineNumber, "One of the position co-ordinates is outside the grid: " + position);
+            }
+
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+            positions[count++] = x;
+            positions[count++] = y;
+            open = line.indexOf('(', close);
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    private static int[] skip(long lineNumber, String message) {
+        System.err.println("Batch " + lineNumber + " of the creature feed was skipped - " + message);
+        return null;
+    }
+}
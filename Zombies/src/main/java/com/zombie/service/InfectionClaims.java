@@ -0,0 +1,61 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The cells that the zombies of one generation have found creatures in, and which zombie gets to bite them.
+ * <p>
+ * When zombies move one after another, the creatures in a cell are bitten by the first zombie (in queue order) to
+ * reach the cell, at the first step it reaches it. Zombies that move at the same time claim every occupied cell they
+ * pass through with their priority (queue position, then step) and the lowest priority wins the cell. Resolving the
+ * claims in priority order then infects the cells and queues the new zombies in exactly the order the zombies would
+ * have if they had moved one after another.
+ */
+class InfectionClaims {
+    /**
+     * The winning claim priority for each claimed cell, keyed by the packed cell co-ordinates
+     */
+    private final ConcurrentHashMap<Long, Long> claims = new ConcurrentHashMap<>();
+
+    /**
+     * Claim an occupied cell for a zombie (safe to call from many threads at once)
+     *
+     * @param x      the horizontal position of the cell
+     * @param y      the vertical position of the cell
+     * @param zombie the position of the zombie in its generation
+     * @param step   the step at which the zombie reached the cell
+     */
+    void claim(int x, int y, int zombie, int step) {
+        Long cell = ((long) x << 32) | (y & 0xFFFFFFFFL);
+        long priority = ((long) zombie << 32) | step;
+
+        Long current = claims.get(cell);
+        if (current == null || current > priority) {
+            claims.merge(cell, priority, Math::min);
+        }
+    }
+
+    /**
+     * Infect the claimed cells in priority order (adding the new zombies to the world's active zombies)
+     *
+     * @param world the world in which the creatures and zombies co-exist
+     */
+    void resolve(World world) {
+        List<Map.Entry<Long, Long>> winners = new ArrayList<>(claims.entrySet());
+        winners.sort(Map.Entry.comparingByValue());
+
+        // the zombies of this generation are numbered on from the ones that have already finished
+        int firstZombie = world.getFinishedZombies().size();
+        for (Map.Entry<Long, Long> winner : winners) {
+            long cell = winner.getKey();
+            long priority = winner.getValue();
+            world.infect((int) (cell >>> 32), (int) cell, firstZombie + (int) (priority >>> 32), (int) priority);
+        }
+        claims.clear();
+    }
+}
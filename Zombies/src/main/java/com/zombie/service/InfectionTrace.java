@@ -0,0 +1,225 @@
+package com.zombie.service;
+
+import com.zombie.data.InfectionListener;
+import com.zombie.data.World;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records every infection in a world to an append-only binary trace file, which {@link InfectionTraceReplay} can
+ * rebuild and verify the world from.
+ * <p>
+ * The trace starts with the {@link #MAGIC} number and {@link #VERSION}, followed by a record for each infection
+ * and then an end record. Every number is written as a variable length (7 bits a byte) unsigned int:
+ * <ul>
+ * <li>an infection record is the change in zombie number since the last record (zig-zag encoded, plus one), the
+ * step (or the change in step, zig-zag encoded, if the zombie is the same as the last record's), the x and y of the
+ * cell and the number of creatures bitten</li>
+ * <li>the end record is a 0, the final score and the total number of zombies</li>
+ * </ul>
+ * Infections are encoded into a buffer on the simulating thread, and full buffers are handed to a background writer
+ * thread (and empty ones handed back) through lock-free queues, so the simulation never waits for the disk. If the
+ * writer falls behind, more buffers are allocated rather than making the simulation wait.
+ * <p>
+ * A trace is only told about the infections of a single world, by one thread at a time.
+ */
+public class InfectionTrace implements InfectionListener, Closeable {
+    /**
+     * The first int of a trace file ("ZTRC")
+     */
+    static final int MAGIC = 0x5A545243;
+    /**
+     * The version of the trace format
+     */
+    static final byte VERSION = 1;
+    /**
+     * The size of each buffer handed to the writer
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The most bytes a record can take (five numbers of at most five bytes each)
+     */
+    private static final int MAX_RECORD_BYTES = 25;
+    /**
+     * How long the writer sleeps when there is nothing to write (unless it is woken up first)
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final FileChannel channel;
+    /**
+     * The buffers waiting to be written, in order
+     */
+    private final Queue<ByteBuffer> fullBuffers = new ConcurrentLinkedQueue<>();
+    /**
+     * The buffers that have been written and can be filled again
+     */
+    private final Queue<ByteBuffer> emptyBuffers = new ConcurrentLinkedQueue<>();
+    private final Thread writer;
+    /**
+     * Whether the last buffer has been handed to the writer
+     */
+    private volatile boolean closed;
+    /**
+     * The first error the writer hit (which is thrown when the trace is closed)
+     */
+    private volatile IOException failure;
+
+    /**
+     * The buffer the infections are being encoded into
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private int lastZombie;
+    private int lastStep;
+    private long infections;
+
+    /**
+     * Start a trace (replacing the file if it already exists)
+     *
+     * @param file the file to write the trace to
+     * @throws IOException if the file could not be created
+     */
+    public InfectionTrace(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).put(VERSION);
+
+        writer = new Thread(this::write, "zombie-trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void infected(int zombie, int step, int x, int y, int victims) {
+        if (buffer.remaining() < MAX_RECORD_BYTES) {
+            handOff();
+        }
+
+        int zombieChange = zombie - lastZombie;
+        putVarint(buffer, zigZag(zombieChange) + 1);
+        putVarint(buffer, zombieChange == 0 ? zigZag(step - lastStep) : step);
+        putVarint(buffer, x);
+        putVarint(buffer, y);
+        putVarint(buffer, victims);
+        lastZombie = zombie;
+        lastStep = step;
+        infections++;
+    }
+
+    /**
+     * @return the number of infections recorded so far
+     */
+    public long getInfections() {
+        return infections;
+    }
+
+    /**
+     * End the trace with the final score and number of zombies of the world, and close it
+     *
+     * @param world the world once every zombie has finished moving
+     * @throws IOException if the trace could not be written
+     */
+    public void finish(World world) throws IOException {
+        if (closed) {
+            return;
+        }
+        if (buffer.remaining() < MAX_RECORD_BYTES) {
+            handOff();
+        }
+        putVarint(buffer, 0);
+        putVarint(buffer, world.getScore());
+        putVarint(buffer, world.getFinishedZombies().size() + world.getActiveZombies().size());
+        close();
+    }
+
+    /**
+     * Write out the infections recorded so far and close the trace (without an end record, unless it was
+     * {@link #finish(World) finished}), waiting for the writer to catch up
+     *
+     * @throws IOException if the trace could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        handOff();
+        closed = true;
+        LockSupport.unpark(writer);
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Hand the current buffer to the writer and carry on with an empty one
+     */
+    private void handOff() {
+        fullBuffers.offer(buffer);
+        LockSupport.unpark(writer);
+        buffer = emptyBuffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Write the full buffers to the file until the trace is closed and every buffer has been written
+     */
+    private void write() {
+        while (true) {
+            ByteBuffer next = fullBuffers.poll();
+            if (next == null) {
+                // the last buffer is queued before the trace is marked closed, so nothing can be missed
+                if (closed && fullBuffers.isEmpty()) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_NANOS);
+                continue;
+            }
+
+            next.flip();
+            try {
+                while (next.hasRemaining() && failure == null) {
+                    channel.write(next);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            next.clear();
+            emptyBuffers.offer(next);
+        }
+    }
+
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
@@ -0,0 +1,124 @@
+package com.zombie.service;
+
+import com.zombie.data.MovementProgram;
+import com.zombie.data.World;
+import com.zombie.data.ZombieQueue;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Rebuilds the final state of a world from an {@link InfectionTrace}, checking every infection in the trace against
+ * the world as it goes.
+ * <p>
+ * Each infection must come after the one before it (by zombie, then step), must be by a zombie that had already been
+ * bitten, must be at the cell the zombie's movements take it to at that step, and must bite exactly the creatures
+ * left in that cell. The score and number of zombies the trace ends with must match the rebuilt world.
+ */
+public final class InfectionTraceReplay {
+    private InfectionTraceReplay() {
+    }
+
+    /**
+     * Replay a trace on a world, leaving the world as it was when the trace was finished
+     *
+     * @param world the world as it was set up (or resumed), before any of the traced zombies moved
+     * @param trace the trace file
+     * @return the number of infections replayed
+     * @throws IOException           if the trace could not be read, is not a trace or ends early
+     * @throws IllegalStateException if the trace does not match the world
+     */
+    public static long replay(World world, Path trace) throws IOException {
+        MovementProgram program = world.getMovementProgram();
+        // nothing leaves the active queue until the end, so it holds the starting position of every zombie in order
+        ZombieQueue active = world.getActiveZombies();
+        int firstZombie = world.getFinishedZombies().size();
+        long infections = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(trace)))) {
+            if (in.readInt() != InfectionTrace.MAGIC) {
+                throw new IOException("The file is not an infection trace: " + trace);
+            }
+            byte version = in.readByte();
+            if (version != InfectionTrace.VERSION) {
+                throw new IOException("The infection trace is version " + version + " but only version " +
+                        InfectionTrace.VERSION + " can be read: " + trace);
+            }
+
+            int zombie = 0;
+            int step = 0;
+            long last = -1;
+            int tag;
+            while ((tag = readVarint(in)) != 0) {
+                int zombieChange = InfectionTrace.unZigZag(tag - 1);
+                zombie += zombieChange;
+                int stepValue = readVarint(in);
+                step = zombieChange == 0 ? step + InfectionTrace.unZigZag(stepValue) : stepValue;
+                int x = readVarint(in);
+                int y = readVarint(in);
+                int victims = readVarint(in);
+                infections++;
+
+                String infection = "Infection " + infections + " (zombie " + zombie + ", step " + step + ")";
+                int index = zombie - firstZombie;
+                long order = ((long) zombie << 32) | step;
+                if (zombie < 0 || step < 0 || order <= last) {
+                    throw new IllegalStateException(infection + " is out of order");
+                } else if (index < 0 || index >= active.size()) {
+                    throw new IllegalStateException(infection + " is by a zombie that had not been bitten");
+                } else if (step >= program.length()) {
+                    throw new IllegalStateException(infection + " is after the zombie's last step");
+                }
+
+                int expectedX = program.xAt(active.getX(index), step);
+                int expectedY = program.yAt(active.getY(index), step);
+                if (x != expectedX || y != expectedY) {
+                    throw new IllegalStateException(infection + " is at (" + x + "," + y + ") but the zombie was at (" +
+                            expectedX + "," + expectedY + ")");
+                }
+                int bitten = world.infect(x, y, zombie, step);
+                if (bitten != victims) {
+                    throw new IllegalStateException(infection + " bit " + victims + " creatures but the cell had " +
+                            bitten);
+                }
+                last = order;
+            }
+
+            int score = readVarint(in);
+            int zombies = readVarint(in);
+            if (score != world.getScore()) {
+                throw new IllegalStateException("The trace ends with a score of " + score +
+                        " but its infections add up to " + world.getScore());
+            } else if (zombies != firstZombie + active.size()) {
+                throw new IllegalStateException("The trace ends with " + zombies + " zombies but its infections " +
+                        "make " + (firstZombie + active.size()));
+            }
+        } catch (EOFException e) {
+            throw new IOException("The infection trace ends without its end record: " + trace, e);
+        }
+
+        // every zombie finishes wherever its movements take it
+        ZombieQueue finished = world.getFinishedZombies();
+        for (int i = 0; i < active.size(); i++) {
+            finished.add(program.finalX(active.getX(i)), program.finalY(active.getY(i)));
+        }
+        active.clear();
+        return infections;
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("A number in the infection trace is too long");
+    }
+}
@@ -0,0 +1,42 @@
+package com.zombie.service;
+
+/**
+ * A problem found in the world set up details, along with where it was found
+ */
+public class LoadError {
+    /**
+     * The line the problem was found on (starting from 1)
+     */
+    private final int line;
+    /**
+     * The column (byte offset within the line, starting from 1) the problem was found at
+     */
+    private final int column;
+    /**
+     * A description of the problem
+     */
+    private final String message;
+
+    public LoadError(int line, int column, String message) {
+        this.line = line;
+        this.column = column;
+        this.message = message;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "line " + line + ", column " + column + ": " + message;
+    }
+}
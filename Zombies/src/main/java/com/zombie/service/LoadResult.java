@@ -0,0 +1,56 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of loading the world set up details: the world, or the errors that stopped it from being set up
+ */
+public class LoadResult {
+    /**
+     * The world that was set up (or null if the set up details were invalid)
+     */
+    private final World world;
+    /**
+     * The errors found in the set up details (empty if the world was set up)
+     */
+    private final List<LoadError> errors;
+
+    private LoadResult(World world, List<LoadError> errors) {
+        this.world = world;
+        this.errors = errors;
+    }
+
+    /**
+     * @param world the world that was set up
+     * @return the result of loading a valid world
+     */
+    public static LoadResult of(World world) {
+        return new LoadResult(world, Collections.emptyList());
+    }
+
+    /**
+     * @param errors the errors found in the set up details (in the order they appear in the input)
+     * @return the result of loading invalid set up details
+     */
+    public static LoadResult failed(List<LoadError> errors) {
+        return new LoadResult(null, Collections.unmodifiableList(errors));
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public List<LoadError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return true if the world was set up
+     */
+    public boolean isSuccess() {
+        return world != null;
+    }
+}
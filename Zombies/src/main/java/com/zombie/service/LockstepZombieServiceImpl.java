@@ -0,0 +1,196 @@
+package com.zombie.service;
+
+import com.zombie.data.CellIndex;
+import com.zombie.data.MovementProgram;
+import com.zombie.data.World;
+import com.zombie.data.ZombieQueue;
+
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * A zombie service that moves every zombie of a generation forward one step at a time, together, over primitive
+ * arrays of co-ordinates.
+ * <p>
+ * Rather than walking one zombie through all its movements before the next one starts, each step works out the cell
+ * of every zombie in a block of the generation with branch-free wrap arithmetic (simple loops over int arrays, which
+ * the JIT can unroll and vectorize), and then looks up all of those cells in one bulk call to the creature index. Once
+ * a block has finished, the cells it found creatures in are infected in the order the sequential service would have
+ * bitten them, before the next block moves, so the score and positions are exactly the same.
+ */
+public class LockstepZombieServiceImpl implements ZombieService {
+    /**
+     * The number of zombies moved together, which keeps the arrays of a block in the processor's cache for all the
+     * steps of the movements
+     */
+    private static final int BLOCK_SIZE = 1024;
+
+    private static LockstepZombieServiceImpl service = new LockstepZombieServiceImpl();
+
+    private LockstepZombieServiceImpl() {
+    }
+
+    /**
+     * Get the singleton instance of the lockstep zombie service
+     *
+     * @return the zombie service
+     */
+    public static LockstepZombieServiceImpl getService() {
+        return service;
+    }
+
+    /**
+     * Set up the world in exactly the same way as the sequential zombie service
+     *
+     * @param args either empty (if using the default resources file) or a file path to an external input file
+     * @return World object populated with creatures/zombies (or null if the set up instructions were invalid)
+     */
+    public World createWorld(String[] args) {
+        return ZombieServiceImpl.getService().createWorld(args);
+    }
+
+    /**
+     * Set up the world from details in the 4 line text format, in exactly the same way as the sequential zombie service
+     *
+     * @param input the stream to read the set up details from (it is not closed)
+     * @return World object populated with creatures/zombies (or null if the set up instructions were invalid)
+     */
+    public World createWorld(InputStream input) {
+        return ZombieServiceImpl.getService().createWorld(input);
+    }
+
+    /**
+     * Move every active zombie (one generation) around the world, a step at a time for all the zombies together. The
+     * creatures they bite become the next generation of active zombies.
+     *
+     * @param world the world in which the creatures and zombies co-exist
+     */
+    public void monitorZombie(World world) {
+        if (world.finishZombiesIfNoCreatures()) {
+            return;
+        }
+
+        ZombieQueue active = world.getActiveZombies();
+        int count = active.size();
+        int[] startXs = new int[count];
+        int[] startYs = new int[count];
+        for (int i = 0; i < count; i++) {
+            startXs[i] = active.getX(i);
+            startYs[i] = active.getY(i);
+        }
+        active.clear();
+
+        MovementProgram program = world.getMovementProgram();
+        Block block = new Block(Math.min(BLOCK_SIZE, count));
+        long steps = 0;
+        for (int first = 0; first < count && world.getCreatures().getCreatureCount() > 0; first += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, count - first);
+            block.move(world, startXs, startYs, first, length);
+            block.resolve(world, first);
+            steps += (long) length * program.length();
+        }
+        // the blocks after the last creature was bitten are never walked
+        world.getMetrics().addSteps(steps);
+
+        ZombieQueue finished = world.getFinishedZombies();
+        for (int i = 0; i < count; i++) {
+            finished.add(program.finalX(startXs[i]), program.finalY(startYs[i]));
+        }
+    }
+
+    /**
+     * The arrays a block of zombies is moved with (reused for every block of a generation)
+     */
+    private static class Block {
+        /**
+         * The starting positions of the zombies of the block
+         */
+        private final int[] startXs;
+        private final int[] startYs;
+        /**
+         * The positions of the zombies of the block after the current step
+         */
+        private final int[] xs;
+        private final int[] ys;
+        private final int[] found;
+        /**
+         * The earliest step at which a zombie of the block stepped into each cell that had creatures in it (later
+         * visits find the cell empty, so they are not kept)
+         */
+        private final CellClaims claims = new CellClaims();
+
+        Block(int capacity) {
+            startXs = new int[capacity];
+            startYs = new int[capacity];
+            xs = new int[capacity];
+            ys = new int[capacity];
+            found = new int[capacity];
+        }
+
+        /**
+         * Move a block of zombies through all the steps of their movements, noting the first time any of them steps
+         * into each cell that had creatures in it when the block started
+         */
+        void move(World world, int[] generationXs, int[] generationYs, int first, int length) {
+            MovementProgram program = world.getMovementProgram();
+            int[] xOffsets = program.getXOffsets();
+            int[] yOffsets = program.getYOffsets();
+            CellIndex creatures = world.getCreatures();
+            int size = Math.max(world.getSize(), 1);
+            System.arraycopy(generationXs, first, startXs, 0, length);
+            System.arraycopy(generationYs, first, startYs, 0, length);
+            claims.clear();
+
+            for (int step = 0; step < xOffsets.length; step++) {
+                int offsetX = xOffsets[step];
+                int offsetY = yOffsets[step];
+                for (int i = 0; i < length; i++) {
+                    xs[i] = wrap(startXs[i] + offsetX, size);
+                    ys[i] = wrap(startYs[i] + offsetY, size);
+                }
+
+                creatures.count(xs, ys, length, found);
+                for (int i = 0; i < length; i++) {
+                    if (found[i] > 0) {
+                        claims.claim(xs[i], ys[i], ((long) (first + i) << 32) | step);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Infect the cells the block stepped into in the order the zombies (and their steps) would have reached them
+         * one at a time. Only the first zombie to reach a cell finds creatures left to bite, which is the visit kept
+         * for it. Every zombie of the earlier blocks comes before every zombie of this one, so the next block sees the
+         * world exactly as the sequential service would.
+         */
+        void resolve(World world, int first) {
+            MovementProgram program = world.getMovementProgram();
+            // the visits are packed as (zombie << 32) | step, so sorting them puts them in the order they were made
+            // (the claims are cleared before the next block, so reordering them in place is safe)
+            long[] visits = claims.priorities();
+            int visitCount = claims.size();
+            Arrays.sort(visits, 0, visitCount);
+
+            // the zombies of this generation are numbered on from the ones that have already finished
+            int firstZombie = world.getFinishedZombies().size();
+            for (int i = 0; i < visitCount; i++) {
+                int zombie = (int) (visits[i] >>> 32);
+                int step = (int) visits[i];
+                world.infect(program.xAt(startXs[zombie - first], step), program.yAt(startYs[zombie - first], step),
+                        firstZombie + zombie, step);
+            }
+        }
+    }
+
+    /**
+     * Wrap a co-ordinate that is less than one world length past the far edge, without branching: subtract the size
+     * and add it back only if that made the co-ordinate negative (using the sign bit as a mask). If the sum of the start
+     * and the offset overflowed to a negative int (in a world larger than 2^30), subtracting the size overflows back
+     * to the right co-ordinate, which is never negative, so it is left as it is.
+     */
+    private static int wrap(int value, int size) {
+        int wrapped = value - size;
+        return wrapped + (size & (wrapped >> 31));
+    }
+}
@@ -0,0 +1,148 @@
+package com.zombie.service;
+
+import com.zombie.data.CellIndex;
+import com.zombie.data.MovementProgram;
+import com.zombie.data.World;
+import com.zombie.data.ZombieQueue;
+
+import java.io.InputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An implementation of the zombie service that moves a whole generation of zombies at once, spread across the cores
+ * of a fork/join pool.
+ * <p>
+ * Each call to {@link #monitorZombie(World)} moves every zombie that is currently active. The zombies only read the
+ * creature index while they move and claim the cells they find creatures in; the claims are then resolved in queue
+ * order so the score, and the order of the finished and newly created zombies, are exactly the same as when the
+ * zombies are moved one at a time by {@link ZombieServiceImpl}.
+ */
+public class ParallelZombieServiceImpl implements ZombieService {
+    /**
+     * The number of zombies below which a task moves its zombies itself rather than splitting the work further
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 64;
+
+    /**
+     * The single instance of the parallel zombie service (using the common fork/join pool)
+     */
+    private static ParallelZombieServiceImpl service = new ParallelZombieServiceImpl(ForkJoinPool.commonPool());
+
+    /**
+     * The pool the zombies are moved in
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * @param pool the fork/join pool to move the zombies in
+     */
+    public ParallelZombieServiceImpl(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Get the singleton instance of the parallel zombie service, which uses the common fork/join pool
+     *
+     * @return the singleton instance of the parallel zombie service
+     */
+    public static ParallelZombieServiceImpl getService() {
+        return service;
+    }
+
+    /**
+     * Set up the world in exactly the same way as the sequential zombie service
+     *
+     * @param args either empty (if using the default resources file) or a file path to an external input file
+     * @return World object populated with creatures/zombies (or null if the set up instructions were invalid)
+     */
+    public World createWorld(String[] args) {
+        return ZombieServiceImpl.getService().createWorld(args);
+    }
+
+    /**
+     * Set up the world from details in the 4 line text format, in exactly the same way as the sequential zombie service
+     *
+     * @param input the stream to read the set up details from (it is not closed)
+     * @return World object populated with creatures/zombies (or null if the set up instructions were invalid)
+     */
+    public World createWorld(InputStream input) {
+        return ZombieServiceImpl.getService().createWorld(input);
+    }
+
+    /**
+     * Move every active zombie (one generation) around the world in parallel. The creatures they bite become the
+     * next generation of active zombies.
+     *
+     * @param world the world in which the creatures and zombies co-exist
+     */
+    public void monitorZombie(World world) {
+        if (world.finishZombiesIfNoCreatures()) {
+            return;
+        }
+
+        ZombieQueue generation = new ZombieQueue();
+        generation.addAll(world.getActiveZombies());
+        world.getActiveZombies().clear();
+
+        MovementProgram program = world.getMovementProgram();
+        InfectionClaims claims = new InfectionClaims();
+        pool.invoke(new MoveZombies(generation, 0, generation.size(), program, world.getCreatures(), claims));
+        claims.resolve(world);
+        world.getMetrics().addSteps((long) generation.size() * program.length());
+
+        world.getFinishedZombies().addAll(generation);
+    }
+
+    /**
+     * Move a range of the zombies in a generation, claiming the occupied cells they pass through
+     */
+    private static class MoveZombies extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ZombieQueue generation;
+        private final int from;
+        private final int to;
+        private final MovementProgram program;
+        private final CellIndex creatures;
+        private final InfectionClaims claims;
+
+        MoveZombies(ZombieQueue generation, int from, int to, MovementProgram program, CellIndex creatures,
+                    InfectionClaims claims) {
+            this.generation = generation;
+            this.from = from;
+            this.to = to;
+            this.program = program;
+            this.creatures = creatures;
+            this.claims = claims;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int zombie = from; zombie < to; zombie++) {
+                    move(zombie);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new MoveZombies(generation, from, middle, program, creatures, claims),
+                        new MoveZombies(generation, middle, to, program, creatures, claims));
+            }
+        }
+
+        private void move(int index) {
+            int startX = generation.getX(index);
+            int startY = generation.getY(index);
+
+            for (int step = 0; step < program.length(); step++) {
+                int x = program.xAt(startX, step);
+                int y = program.yAt(startY, step);
+                if (creatures.count(x, y) > 0) {
+                    claims.claim(x, y, index, step);
+                }
+            }
+
+            generation.set(index, program.finalX(startX), program.finalY(startY));
+        }
+    }
+}
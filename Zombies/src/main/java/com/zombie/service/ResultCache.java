@@ -0,0 +1,356 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import com.zombie.data.ZombieQueue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A cache of simulation results keyed by a hash of the world they came from, so resubmitting the same world does not
+ * simulate it again.
+ * <p>
+ * Results are kept in memory (up to a limit on the memory they use), and optionally in a directory on disk (up to a
+ * limit on the space they use). Both tiers evict the least recently used results first. Results are keyed either by a
+ * hash of the raw input ({@link #key(byte[])}), which can be checked before the input is even parsed, or by a hash of
+ * the world it sets up ({@link #key(World)}), which matches inputs that only differ in their layout (spacing, line
+ * endings, the order of the creatures and so on).
+ */
+public class ResultCache {
+    /**
+     * The extension of the result files in the disk tier
+     */
+    private static final String RESULT_EXTENSION = ".result";
+    /**
+     * The approximate memory (in bytes) used by a cached result as well as its positions
+     */
+    private static final long ENTRY_OVERHEAD = 128;
+
+    /**
+     * The largest amount of memory (in bytes) the cached results may use
+     */
+    private final long maxMemoryBytes;
+    /**
+     * The results held in memory, least recently used first
+     */
+    private final LinkedHashMap<String, WorldResult> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    /**
+     * The directory of the disk tier (or null if there is no disk tier)
+     */
+    private final Path directory;
+    /**
+     * The largest amount of space (in bytes) the result files may use
+     */
+    private final long maxDiskBytes;
+    /**
+     * The size of each result file in the disk tier, least recently used first
+     */
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+    /**
+     * The keys of the result files being written (outside the lock, so other threads are not held up by the disk)
+     */
+    private final Set<String> writing = new HashSet<>();
+
+    /**
+     * Create a cache that only keeps results in memory
+     *
+     * @param maxMemoryBytes the largest amount of memory (in bytes) the cached results may use
+     */
+    public ResultCache(long maxMemoryBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = null;
+        this.maxDiskBytes = 0;
+    }
+
+    /**
+     * Create a cache that keeps results in memory and in a directory on disk (picking up any results already there)
+     *
+     * @param maxMemoryBytes the largest amount of memory (in bytes) the cached results may use
+     * @param directory      the directory to keep the result files in
+     * @param maxDiskBytes   the largest amount of space (in bytes) the result files may use
+     * @throws IOException if the directory could not be created or read
+     */
+    public ResultCache(long maxMemoryBytes, Path directory, long maxDiskBytes) throws IOException {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = Files.createDirectories(directory);
+        this.maxDiskBytes = maxDiskBytes;
+
+        // pick up the existing results, oldest first, so they are evicted in the order they were last used
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + RESULT_EXTENSION)) {
+            stream.forEach(files::add);
+        }
+        files.sort((a, b) -> lastModified(a).compareTo(lastModified(b)));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            disk.put(name.substring(0, name.length() - RESULT_EXTENSION.length()), size);
+            diskBytes += size;
+        }
+        evictFromDisk();
+    }
+
+    /**
+     * Look up a result, moving it into memory if it was only on disk
+     *
+     * @param key    the key of the result
+     * @param source the name to give the input in the result that is returned
+     * @return the result, or null if it is not in the cache
+     */
+    public synchronized WorldResult get(String key, String source) {
+        WorldResult result = memory.get(key);
+        if (result == null && disk.get(key) != null) {
+            result = readResult(key);
+            if (result != null) {
+                putInMemory(key, result);
+            }
+        }
+        return result == null ? null : result.withSource(source);
+    }
+
+    /**
+     * Add the result of a world that was simulated successfully to the cache
+     *
+     * @param key    the key of the result
+     * @param result the result of the world
+     */
+    public void put(String key, WorldResult result) {
+        if (!result.isSuccess()) {
+            return;
+        }
+
+        boolean write;
+        synchronized (this) {
+            putInMemory(key, result);
+            write = directory != null && !disk.containsKey(key) && writing.add(key);
+        }
+        if (write) {
+            long size = writeResult(key, result);
+            synchronized (this) {
+                writing.remove(key);
+                if (size >= 0) {
+                    disk.put(key, size);
+                    diskBytes += size;
+                    evictFromDisk();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of results held in memory
+     */
+    public synchronized int getMemoryEntries() {
+        return memory.size();
+    }
+
+    /**
+     * @return the number of results held on disk
+     */
+    public synchronized int getDiskEntries() {
+        return disk.size();
+    }
+
+    /**
+     * Create the key of the raw input of a world
+     *
+     * @param input the set up details exactly as they were given
+     * @return the key (a hex encoded SHA-256 hash)
+     */
+    public static String key(byte[] input) {
+        MessageDigest digest = sha256();
+        digest.update((byte) 'R');
+        digest.update(input);
+        return hex(digest.digest());
+    }
+
+    /**
+     * Create the key of the raw input of a world as it is read from a stream (the same key as {@link #key(byte[])} gives
+     * for the whole input, without holding the input in memory)
+     *
+     * @param input the set up details exactly as they were given (the stream is not closed)
+     * @return the key (a hex encoded SHA-256 hash)
+     * @throws IOException if the input could not be read
+     */
+    public static String key(InputStream input) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update((byte) 'R');
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) >= 0) {
+            digest.update(buffer, 0, read);
+        }
+        return hex(digest.digest());
+    }
+
+    /**
+     * Create the key of a world that has been set up but not simulated yet, from its size, zombies, creatures (in
+     * order of their cells) and movements
+     *
+     * @param world the world before any zombie has moved
+     * @return the key (a hex encoded SHA-256 hash)
+     */
+    public static String key(World world) {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        buffer.put((byte) 'W').putInt(world.getSize());
+
+        ZombieQueue zombies = world.getActiveZombies();
+        buffer.putInt(zombies.size());
+        for (int i = 0; i < zombies.size(); i++) {
+            buffer = flushIfFull(digest, buffer, 8);
+            buffer.putInt(zombies.getX(i)).putInt(zombies.getY(i));
+        }
+
+        long[] cells = new long[world.getCreatures().size()];
+        int[] index = new int[1];
+        world.getCreatures().forEach((x, y, count) -> cells[index[0]++] = ((long) x << 32) | y);
+        Arrays.sort(cells);
+        buffer = flushIfFull(digest, buffer, 4);
+        buffer.putInt(cells.length);
+        for (long cell : cells) {
+            buffer = flushIfFull(digest, buffer, 12);
+            buffer.putLong(cell).putInt(world.getCreatures().count((int) (cell >>> 32), (int) cell));
+        }
+
+        buffer.flip();
+        digest.update(buffer);
+        String movements = world.getZombieMovements() == null ? "" : world.getZombieMovements();
+        digest.update(movements.getBytes(StandardCharsets.UTF_8));
+        return hex(digest.digest());
+    }
+
+    private void putInMemory(String key, WorldResult result) {
+        long bytes = ENTRY_OVERHEAD + result.getPositions().length() * 2L;
+        if (bytes > maxMemoryBytes) {
+            return;
+        }
+
+        WorldResult previous = memory.put(key, result);
+        if (previous != null) {
+            memoryBytes -= ENTRY_OVERHEAD + previous.getPositions().length() * 2L;
+        }
+        memoryBytes += bytes;
+
+        Iterator<WorldResult> eldest = memory.values().iterator();
+        while (memoryBytes > maxMemoryBytes) {
+            WorldResult evicted = eldest.next();
+            memoryBytes -= ENTRY_OVERHEAD + evicted.getPositions().length() * 2L;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Read a result file from the disk tier, marking it as recently used
+     *
+     * @return the result, or null if it could not be read (in which case it is dropped from the disk tier)
+     */
+    private WorldResult readResult(String key) {
+        Path file = directory.resolve(key + RESULT_EXTENSION);
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+            int score = bytes.getInt();
+            String positions = new String(bytes.array(), bytes.position(), bytes.remaining(), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return WorldResult.of(key, score, positions);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            diskBytes -= disk.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Write a result file for the disk tier (replacing it in a single step, so a reader never sees half a result). This
+     * is called without holding the lock, so it only touches the file.
+     *
+     * @return the size of the file, or -1 if it was not written
+     */
+    private long writeResult(String key, WorldResult result) {
+        byte[] positions = result.getPositions().getBytes(StandardCharsets.UTF_8);
+        long size = Integer.BYTES + positions.length;
+        if (size > maxDiskBytes) {
+            return -1;
+        }
+
+        Path file = directory.resolve(key + RESULT_EXTENSION);
+        Path temporary = directory.resolve(key + RESULT_EXTENSION + ".tmp");
+        try {
+            ByteBuffer bytes = ByteBuffer.allocate((int) size);
+            bytes.putInt(result.getScore()).put(positions);
+            Files.write(temporary, bytes.array());
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return -1;
+        }
+        return size;
+    }
+
+    private void evictFromDisk() {
+        Iterator<Map.Entry<String, Long>> eldest = disk.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> evicted = eldest.next();
+            try {
+                Files.deleteIfExists(directory.resolve(evicted.getKey() + RESULT_EXTENSION));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            diskBytes -= evicted.getValue();
+            eldest.remove();
+        }
+    }
+
+    private static ByteBuffer flushIfFull(MessageDigest digest, ByteBuffer buffer, int needed) {
+        if (buffer.remaining() < needed) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+
+    private static String hex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,436 @@
+package com.zombie.service;
+
+import com.zombie.data.CreatureListener;
+import com.zombie.data.MovementProgram;
+import com.zombie.data.World;
+import com.zombie.data.ZombieQueue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits a world into horizontal shards of rows, each owned by a {@link ShardWorker} process on the same host, and
+ * moves the zombies of the world through the shards a generation at a time.
+ * <p>
+ * The coordinator starts the workers, listens for them on a loopback socket and sends each one the creatures in its
+ * rows. For each generation, it sends every zombie's walk to the shard of its first step. A worker carries the walks on
+ * until they step out of its rows, claiming the occupied cells they pass through, and sends back the walks that left,
+ * which the coordinator forwards to the shards they stepped into (the workers never talk to each other, so every
+ * walk that crosses a shard boundary waits for the next round of the coordinator). Once every walk has finished, each
+ * worker removes the creatures from its claimed cells and sends back its claims in priority order, and the coordinator
+ * merges them and infects the same cells of the world, so the new zombies are queued in exactly the order the
+ * sequential service would have queued them.
+ * <p>
+ * Creatures added to the world while the workers are running (see {@link World#addCreatures}) are queued for the
+ * workers that own their rows and sent to them before the next generation moves, so the workers carry on with the
+ * creatures they already hold rather than being started again.
+ * <p>
+ * The coordinator still holds the whole world, creatures included (the score, the zombie queues, checkpoints and
+ * queries all read it - a checkpoint streams the creatures from the world's frozen index in the background, and a
+ * query can ask for a cell from any thread, neither of which the workers could answer without holding up the
+ * generation they are walking). So sharding spreads the walking across processes but does not lift the heap limit of
+ * the coordinator's JVM - a world has to fit in it as well as in the workers between them.
+ */
+public class ShardCoordinator implements Closeable {
+    /**
+     * How long to wait for the workers to connect
+     */
+    private static final int CONNECT_TIMEOUT_MILLIS = 30000;
+    /**
+     * How long to wait for a worker to exit once it has been told to quit
+     */
+    private static final long EXIT_TIMEOUT_SECONDS = 5;
+
+    private final World world;
+    private final MovementProgram program;
+    /**
+     * The number of rows in each shard (the last shard also takes any rows left over)
+     */
+    private final int rowsPerShard;
+    private final Shard[] shards;
+    /**
+     * Queues the creatures added to the world for the workers that own their rows
+     */
+    private final CreatureListener listener = this::added;
+
+    /**
+     * Start the worker processes and hand them the creatures of the world
+     *
+     * @param world      the world to simulate, with its movements set
+     * @param shardCount the number of shards (and worker processes) to split the world into - there are never more
+     *                   shards than rows
+     * @param jvmOptions the options to start the worker JVMs with (for example their heap size)
+     * @throws IOException if the workers could not be started or did not connect
+     */
+    public ShardCoordinator(World world, int shardCount, List<String> jvmOptions) throws IOException {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("The number of shards must be at least 1 but was " + shardCount);
+        }
+        this.world = world;
+        this.program = world.getMovementProgram();
+        int count = Math.max(1, Math.min(shardCount, world.getSize()));
+        this.rowsPerShard = Math.max(1, world.getSize() / count);
+        this.shards = new Shard[count];
+
+        List<Process> processes = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, count, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            for (int i = 0; i < count; i++) {
+                processes.add(startWorker(server.getLocalPort(), i, jvmOptions));
+            }
+            for (int i = 0; i < count; i++) {
+                connect(server.accept(), processes);
+            }
+            sendShards();
+            world.setCreatureListener(listener);
+        } catch (IOException | RuntimeException e) {
+            close();
+            for (Process process : processes) {
+                process.destroyForcibly();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Move every active zombie (one generation) through the shards. The creatures they bite become the next
+     * generation of active zombies.
+     *
+     * @throws IOException if a worker could not be reached
+     */
+    public void monitorZombie() throws IOException {
+        for (Shard shard : shards) {
+            shard.sendCells();
+        }
+
+        ZombieQueue active = world.getActiveZombies();
+        int count = active.size();
+        int[] startXs = new int[count];
+        int[] startYs = new int[count];
+        for (int i = 0; i < count; i++) {
+            startXs[i] = active.getX(i);
+            startYs[i] = active.getY(i);
+        }
+        active.clear();
+
+        if (program.length() > 0) {
+            for (int zombie = 0; zombie < count; zombie++) {
+                handOff(zombie, 0, startXs, startYs);
+            }
+            walk(startXs, startYs);
+            resolve(startXs, startYs);
+        }
+        world.getMetrics().addSteps((long) count * program.length());
+
+        ZombieQueue finished = world.getFinishedZombies();
+        for (int i = 0; i < count; i++) {
+            finished.add(program.finalX(startXs[i]), program.finalY(startYs[i]));
+        }
+    }
+
+    /**
+     * @return the number of shards the world was split into
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Tell the workers to quit and wait for them to exit
+     */
+    @Override
+    public void close() {
+        if (world.getCreatureListener() == listener) {
+            world.setCreatureListener(null);
+        }
+        for (Shard shard : shards) {
+            if (shard != null) {
+                shard.close();
+            }
+        }
+    }
+
+    private static Process startWorker(int port, int shard, List<String> jvmOptions) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add(Integer.toString(port));
+        command.add(Integer.toString(shard));
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    /**
+     * Check a worker that has just connected and take on its shard
+     */
+    private void connect(Socket socket, List<Process> processes) throws IOException {
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream(), ShardWorker.BUFFER_SIZE));
+            if (in.readInt() != ShardWorker.MAGIC) {
+                throw new IOException("Something other than a shard worker connected from " +
+                        socket.getRemoteSocketAddress());
+            }
+            int index = in.readInt();
+            if (index < 0 || index >= shards.length || shards[index] != null) {
+                throw new IOException("A worker connected for an unexpected shard: " + index);
+            }
+            shards[index] = new Shard(socket, in, processes.get(index), index * rowsPerShard,
+                    index == shards.length - 1 ? world.getSize() : (index + 1) * rowsPerShard);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Send each worker the rows of its shard, the movements and the creatures in its rows
+     */
+    private void sendShards() throws IOException {
+        for (Shard shard : shards) {
+            DataOutputStream out = shard.out;
+            out.writeByte(ShardWorker.INIT);
+            out.writeInt(world.getSize());
+            out.writeInt(shard.firstRow);
+            out.writeInt(shard.lastRow);
+            out.writeInt(program.length());
+            for (int offset : program.getXOffsets()) {
+                out.writeInt(offset);
+            }
+            for (int offset : program.getYOffsets()) {
+                out.writeInt(offset);
+            }
+        }
+
+        try {
+            world.getCreatures().forEach((x, y, count) -> {
+                DataOutputStream out = shards[shardOf(y)].out;
+                try {
+                    out.writeByte(ShardWorker.CELL);
+                    out.writeInt(x);
+                    out.writeInt(y);
+                    out.writeInt(count);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        for (Shard shard : shards) {
+            shard.out.flush();
+        }
+    }
+
+    /**
+     * Queue creatures that have been added to the world for the shards that own their rows
+     */
+    private void added(int[] positions, int length) {
+        for (int i = 0; i < length; i += 2) {
+            shards[shardOf(positions[i + 1])].addCell(positions[i], positions[i + 1]);
+        }
+    }
+
+    /**
+     * Send the waiting walks to their shards, and forward the walks that leave a shard, until every walk has finished
+     */
+    private void walk(int[] startXs, int[] startYs) throws IOException {
+        boolean[] sent = new boolean[shards.length];
+        boolean pending = true;
+        while (pending) {
+            // every batch is sent before any reply is read, so the workers all walk at the same time
+            for (int i = 0; i < shards.length; i++) {
+                sent[i] = shards[i].sendWalks();
+            }
+
+            pending = false;
+            for (int i = 0; i < shards.length; i++) {
+                if (sent[i]) {
+                    DataInputStream in = shards[i].in;
+                    int handedOff = in.readInt();
+                    for (int walk = 0; walk < handedOff; walk++) {
+                        handOff(in.readInt(), in.readInt(), startXs, startYs);
+                    }
+                    pending |= handedOff > 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue the rest of a zombie's walk for the shard that owns the row of its next step
+     */
+    private void handOff(int zombie, int step, int[] startXs, int[] startYs) {
+        shards[shardOf(program.yAt(startYs[zombie], step))].addWalk(zombie, step, startXs[zombie], startYs[zombie]);
+    }
+
+    private int shardOf(int y) {
+        return Math.min(y / rowsPerShard, shards.length - 1);
+    }
+
+    /**
+     * Have the workers clear their claimed cells and infect the same cells in the coordinator's world, merging the
+     * claims of every shard in the order the zombies (and their steps) would have reached them one at a time
+     */
+    private void resolve(int[] startXs, int[] startYs) throws IOException {
+        for (Shard shard : shards) {
+            shard.out.writeByte(ShardWorker.RESOLVE);
+            shard.out.flush();
+        }
+
+        long[][] visits = new long[shards.length][];
+        for (int i = 0; i < shards.length; i++) {
+            DataInputStream in = shards[i].in;
+            visits[i] = new long[in.readInt()];
+            for (int claim = 0; claim < visits[i].length; claim++) {
+                visits[i][claim] = in.readLong();
+            }
+        }
+
+        int firstZombie = world.getFinishedZombies().size();
+        int[] next = new int[shards.length];
+        while (true) {
+            int earliest = -1;
+            for (int i = 0; i < shards.length; i++) {
+                if (next[i] < visits[i].length &&
+                        (earliest < 0 || visits[i][next[i]] < visits[earliest][next[earliest]])) {
+                    earliest = i;
+                }
+            }
+            if (earliest < 0) {
+                return;
+            }
+
+            long visit = visits[earliest][next[earliest]++];
+            int zombie = (int) (visit >>> 32);
+            int step = (int) visit;
+            world.infect(program.xAt(startXs[zombie], step), program.yAt(startYs[zombie], step),
+                    firstZombie + zombie, step);
+        }
+    }
+
+    /**
+     * The connection to the worker that owns a shard, and the walks waiting to be sent to it
+     */
+    private static class Shard {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final Process process;
+        private final int firstRow;
+        private final int lastRow;
+        /**
+         * The walks waiting to be sent, as (zombie, step, startX, startY)
+         */
+        private int[] walks = new int[256];
+        private int walkCount;
+        /**
+         * The creatures waiting to be sent, as (x, y)
+         */
+        private int[] cells = new int[0];
+        private int cellCount;
+
+        Shard(Socket socket, DataInputStream in, Process process, int firstRow, int lastRow) throws IOException {
+            this.socket = socket;
+            this.in = in;
+            this.out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream(), ShardWorker.BUFFER_SIZE));
+            this.process = process;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+        }
+
+        void addWalk(int zombie, int step, int startX, int startY) {
+            int next = walkCount * 4;
+            if (next == walks.length) {
+                walks = Arrays.copyOf(walks, next * 2);
+            }
+            walks[next] = zombie;
+            walks[next + 1] = step;
+            walks[next + 2] = startX;
+            walks[next + 3] = startY;
+            walkCount++;
+        }
+
+        void addCell(int x, int y) {
+            int next = cellCount * 2;
+            if (next == cells.length) {
+                cells = Arrays.copyOf(cells, Math.max(64, next * 2));
+            }
+            cells[next] = x;
+            cells[next + 1] = y;
+            cellCount++;
+        }
+
+        /**
+         * Send the waiting creatures to the worker (if there are any)
+         */
+        void sendCells() throws IOException {
+            if (cellCount == 0) {
+                return;
+            }
+            for (int i = 0; i < cellCount * 2; i += 2) {
+                out.writeByte(ShardWorker.CELL);
+                out.writeInt(cells[i]);
+                out.writeInt(cells[i + 1]);
+                out.writeInt(1);
+            }
+            out.flush();
+            cellCount = 0;
+        }
+
+        /**
+         * Send the waiting walks to the worker (if there are any)
+         *
+         * @return whether any walks were sent
+         */
+        boolean sendWalks() throws IOException {
+            if (walkCount == 0) {
+                return false;
+            }
+            out.writeByte(ShardWorker.WALK);
+            out.writeInt(walkCount);
+            for (int i = 0; i < walkCount * 4; i++) {
+                out.writeInt(walks[i]);
+            }
+            out.flush();
+            walkCount = 0;
+            return true;
+        }
+
+        void close() {
+            try {
+                out.writeByte(ShardWorker.QUIT);
+                out.flush();
+                socket.close();
+            } catch (IOException e) {
+                // the worker has already gone
+            }
+            try {
+                if (!process.waitFor(EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
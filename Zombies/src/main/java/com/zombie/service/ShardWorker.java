@@ -0,0 +1,222 @@
+package com.zombie.service;
+
+import com.zombie.data.CellIndex;
+import com.zombie.data.MovementProgram;
+import com.zombie.data.SparseCellIndex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * A worker process of the sharded zombie service, which owns the creatures in one shard (a band of rows) of a world
+ * and moves zombies through it.
+ * <p>
+ * The worker connects back to the coordinator that started it over a loopback socket, and then answers the
+ * coordinator's messages until it is told to quit (or the coordinator goes away). Every message is a type byte
+ * followed by big-endian ints and longs:
+ * <ul>
+ * <li>{@code INIT size firstRow lastRow length xOffsets... yOffsets...} - the rows of the shard and the compiled
+ * movements of the zombies (always the first message)</li>
+ * <li>{@code CELL x y count} - creatures in a cell of the shard (sent once the shard is set up, and between generations
+ * for creatures added to the world since)</li>
+ * <li>{@code WALK n (zombie step startX startY)...} - walks to carry on through the shard from a step, which is
+ * answered with {@code n (zombie step)...} for the walks that stepped out of the shard (and where they left it)</li>
+ * <li>{@code RESOLVE} - remove the creatures from the claimed cells, which is answered with {@code n (priority)...}
+ * in priority order</li>
+ * <li>{@code QUIT}</li>
+ * </ul>
+ */
+public class ShardWorker {
+    /**
+     * The first int a worker sends when it connects, so the coordinator knows it is talking to a worker
+     */
+    static final int MAGIC = 0x5A4F4D42;
+    static final int INIT = 'I';
+    static final int CELL = 'C';
+    static final int WALK = 'W';
+    static final int RESOLVE = 'R';
+    static final int QUIT = 'Q';
+    /**
+     * The size of the socket buffers
+     */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The first row of the shard
+     */
+    private final int firstRow;
+    /**
+     * The row after the last row of the shard
+     */
+    private final int lastRow;
+    private final MovementProgram program;
+    /**
+     * The creatures in the shard
+     */
+    private final CellIndex creatures = new SparseCellIndex();
+    /**
+     * The cells claimed by the walks of the current generation
+     */
+    private final CellClaims claims = new CellClaims();
+    /**
+     * The starting position of each zombie of the current generation that has walked through the shard
+     */
+    private int[] startXs = new int[64];
+    private int[] startYs = new int[64];
+    /**
+     * The walks of the current message that left the shard, each packed as (zombie << 32) | step
+     */
+    private long[] handOffs = new long[64];
+
+    /**
+     * Set up a shard from its INIT message
+     *
+     * @param in the stream from the coordinator, just after the INIT type byte
+     * @throws IOException if the message could not be read
+     */
+    ShardWorker(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        firstRow = in.readInt();
+        lastRow = in.readInt();
+        int length = in.readInt();
+        int[] xOffsets = readInts(in, length);
+        int[] yOffsets = readInts(in, length);
+        program = MovementProgram.of(size, xOffsets, yOffsets, 0);
+    }
+
+    /**
+     * Connect to the coordinator and work on a shard until told to quit
+     *
+     * @param args the port the coordinator is listening on (on the loopback address) and the number of the shard
+     */
+    public static void main(String[] args) {
+        int port = Integer.parseInt(args[0]);
+        int shard = Integer.parseInt(args[1]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(shard);
+            out.flush();
+
+            if (in.read() != INIT) {
+                throw new IOException("The coordinator did not start with the details of the shard");
+            }
+            new ShardWorker(in).serve(in, out);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Answer the coordinator's messages until told to quit
+     *
+     * @param in  the stream from the coordinator
+     * @param out the stream to the coordinator
+     * @throws IOException if a message could not be read or answered
+     */
+    void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            int type = in.read();
+            switch (type) {
+                case CELL:
+                    creatures.add(in.readInt(), in.readInt(), in.readInt());
+                    break;
+                case WALK:
+                    walk(in, out);
+                    break;
+                case RESOLVE:
+                    resolve(out);
+                    break;
+                case QUIT:
+                case -1:
+                    return;
+                default:
+                    throw new IOException("Unknown message type: " + type);
+            }
+        }
+    }
+
+    /**
+     * Carry on a batch of walks through the shard, claiming the occupied cells, and send back the ones that left it
+     */
+    private void walk(DataInputStream in, DataOutputStream out) throws IOException {
+        int count = in.readInt();
+        int handedOff = 0;
+        for (int i = 0; i < count; i++) {
+            int zombie = in.readInt();
+            int fromStep = in.readInt();
+            int startX = in.readInt();
+            int startY = in.readInt();
+            remember(zombie, startX, startY);
+
+            for (int step = fromStep; step < program.length(); step++) {
+                int y = program.yAt(startY, step);
+                if (y < firstRow || y >= lastRow) {
+                    if (handedOff == handOffs.length) {
+                        handOffs = Arrays.copyOf(handOffs, handedOff * 2);
+                    }
+                    handOffs[handedOff++] = ((long) zombie << 32) | step;
+                    break;
+                }
+                int x = program.xAt(startX, step);
+                if (creatures.count(x, y) > 0) {
+                    claims.claim(x, y, ((long) zombie << 32) | step);
+                }
+            }
+        }
+
+        out.writeInt(handedOff);
+        for (int i = 0; i < handedOff; i++) {
+            out.writeInt((int) (handOffs[i] >>> 32));
+            out.writeInt((int) handOffs[i]);
+        }
+        out.flush();
+    }
+
+    /**
+     * Remove the creatures from the claimed cells and send back the claims, in the order the zombies (and their steps)
+     * would have reached them one at a time
+     */
+    private void resolve(DataOutputStream out) throws IOException {
+        long[] visits = Arrays.copyOf(claims.priorities(), claims.size());
+        Arrays.sort(visits);
+        claims.clear();
+
+        out.writeInt(visits.length);
+        for (long visit : visits) {
+            int zombie = (int) (visit >>> 32);
+            int step = (int) visit;
+            out.writeLong(visit);
+            creatures.remove(program.xAt(startXs[zombie], step), program.yAt(startYs[zombie], step));
+        }
+        out.flush();
+    }
+
+    private void remember(int zombie, int startX, int startY) {
+        if (zombie >= startXs.length) {
+            int capacity = Math.max(zombie + 1, startXs.length * 2);
+            startXs = Arrays.copyOf(startXs, capacity);
+            startYs = Arrays.copyOf(startYs, capacity);
+        }
+        startXs[zombie] = startX;
+        startYs[zombie] = startY;
+    }
+
+    private static int[] readInts(DataInputStream in, int length) throws IOException {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,169 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A zombie service that splits each world between several worker processes on the same host (see
+ * {@link ShardCoordinator}), giving the same score and positions as the sequential service.
+ * <p>
+ * The workers for a world are started when its first generation of zombies moves and are stopped once it has no
+ * active zombies left, when moving a generation fails, or when the world is closed (so the workers of a world that was
+ * not simulated to the end, for example because its simulation was cancelled, do not outlive it). If
+ * creatures are fed into the world while it is being simulated, they are sent to the running workers before the next
+ * generation moves.
+ */
+public class ShardedZombieServiceImpl implements ZombieService {
+    /**
+     * The system property giving the number of worker processes to split each world between
+     */
+    public static final String SHARDS_PROPERTY = "zombie.shards";
+    /**
+     * The system property giving the options (separated by spaces) to start the worker JVMs with
+     */
+    public static final String WORKER_OPTIONS_PROPERTY = "zombie.shard.options";
+
+    private static ShardedZombieServiceImpl service;
+
+    /**
+     * The number of worker processes to split each world between
+     */
+    private final int shards;
+    /**
+     * The options to start the worker JVMs with
+     */
+    private final List<String> jvmOptions;
+    /**
+     * The coordinator of each world that has zombies moving through its shards
+     */
+    private final Map<World, ShardCoordinator> coordinators = new IdentityHashMap<>();
+
+    /**
+     * @param shards     the number of worker processes to split each world between
+     * @param jvmOptions the options to start the worker JVMs with
+     */
+    public ShardedZombieServiceImpl(int shards, List<String> jvmOptions) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("The number of shards must be at least 1 but was " + shards);
+        }
+        this.shards = shards;
+        this.jvmOptions = jvmOptions;
+    }
+
+    /**
+     * Get the instance of the sharded zombie service, which splits each world between a worker per processor (or the
+     * number of workers given by the shards system property)
+     *
+     * @return the zombie service
+     */
+    public static synchronized ShardedZombieServiceImpl getService() {
+        if (service == null) {
+            String options = System.getProperty(WORKER_OPTIONS_PROPERTY, "").trim();
+            service = new ShardedZombieServiceImpl(
+                    Integer.getInteger(SHARDS_PROPERTY, Runtime.getRuntime().availableProcessors()),
+                    options.isEmpty() ? Collections.emptyList() : Arrays.asList(options.split("\\s+")));
+        }
+        return service;
+    }
+
+    /**
+     * Set up the world in exactly the same way as the sequential zombie service
+     *
+     * @param args either empty (if using the default resources file) or a file path to an external input file
+     * @return World object populated with creatures/zombies (or null if the set up instructions were invalid)
+     */
+    public World createWorld(String[] args) {
+        return ZombieServiceImpl.getService().createWorld(args);
+    }
+
+    /**
+     * Set up the world from details in the 4 line text format, in exactly the same way as the sequential zombie service
+     *
+     * @param input the stream to read the set up details from (it is not closed)
+     * @return World object populated with creatures/zombies (or null if the set up instructions were invalid)
+     */
+    public World createWorld(InputStream input) {
+        return ZombieServiceImpl.getService().createWorld(input);
+    }
+
+    /**
+     * Move every active zombie (one generation) through the shards of the world, starting the workers for the world
+     * if they are not running yet. The creatures they bite become the next generation of active zombies.
+     *
+     * @param world the world in which the creatures and zombies co-exist
+     * @throws UncheckedIOException if the workers could not be started or reached
+     */
+    public void monitorZombie(World world) {
+        if (world.finishZombiesIfNoCreatures()) {
+            close(world);
+            return;
+        }
+
+        boolean moved = false;
+        try {
+            coordinatorOf(world).monitorZombie();
+            moved = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            // whatever went wrong, the workers are stopped rather than left running for a world that can not go on
+            if (!moved || !world.isActiveZombies()) {
+                close(world);
+            }
+        }
+    }
+
+    /**
+     * Get the coordinator of a world, starting its workers if they are not running yet. The workers are stopped when
+     * the world is closed, if they have not been already.
+     */
+    private ShardCoordinator coordinatorOf(World world) throws IOException {
+        ShardCoordinator coordinator;
+        synchronized (coordinators) {
+            coordinator = coordinators.get(world);
+        }
+
+        if (coordinator == null) {
+            coordinator = new ShardCoordinator(world, shards, jvmOptions);
+            synchronized (coordinators) {
+                coordinators.put(world, coordinator);
+            }
+            world.addResource(() -> close(world));
+        }
+        return coordinator;
+    }
+
+    /**
+     * @param world the world
+     * @return true if the workers of the world are running
+     */
+    boolean hasWorkers(World world) {
+        synchronized (coordinators) {
+            return coordinators.containsKey(world);
+        }
+    }
+
+    /**
+     * Stop the workers of a world (if they are running). This is done when the world is closed, so it only needs to be
+     * called to stop the workers of a world that is still in use.
+     *
+     * @param world the world whose zombies will not be moved any further
+     */
+    public void close(World world) {
+        ShardCoordinator coordinator;
+        synchronized (coordinators) {
+            coordinator = coordinators.remove(world);
+        }
+        if (coordinator != null) {
+            coordinator.close();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.zombie.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates the set up details of synthetic worlds in the 4 line text format, for testing the engines at scale.
+ * <p>
+ * The same settings and seed always generate exactly the same input.
+ */
+public class WorldGenerator {
+    /**
+     * How the creatures are spread over the grid
+     */
+    public enum Distribution {
+        /**
+         * Every creature is in a random cell
+         */
+        UNIFORM,
+        /**
+         * The creatures are gathered around random centres (normally distributed, wrapping around the edges)
+         */
+        CLUSTERED,
+        /**
+         * The creatures are in a few random rows (in random cells along them)
+         */
+        DENSE_ROWS
+    }
+
+    /**
+     * The most creatures gathered around each centre of a clustered world
+     */
+    private static final int CREATURES_PER_CLUSTER = 5000;
+    /**
+     * The most clusters in a clustered world
+     */
+    private static final int MAX_CLUSTERS = 1000;
+    /**
+     * The number of grid cells per row of creatures (or standard deviation of a cluster)
+     */
+    private static final int CELLS_PER_ROW = 100;
+
+    private final int size;
+    private final long creatures;
+    private final Distribution distribution;
+    private final int movementLength;
+    private final int zombies;
+    private final long seed;
+
+    /**
+     * @param size           the length and height of the world
+     * @param creatures      the number of creatures
+     * @param distribution   how the creatures are spread over the grid
+     * @param movementLength the number of zombie movements
+     * @param zombies        the number of zombies the world starts with
+     * @param seed           the seed of the random numbers
+     */
+    public WorldGenerator(int size, long creatures, Distribution distribution, int movementLength, int zombies,
+                          long seed) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The size of the world must be at least 1 but was " + size);
+        } else if (creatures < 0 || movementLength < 0 || zombies < 1) {
+            throw new IllegalArgumentException("There must be at least one zombie, and no fewer than zero creatures " +
+                    "and movements");
+        }
+        this.size = size;
+        this.creatures = creatures;
+        this.distribution = distribution;
+        this.movementLength = movementLength;
+        this.zombies = zombies;
+        this.seed = seed;
+    }
+
+    /**
+     * Write the set up details to a file (replacing it if it exists)
+     *
+     * @param file the file to write to
+     * @throws IOException if the file could not be written
+     */
+    public void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(writer);
+        }
+    }
+
+    /**
+     * Write the set up details
+     *
+     * @param writer the writer to write to (it is not closed)
+     * @throws IOException if the details could not be written
+     */
+    public void write(Writer writer) throws IOException {
+        Random random = new Random(seed);
+        writer.write(Integer.toString(size));
+        writer.write('\n');
+
+        for (int i = 0; i < zombies; i++) {
+            writePosition(writer, random.nextInt(size), random.nextInt(size));
+        }
+        writer.write('\n');
+
+        switch (distribution) {
+            case CLUSTERED:
+                writeClustered(writer, random);
+                break;
+            case DENSE_ROWS:
+                writeDenseRows(writer, random);
+                break;
+            default:
+                for (long i = 0; i < creatures; i++) {
+                    writePosition(writer, random.nextInt(size), random.nextInt(size));
+                }
+        }
+        writer.write('\n');
+
+        for (int i = 0; i < movementLength; i++) {
+            writer.write("UDLR".charAt(random.nextInt(4)));
+        }
+        writer.write('\n');
+    }
+
+    private void writeClustered(Writer writer, Random random) throws IOException {
+        int clusters = (int) Math.max(1, Math.min(MAX_CLUSTERS, creatures / CREATURES_PER_CLUSTER));
+        int[] centreXs = new int[clusters];
+        int[] centreYs = new int[clusters];
+        for (int i = 0; i < clusters; i++) {
+            centreXs[i] = random.nextInt(size);
+            centreYs[i] = random.nextInt(size);
+        }
+
+        double spread = Math.max(1, size / CELLS_PER_ROW);
+        for (long i = 0; i < creatures; i++) {
+            int cluster = random.nextInt(clusters);
+            int x = centreXs[cluster] + (int) Math.round(random.nextGaussian() * spread);
+            int y = centreYs[cluster] + (int) Math.round(random.nextGaussian() * spread);
+            writePosition(writer, Math.floorMod(x, size), Math.floorMod(y, size));
+        }
+    }
+
+    private void writeDenseRows(Writer writer, Random random) throws IOException {
+        int[] rows = new int[Math.max(1, size / CELLS_PER_ROW)];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = random.nextInt(size);
+        }
+
+        for (long i = 0; i < creatures; i++) {
+            writePosition(writer, random.nextInt(size), rows[random.nextInt(rows.length)]);
+        }
+    }
+
+    private static void writePosition(Writer writer, int x, int y) throws IOException {
+        writer.write('(');
+        writer.write(Integer.toString(x));
+        writer.write(',');
+        writer.write(Integer.toString(y));
+        writer.write(')');
+    }
+}
@@ -0,0 +1,509 @@
+package com.zombie.service;
+
+import com.zombie.data.CellIndexFactory;
+import com.zombie.data.TiledCellIndex;
+import com.zombie.data.World;
+import com.zombie.data.WorldMetrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A streaming parser for the 4 line world set up details.
+ * <p>
+ * The input is read a buffer at a time straight from a channel and validated and parsed in a single pass - the
+ * co-ordinates are parsed from the bytes as they arrive without creating any strings, so the time taken is linear in
+ * the size of the input and the memory used is proportional to the number of creatures (not the size of the input).
+ * Validation follows the same rules, and reports the same errors, as reading the lines and matching the co-ordinates
+ * with a regular expression (text outside of brackets is ignored). Each error records the line and column it was found
+ * at, and reading stops as soon as the error limit is reached (or as soon as the size line turns out not to be valid,
+ * since none of the co-ordinates can be checked without it), so a corrupt input is rejected without reading the rest
+ * of it.
+ * <p>
+ * A parser holds the state of a single parse, so a new parser must be used for each input.
+ */
+public class WorldParser {
+    /**
+     * The number of lines in a valid input
+     */
+    private static final int LINES = 4;
+    /**
+     * The size of the buffer the input is read into
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The maximum number of characters of a line quoted in an error message
+     */
+    private static final int MAX_QUOTE_LENGTH = 256;
+    /**
+     * The number of errors after which reading stops, unless another limit is given
+     */
+    public static final int DEFAULT_ERROR_LIMIT = 100;
+
+    private static final int SIZE_LINE = 0;
+    private static final int ZOMBIE_LINE = 1;
+    private static final int CREATURE_LINE = 2;
+    private static final int MOVEMENT_LINE = 3;
+
+    /**
+     * The number of errors after which reading stops
+     */
+    private final int errorLimit;
+    /**
+     * The number of errors found so far
+     */
+    private int errorCount;
+    /**
+     * True if reading stopped early because the error limit was reached or the size is not valid
+     */
+    private boolean stopped;
+
+    /**
+     * The number of lines that have been started so far
+     */
+    private int lines;
+    /**
+     * The column (starting from 1) of the last byte read on the current line
+     */
+    private int column;
+    /**
+     * True if the last byte read ended a line with a carriage return (so a following line feed is part of the same
+     * line ending)
+     */
+    private boolean afterCarriageReturn;
+    /**
+     * True if the current line has any content
+     */
+    private boolean lineStarted;
+
+    /**
+     * The text of the size (1st) line
+     */
+    private final ByteArrayOutputStream sizeText = new ByteArrayOutputStream();
+    /**
+     * The text of the movement (4th) line
+     */
+    private final ByteArrayOutputStream movementText = new ByteArrayOutputStream();
+    /**
+     * The start of the zombie and creature lines (quoted in error messages)
+     */
+    private final ByteArrayOutputStream[] quotes = {new ByteArrayOutputStream(), new ByteArrayOutputStream()};
+    /**
+     * The size of the world, or -1 if the size line is not valid
+     */
+    private int size = -1;
+
+    /**
+     * True if the parser is inside the brackets of a co-ordinate
+     */
+    private boolean inPosition;
+    /**
+     * The text inside the brackets of the current co-ordinate
+     */
+    private byte[] position = new byte[32];
+    private int positionLength;
+    /**
+     * The column of the opening bracket of the current co-ordinate
+     */
+    private int positionColumn;
+
+    /**
+     * The zombie positions, packed as (x << 32) | y
+     */
+    private long[] zombies = new long[16];
+    private int zombieCount;
+    /**
+     * The creature positions, packed as (x << 32) | y
+     */
+    private long[] creatures = new long[1024];
+    private int creatureCount;
+    /**
+     * The tiled index the creatures are added to directly once there are too many to hold in memory (null until then)
+     */
+    private TiledCellIndex tiles;
+
+    /**
+     * The errors found in the size, zombie and creature lines
+     */
+    private final List<List<LoadError>> errors = Arrays.asList(new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>());
+
+    public WorldParser() {
+        this(DEFAULT_ERROR_LIMIT);
+    }
+
+    /**
+     * @param errorLimit the number of errors after which to stop reading the input
+     */
+    public WorldParser(int errorLimit) {
+        if (errorLimit < 1) {
+            throw new IllegalArgumentException("The error limit must be at least 1: " + errorLimit);
+        }
+        this.errorLimit = errorLimit;
+    }
+
+    /**
+     * Parse and validate the world set up details, reporting any problems to the error stream
+     *
+     * @param channel the channel to read the set up details from
+     * @return World object populated with creatures/zombies (or null if the set up details were invalid)
+     * @throws IOException if the details could not be read from the channel
+     */
+    public World parse(ReadableByteChannel channel) throws IOException {
+        LoadResult result = load(channel);
+        if (lines > 0) {
+            for (LoadError error : result.getErrors()) {
+                System.err.println(error.getMessage());
+            }
+        }
+        return result.getWorld();
+    }
+
+    /**
+     * Parse and validate the world set up details.
+     * <p>
+     * If the details are invalid, the errors returned are those of the first problem found in the same order the
+     * lines are checked (the number of lines, then the size, zombie and creature lines): the errors found on the line
+     * followed by a summary of what the line should have been.
+     *
+     * @param channel the channel to read the set up details from
+     * @return the world populated with creatures/zombies, or the errors that stopped it from being set up
+     * @throws IOException if the details could not be read from the channel
+     */
+    public LoadResult load(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        long start = System.nanoTime();
+        long readNanos = 0;
+
+        while (!stopped) {
+            long readStart = System.nanoTime();
+            int read = channel.read(buffer);
+            readNanos += System.nanoTime() - readStart;
+            if (read < 0) {
+                break;
+            }
+
+            for (int i = 0; i < buffer.position() && !stopped; i++) {
+                accept(bytes[i]);
+            }
+            buffer.clear();
+        }
+        if (lineStarted && !stopped) {
+            endLine();
+        }
+
+        long parsed = System.nanoTime();
+        List<LoadError> problems = validate();
+        if (!problems.isEmpty()) {
+            closeTiles();
+            return LoadResult.failed(problems);
+        }
+
+        World world = createWorld();
+        world.getMetrics().addPhaseTime(WorldMetrics.Phase.READ, readNanos);
+        world.getMetrics().addPhaseTime(WorldMetrics.Phase.VALIDATE, parsed - start - readNanos);
+        world.getMetrics().addPhaseTime(WorldMetrics.Phase.BUILD, System.nanoTime() - parsed);
+        return LoadResult.of(world);
+    }
+
+    private void accept(byte b) {
+        if (b == '\n' || b == '\r') {
+            if (b == '\n' && afterCarriageReturn) {
+                afterCarriageReturn = false; // the second half of a \r\n line ending
+                return;
+            }
+            if (!lineStarted) {
+                lines++;
+            }
+            endLine();
+            afterCarriageReturn = b == '\r';
+            return;
+        }
+
+        afterCarriageReturn = false;
+        column++;
+        if (!lineStarted) {
+            lineStarted = true;
+            lines++;
+        }
+
+        switch (lines - 1) {
+            case SIZE_LINE:
+                sizeText.write(b);
+                break;
+            case ZOMBIE_LINE:
+            case CREATURE_LINE:
+                acceptPositionByte(b);
+                break;
+            case MOVEMENT_LINE:
+                movementText.write(b);
+                break;
+            default:
+                // there are too many lines - keep counting them, but there is nothing more to parse
+        }
+    }
+
+    private void acceptPositionByte(byte b) {
+        ByteArrayOutputStream quote = quotes[lines - 1 - ZOMBIE_LINE];
+        if (quote.size() <= MAX_QUOTE_LENGTH) {
+            quote.write(b);
+        }
+
+        if (!inPosition) {
+            if (b == '(') {
+                inPosition = true;
+                positionLength = 0;
+                positionColumn = column;
+            }
+        } else if (b == ')') {
+            inPosition = false;
+            addPosition(lines - 1);
+        } else {
+            if (positionLength == position.length) {
+                position = Arrays.copyOf(position, position.length * 2);
+            }
+            position[positionLength++] = b;
+        }
+    }
+
+    private void endLine() {
+        if (lines - 1 == SIZE_LINE) {
+            size = checkSize();
+            // without a valid size the whole input is rejected, so there is no point reading any further
+            stopped |= size < 0;
+        }
+        // an unclosed bracket at the end of a line is not a co-ordinate
+        inPosition = false;
+        lineStarted = false;
+        column = 0;
+    }
+
+    /**
+     * Validate the size of the world
+     *
+     * @return the size of the world, or -1 if it is not valid
+     */
+    private int checkSize() {
+        String number = new String(sizeText.toByteArray(), StandardCharsets.UTF_8);
+
+        if (number.length() == 0) {
+            error(SIZE_LINE, 1, "No number is provided");
+            return -1;
+        }
+
+        int validNumber;
+        try {
+            validNumber = Integer.parseInt(number);
+        } catch (NumberFormatException nfe) {
+            error(SIZE_LINE, 1, "Number provided is not a valid number: " + number);
+            return -1;
+        }
+
+        if (validNumber < 0) {
+            error(SIZE_LINE, 1, "Number provided is not a positive number: " + validNumber);
+            return -1;
+        }
+        return validNumber;
+    }
+
+    /**
+     * Validate and store the co-ordinates that have just been read
+     *
+     * @param line the line the co-ordinates are on (either the zombie or creature line)
+     */
+    private void addPosition(int line) {
+        int comma = indexOf(',', 0);
+        int end = comma < 0 ? -1 : indexOf(',', comma + 1);
+
+        long x = comma < 0 ? parseNumber(line, 0, positionLength) : parseNumber(line, 0, comma);
+        long y = x < 0 || comma < 0 ? -1 : parseNumber(line, comma + 1, end < 0 ? positionLength : end);
+
+        if (x < 0 || y < 0) {
+            error(line, positionColumn, "One of the position co-ordinates is not a valid number: " + positionText());
+        } else if (x >= size || y >= size) {
+            error(line, positionColumn, "One of the position co-ordinates is outside the grid: " + positionText());
+        } else if (line == ZOMBIE_LINE) {
+            zombies = append(zombies, zombieCount++, (x << 32) | y);
+        } else if (tiles != null) {
+            tiles.add((int) x, (int) y, 1);
+        } else {
+            if (creatureCount == creatures.length && CellIndexFactory.isTiled(size, creatureCount)) {
+                spill();
+                tiles.add((int) x, (int) y, 1);
+                return;
+            }
+            creatures = append(creatures, creatureCount++, (x << 32) | y);
+        }
+    }
+
+    /**
+     * Parse a (trimmed) positive number from the co-ordinate text
+     *
+     * @return the number, or -1 if it is not a valid positive number (with the reason added to the errors)
+     */
+    private long parseNumber(int line, int from, int to) {
+        while (from < to && (position[from] & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (position[to - 1] & 0xFF) <= ' ') {
+            to--;
+        }
+
+        // the text of the co-ordinate starts in the column after the opening bracket
+        int numberColumn = positionColumn + 1 + from;
+        if (from == to) {
+            error(line, numberColumn, "No number is provided");
+            return -1;
+        }
+
+        int i = from;
+        boolean negative = position[i] == '-';
+        if (negative || position[i] == '+') {
+            i++;
+        }
+
+        long value = 0;
+        boolean valid = i < to;
+        for (; i < to && valid; i++) {
+            int digit = position[i] - '0';
+            valid = digit >= 0 && digit <= 9;
+            value = value * 10 + digit;
+            valid &= negative ? -value >= Integer.MIN_VALUE : value <= Integer.MAX_VALUE;
+        }
+
+        if (!valid) {
+            error(line, numberColumn, "Number provided is not a valid number: " +
+                    new String(position, from, to - from, StandardCharsets.UTF_8));
+            return -1;
+        }
+        if (negative && value != 0) {
+            error(line, numberColumn, "Number provided is not a positive number: " + -value);
+            return -1;
+        }
+        return value;
+    }
+
+    private int indexOf(char c, int from) {
+        for (int i = from; i < positionLength; i++) {
+            if (position[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String positionText() {
+        return new String(position, 0, positionLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Move the creatures read so far into a tiled index (which spills to disk) and add the rest straight to it
+     */
+    private void spill() {
+        tiles = CellIndexFactory.createTiled();
+        for (int i = 0; i < creatureCount; i++) {
+            tiles.add((int) (creatures[i] >>> 32), (int) creatures[i], 1);
+        }
+        creatures = null;
+        creatureCount = 0;
+    }
+
+    private static long[] append(long[] positions, int count, long position) {
+        if (count == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length + (positions.length >> 1) + 1);
+        }
+        positions[count] = position;
+        return positions;
+    }
+
+    /**
+     * Record an error, stopping reading once the error limit is reached
+     *
+     * @param line   the line the error was found on (counting from 0)
+     * @param column the column the error was found at (counting from 1)
+     */
+    private void error(int line, int column, String message) {
+        errors.get(line).add(new LoadError(line + 1, column, message));
+        if (++errorCount >= errorLimit) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Find the first problem with the set up details (if there is one)
+     *
+     * @return the errors of the first problem, or an empty list if the set up details are valid
+     */
+    private List<LoadError> validate() {
+        List<LoadError> problems = new ArrayList<>();
+        if (lines == 0) {
+            problems.add(new LoadError(1, 1, "No world set up details were provided"));
+            return problems;
+        }
+
+        if (lines != LINES && !stopped) {
+            problems.add(new LoadError(lines, 1, "Incorrect number of lines in the input file. Required 4 but found " +
+                    lines));
+        } else if (size < 0) {
+            problems.addAll(errors.get(SIZE_LINE));
+            problems.add(new LoadError(SIZE_LINE + 1, 1, "The 1st line should be a positive number defining the " +
+                    "height and length of the world (grid) but found " +
+                    new String(sizeText.toByteArray(), StandardCharsets.UTF_8)));
+        } else {
+            if (!errors.get(ZOMBIE_LINE).isEmpty()) {
+                problems.addAll(errors.get(ZOMBIE_LINE));
+                problems.add(new LoadError(ZOMBIE_LINE + 1, 1, "The 2nd line should be valid zombie co-ordinates " +
+                        "but found " + quote(ZOMBIE_LINE)));
+            } else if (!errors.get(CREATURE_LINE).isEmpty()) {
+                problems.addAll(errors.get(CREATURE_LINE));
+                problems.add(new LoadError(CREATURE_LINE + 1, 1, "The 3rd line should be valid creature " +
+                        "co-ordinates but found " + quote(CREATURE_LINE)));
+            }
+        }
+
+        if (errorCount >= errorLimit) {
+            problems.add(new LoadError(lines, column, "Stopped reading the input after " + errorLimit + " errors"));
+        }
+        return problems;
+    }
+
+    private void closeTiles() {
+        if (tiles != null) {
+            try {
+                tiles.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Build the world from the (valid) set up details
+     */
+    private World createWorld() {
+        World world = tiles != null ? new World(size, tiles) : new World(size, creatureCount);
+        for (int i = 0; i < zombieCount; i++) {
+            world.getActiveZombies().add((int) (zombies[i] >>> 32), (int) zombies[i]);
+        }
+        for (int i = 0; i < creatureCount; i++) {
+            world.getCreatures().add((int) (creatures[i] >>> 32), (int) creatures[i], 1);
+        }
+        world.setZombieMovements(new String(movementText.toByteArray(), StandardCharsets.UTF_8));
+        return world;
+    }
+
+    private String quote(int line) {
+        ByteArrayOutputStream quote = quotes[line - ZOMBIE_LINE];
+        if (quote.size() <= MAX_QUOTE_LENGTH) {
+            return new String(quote.toByteArray(), StandardCharsets.UTF_8);
+        }
+        return new String(quote.toByteArray(), 0, MAX_QUOTE_LENGTH, StandardCharsets.UTF_8) + "...";
+    }
+}
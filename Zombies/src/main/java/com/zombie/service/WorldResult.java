@@ -0,0 +1,105 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+
+/**
+ * The outcome of simulating one world: the final score and zombie positions, or the reason it could not be simulated
+ */
+public class WorldResult {
+    /**
+     * The name of the input the world was created from (for example the file path)
+     */
+    private final String source;
+    /**
+     * The number of creatures the zombies infected
+     */
+    private final int score;
+    /**
+     * The positions of all the zombies once they have finished moving
+     */
+    private final String positions;
+    /**
+     * Why the world could not be simulated (or null if it was simulated)
+     */
+    private final String error;
+
+    private WorldResult(String source, int score, String positions, String error) {
+        this.source = source;
+        this.score = score;
+        this.positions = positions;
+        this.error = error;
+    }
+
+    /**
+     * Create the result of a world once all its zombies have finished moving
+     *
+     * @param source the name of the input the world was created from
+     * @param world  the world
+     * @return the result holding the world's score and zombie positions
+     */
+    public static WorldResult of(String source, World world) {
+        return new WorldResult(source, world.getScore(), world.getZombiePositions(), null);
+    }
+
+    /**
+     * Create the result of a world from its final score and zombie positions
+     *
+     * @param source    the name of the input the world was created from
+     * @param score     the number of creatures the zombies infected
+     * @param positions the positions of all the zombies once they finished moving
+     * @return the result
+     */
+    public static WorldResult of(String source, int score, String positions) {
+        return new WorldResult(source, score, positions, null);
+    }
+
+    /**
+     * Create the result of a world that could not be set up or simulated
+     *
+     * @param source the name of the input the world was to be created from
+     * @param error  why the world could not be simulated
+     * @return the failed result
+     */
+    public static WorldResult failed(String source, String error) {
+        return new WorldResult(source, 0, "", error);
+    }
+
+    /**
+     * @param source the name of another input that set up the same world
+     * @return the same result for the other input
+     */
+    public WorldResult withSource(String source) {
+        return new WorldResult(source, score, positions, error);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public String getPositions() {
+        return positions;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return true if the world was set up and simulated
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        if (!isSuccess()) {
+            return source + ": " + error;
+        }
+        return source + ": zombies score: " + score + " zombies positions: " + positions;
+    }
+}
@@ -0,0 +1,540 @@
+package com.zombie.service;
+
+import com.zombie.data.CellIndex;
+import com.zombie.data.MovementProgram;
+import com.zombie.data.World;
+import com.zombie.data.WorldMetrics;
+import com.zombie.data.ZombieQueue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A compact binary snapshot of a world, which can be loaded far faster than parsing the text set up details.
+ * <p>
+ * The snapshot holds (in order, all numbers big-endian):
+ * <ul>
+ * <li>the magic number {@code ZWSN} and the format version</li>
+ * <li>the size of the world and the score</li>
+ * <li>the active zombies then the finished zombies, each as a count followed by the packed positions
+ * ({@code (x << 32) | y})</li>
+ * <li>the occupied cells as a count, the packed cell positions and then the number of creatures in each cell</li>
+ * <li>the movements as their UTF-8 text and the compiled program (number of invalid movements, the horizontal
+ * offsets and then the vertical offsets)</li>
+ * <li>the key of the input the world was set up from (see {@link ResultCache#key(byte[])}) as its UTF-8 text (empty
+ * if it is not known) followed by its length, so it can be read from the end of the file without the rest</li>
+ * </ul>
+ * Every array is stored contiguously so it can be copied straight out of a memory mapped view of the file. Snapshots
+ * from version 1 of the format (which have no input key) can still be read.
+ * <p>
+ * Because the snapshot holds the whole state of a world (including the zombies still to move and the score so far),
+ * a world can be captured part way through a simulation and carried on from later with exactly the same outcome. The
+ * zombies and score are copied when the snapshot is taken, but the creatures are not: they are streamed straight from
+ * the creature index as the snapshot is written, so however many creatures there are (or wherever the index keeps
+ * them) they are never copied onto the heap. The index must not change until the snapshot has been written - to keep
+ * the world moving meanwhile, take the snapshot of its {@link World#freezeCreatures() frozen} index.
+ */
+public final class WorldSnapshot {
+    /**
+     * The first four bytes of every snapshot ("ZWSN")
+     */
+    public static final int MAGIC = 0x5A57534E;
+    /**
+     * The version of the snapshot format
+     */
+    private static final int VERSION = 2;
+    /**
+     * The first version of the snapshot format, which has no input key
+     */
+    private static final int VERSION_WITHOUT_KEY = 1;
+    /**
+     * The size of the buffer used to write a snapshot
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    /**
+     * The largest region of a snapshot that is memory mapped at once
+     */
+    private static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+    private final int size;
+    private final int score;
+    /**
+     * The packed positions of the active zombies (in queue order)
+     */
+    private final long[] activeZombies;
+    /**
+     * The packed positions of the finished zombies (in the order they finished)
+     */
+    private final long[] finishedZombies;
+    /**
+     * The creatures, read as the snapshot is written
+     */
+    private final CellIndex creatures;
+    /**
+     * The number of occupied cells when the snapshot was taken
+     */
+    private final int cellCount;
+    private final String movements;
+    private final MovementProgram program;
+    /**
+     * The key of the input the world was set up from (empty if it is not known)
+     */
+    private final String inputKey;
+
+    private WorldSnapshot(int size, int score, long[] activeZombies, long[] finishedZombies, CellIndex creatures,
+                          String movements, MovementProgram program, String inputKey) {
+        this.size = size;
+        this.score = score;
+        this.activeZombies = activeZombies;
+        this.finishedZombies = finishedZombies;
+        this.creatures = creatures;
+        this.cellCount = creatures.size();
+        this.movements = movements;
+        this.program = program;
+        this.inputKey = inputKey;
+    }
+
+    /**
+     * Check whether a file is a world snapshot (by its magic number). The position of the channel is left unchanged.
+     *
+     * @param channel the file to check
+     * @return true if the file starts with the snapshot magic number
+     * @throws IOException if the file could not be read
+     */
+    public static boolean isSnapshot(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+        long position = channel.position();
+        while (magic.hasRemaining() && channel.read(magic, position + magic.position()) >= 0) {
+            // keep reading until the magic number is complete or the file ends
+        }
+        return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Write a snapshot of a world to a file (replacing the file if it already exists)
+     *
+     * @param world the world to take a snapshot of
+     * @param path  the file to write the snapshot to
+     * @throws IOException if the snapshot could not be written
+     */
+    public static void write(World world, Path path) throws IOException {
+        capture(world).writeTo(path);
+    }
+
+    /**
+     * Take a snapshot of a world, which must not change until the snapshot has been written
+     *
+     * @param world the world to take a snapshot of
+     * @return the snapshot of the world as it is now
+     */
+    public static WorldSnapshot capture(World world) {
+        return capture(world, world.getCreatures(), "");
+    }
+
+    /**
+     * Take a snapshot of a world, which can then be written out while the world carries on changing as long as the
+     * creatures are not changed (for example because they are the world's frozen creature index)
+     *
+     * @param world     the world to take a snapshot of
+     * @param creatures the creatures of the world, which must not change until the snapshot has been written
+     * @param inputKey  the key of the input the world was set up from (kept in the snapshot so it can be checked
+     *                  against the input before the snapshot is carried on from)
+     * @return the snapshot of the world as it is now
+     */
+    public static WorldSnapshot capture(World world, CellIndex creatures, String inputKey) {
+        return new WorldSnapshot(world.getSize(), world.getScore(), packZombies(world.getActiveZombies()),
+                packZombies(world.getFinishedZombies()), creatures,
+                world.getZombieMovements() == null ? "" : world.getZombieMovements(), world.getMovementProgram(),
+                inputKey);
+    }
+
+    /**
+     * Write the snapshot to a file (replacing the file if it already exists)
+     *
+     * @param path the file to write the snapshot to
+     * @throws IOException if the snapshot could not be written
+     */
+    public void writeTo(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new Writer(channel);
+            writer.putInt(MAGIC);
+            writer.putInt(VERSION);
+            writer.putInt(size);
+            writer.putInt(score);
+
+            writer.putInt(activeZombies.length);
+            writer.putLongs(activeZombies);
+            writer.putInt(finishedZombies.length);
+            writer.putLongs(finishedZombies);
+
+            writer.putInt(cellCount);
+            putCells(writer, false);
+            putCells(writer, true);
+
+            byte[] movementBytes = movements.getBytes(StandardCharsets.UTF_8);
+            writer.putInt(movementBytes.length);
+            writer.putBytes(movementBytes);
+
+            writer.putInt(program.getInvalidMovements());
+            writer.putInt(program.length());
+            writer.putInts(program.getXOffsets());
+            writer.putInts(program.getYOffsets());
+
+            byte[] keyBytes = inputKey.getBytes(StandardCharsets.UTF_8);
+            writer.putBytes(keyBytes);
+            writer.putInt(keyBytes.length);
+            writer.flush();
+        }
+    }
+
+    /**
+     * Stream the positions or the counts of the occupied cells from the creature index, checking the index has not
+     * changed since the snapshot was taken
+     */
+    private void putCells(Writer writer, boolean counts) throws IOException {
+        int[] visited = {0};
+        try {
+            creatures.forEach((x, y, count) -> {
+                try {
+                    if (counts) {
+                        writer.putInt(count);
+                    } else {
+                        writer.putLong(pack(x, y));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                visited[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (visited[0] != cellCount) {
+            throw new IOException("The creatures changed while the world snapshot was being written");
+        }
+    }
+
+    /**
+     * Load a world from a snapshot, reading the file through memory mapped views. Every number is checked before it is
+     * used (lengths against the bytes left in the file, positions and offsets against the size of the world), so a
+     * corrupt snapshot is rejected rather than building a broken world.
+     *
+     * @param channel the snapshot file (positioned at the start of the snapshot)
+     * @return the world stored in the snapshot
+     * @throws IOException if the snapshot could not be read or is not a valid snapshot
+     */
+    public static World read(FileChannel channel) throws IOException {
+        long start = System.nanoTime();
+        Reader reader = new Reader(channel);
+        if (reader.getInt() != MAGIC) {
+            throw new IOException("The file is not a world snapshot");
+        }
+        int version = reader.getInt();
+        if (version != VERSION && version != VERSION_WITHOUT_KEY) {
+            throw new IOException("Unsupported world snapshot version: " + version);
+        }
+
+        int size = reader.getInt();
+        int score = reader.getInt();
+        if (size < 0 || score < 0) {
+            throw corrupt("the size (" + size + ") and score (" + score + ") can not be negative");
+        }
+        long[] activeZombies = checkPositions(reader.getLongs(reader.getInt()), size, "an active zombie");
+        long[] finishedZombies = checkPositions(reader.getLongs(reader.getInt()), size, "a finished zombie");
+        int cellCount = reader.getInt();
+        long[] cells = checkPositions(reader.getLongs(cellCount), size, "a cell of creatures");
+        int[] counts = reader.getInts(cellCount);
+
+        String movements = new String(reader.getBytes(reader.getInt()), StandardCharsets.UTF_8);
+        int invalidMovements = reader.getInt();
+        int steps = reader.getInt();
+        int[] xOffsets = reader.getInts(steps);
+        int[] yOffsets = reader.getInts(steps);
+        if (version == VERSION) {
+            reader.getInputKey();
+        }
+        long read = System.nanoTime();
+
+        long creatureCount = 0;
+        for (int count : counts) {
+            if (count <= 0) {
+                throw corrupt("a cell has " + count + " creatures");
+            }
+            creatureCount += count;
+        }
+        MovementProgram program;
+        try {
+            program = MovementProgram.of(size, xOffsets, yOffsets, invalidMovements);
+        } catch (IllegalArgumentException e) {
+            throw corrupt(e.getMessage());
+        }
+
+        World world = new World(size, creatureCount);
+        world.addScore(score);
+        for (long zombie : activeZombies) {
+            world.getActiveZombies().add(unpackX(zombie), unpackY(zombie));
+        }
+        for (long zombie : finishedZombies) {
+            world.getFinishedZombies().add(unpackX(zombie), unpackY(zombie));
+        }
+        for (int i = 0; i < cellCount; i++) {
+            world.getCreatures().add(unpackX(cells[i]), unpackY(cells[i]), counts[i]);
+        }
+        world.setZombieMovements(movements, program);
+
+        world.getMetrics().addPhaseTime(WorldMetrics.Phase.READ, read - start);
+        world.getMetrics().addPhaseTime(WorldMetrics.Phase.BUILD, System.nanoTime() - read);
+        return world;
+    }
+
+    /**
+     * Read the key of the input a snapshot was taken of, from the end of the file (without reading the world)
+     *
+     * @param path the snapshot file
+     * @return the key of the input (empty if the snapshot does not know its input)
+     * @throws IOException if the file could not be read or is not a valid snapshot
+     */
+    public static String readInputKey(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, 2 * Integer.BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("The file is not a world snapshot");
+            }
+            int version = header.getInt();
+            if (version == VERSION_WITHOUT_KEY) {
+                return "";
+            } else if (version != VERSION) {
+                throw new IOException("Unsupported world snapshot version: " + version);
+            }
+
+            long end = channel.size() - Integer.BYTES;
+            int length = end < header.capacity() ? -1 : readFully(channel, end, Integer.BYTES).getInt();
+            if (length < 0 || length > end - header.capacity()) {
+                throw new IOException("The world snapshot is corrupt or truncated");
+            }
+            return StandardCharsets.UTF_8.decode(readFully(channel, end - length, length)).toString();
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("The world snapshot is corrupt or truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Check every position is inside the grid
+     *
+     * @return the positions
+     * @throws IOException if a position is outside the grid
+     */
+    private static long[] checkPositions(long[] positions, int size, String what) throws IOException {
+        for (long position : positions) {
+            int x = unpackX(position);
+            int y = unpackY(position);
+            if (x < 0 || y < 0 || x >= size || y >= size) {
+                throw corrupt("the position of " + what + " is outside the grid: " + x + "," + y);
+            }
+        }
+        return positions;
+    }
+
+    private static IOException corrupt(String reason) {
+        return new IOException("The world snapshot is corrupt - " + reason);
+    }
+
+    private static long[] packZombies(ZombieQueue zombies) {
+        long[] positions = new long[zombies.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = pack(zombies.getX(i), zombies.getY(i));
+        }
+        return positions;
+    }
+
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static int unpackX(long position) {
+        return (int) (position >>> 32);
+    }
+
+    private static int unpackY(long position) {
+        return (int) position;
+    }
+
+    /**
+     * Writes the snapshot sections through a buffer
+     */
+    private static class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putInts(int[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                ensure(Integer.BYTES);
+                int length = Math.min(values.length - i, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, i, length);
+                buffer.position(buffer.position() + length * Integer.BYTES);
+                i += length;
+            }
+        }
+
+        void putLongs(long[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                ensure(Long.BYTES);
+                int length = Math.min(values.length - i, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(values, i, length);
+                buffer.position(buffer.position() + length * Long.BYTES);
+                i += length;
+            }
+        }
+
+        void putBytes(byte[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                ensure(1);
+                int length = Math.min(values.length - i, buffer.remaining());
+                buffer.put(values, i, length);
+                i += length;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads the snapshot sections through memory mapped windows of the file
+     */
+    private static class Reader {
+        private final FileChannel channel;
+        private final long end;
+        private MappedByteBuffer window;
+        /**
+         * The position in the file of the start of the current window
+         */
+        private long windowStart;
+
+        Reader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.end = channel.size();
+            map(channel.position());
+        }
+
+        int getInt() throws IOException {
+            ensure(Integer.BYTES);
+            return window.getInt();
+        }
+
+        int[] getInts(int length) throws IOException {
+            int[] values = new int[checkLength(length, Integer.BYTES)];
+            for (int i = 0; i < length; ) {
+                ensure(Integer.BYTES);
+                int count = Math.min(length - i, window.remaining() / Integer.BYTES);
+                window.asIntBuffer().get(values, i, count);
+                window.position(window.position() + count * Integer.BYTES);
+                i += count;
+            }
+            return values;
+        }
+
+        long[] getLongs(int length) throws IOException {
+            long[] values = new long[checkLength(length, Long.BYTES)];
+            for (int i = 0; i < length; ) {
+                ensure(Long.BYTES);
+                int count = Math.min(length - i, window.remaining() / Long.BYTES);
+                window.asLongBuffer().get(values, i, count);
+                window.position(window.position() + count * Long.BYTES);
+                i += count;
+            }
+            return values;
+        }
+
+        byte[] getBytes(int length) throws IOException {
+            byte[] values = new byte[checkLength(length, 1)];
+            for (int i = 0; i < length; ) {
+                ensure(1);
+                int count = Math.min(length - i, window.remaining());
+                window.get(values, i, count);
+                i += count;
+            }
+            return values;
+        }
+
+        /**
+         * Read the input key, which fills the rest of the file but for its length (so the length is checked against
+         * what is left of the file)
+         */
+        String getInputKey() throws IOException {
+            long left = end - (windowStart + window.position()) - Integer.BYTES;
+            byte[] key = getBytes(left < 0 || left > Integer.MAX_VALUE ? -1 : (int) left);
+            if (getInt() != key.length) {
+                throw new IOException("The world snapshot is corrupt or truncated");
+            }
+            return new String(key, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Check a section length read from the file is possible, so a corrupt snapshot fails cleanly
+         */
+        private int checkLength(int length, int bytesEach) throws IOException {
+            long position = windowStart + window.position();
+            if (length < 0 || (long) length * bytesEach > end - position) {
+                throw new IOException("The world snapshot is corrupt or truncated");
+            }
+            return length;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                long position = windowStart + window.position();
+                if (end - position < bytes) {
+                    throw new IOException("The world snapshot is corrupt or truncated");
+                }
+                map(position);
+            }
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, end - position));
+        }
+    }
+}
@@ -1,6 +1,14 @@
 package com.zombie.service;
 
 import com.zombie.data.World;
+import com.zombie.data.WorldStatus;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * The interface for the the service relating to the zombie world
@@ -9,15 +17,136 @@ public interface ZombieService {
     /**
      * Create the intial world given the supplied details
      *
-     * @param args either empty (if using the default resources file) or a file path to an external input file
+     * @param args either empty (if using the default resources file) or a file path to an external input file (in the
+     *             4 line text format or a binary world snapshot)
      * @return World object that is created and populated with creatures and the initial zombie (or null if set up fails)
      */
     World createWorld(String[] args);
 
+    /**
+     * Create the intial world from set up details in the 4 line text format
+     *
+     * @param input the stream to read the set up details from (it is not closed)
+     * @return World object that is created and populated with creatures and the initial zombie (or null if set up fails)
+     */
+    World createWorld(InputStream input);
+
     /**
      * Monitor the movement of the initial zombie (and any subsequent zombies) around the world
      *
      * @param world the world in which the creatures and zombies co-exist
      */
     void monitorZombie(World world);
+
+    /**
+     * Monitor the zombies until every zombie has finished moving
+     *
+     * @param world the world in which the creatures and zombies co-exist
+     */
+    default void simulate(World world) {
+        world.getMetrics().startSimulation();
+        try {
+            while (world.isActiveZombies()) {
+                monitorZombie(world);
+            }
+        } finally {
+            world.getMetrics().endSimulation();
+        }
+    }
+
+    /**
+     * Monitor the zombies until every zombie has finished moving, taking checkpoints of the world along the way
+     *
+     * @param world        the world in which the creatures and zombies co-exist
+     * @param checkpointer takes the checkpoints (between zombies) when they are due
+     */
+    default void simulate(World world, Checkpointer checkpointer) {
+        world.getMetrics().startSimulation();
+        try {
+            while (world.isActiveZombies()) {
+                monitorZombie(world);
+                checkpointer.checkpointIfDue(world);
+            }
+        } finally {
+            world.getMetrics().endSimulation();
+        }
+    }
+
+    /**
+     * Monitor the zombies until every zombie has finished moving, merging the batches of new creatures from a feed into
+     * the world between zombies as they arrive. While the world has no creatures left the zombies wait for the next
+     * batch (instead of finishing) until the feed ends.
+     *
+     * @param world          the world in which the creatures and zombies co-exist
+     * @param feed           the feed of new creatures
+     * @param intervalMillis the time between updates
+     * @param onUpdate       given the running score and the number of zombies and creatures every interval (without the
+     *                       positions, which grow with every zombie - read them from the world once this returns, for
+     *                       example with {@link World#writeZombiePositions})
+     * @throws InterruptedException if the thread is interrupted while waiting for creatures
+     */
+    default void simulate(World world, CreatureFeed feed, long intervalMillis, Consumer<WorldStatus> onUpdate)
+            throws InterruptedException {
+        world.getMetrics().startSimulation();
+        try {
+            long interval = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+            long nextUpdate = System.nanoTime() + interval;
+            while (world.isActiveZombies()) {
+                feed.mergeInto(world);
+                if (world.getCreatures().getCreatureCount() == 0 && feed.isOpen()) {
+                    feed.awaitBatch(Math.max(nextUpdate - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                } else {
+                    monitorZombie(world);
+                }
+
+                if (System.nanoTime() - nextUpdate >= 0) {
+                    onUpdate.accept(world.query());
+                    nextUpdate = System.nanoTime() + interval;
+                }
+            }
+        } finally {
+            world.getMetrics().endSimulation();
+        }
+    }
+
+    /**
+     * Set up and simulate many worlds concurrently, handing back each result as soon as its world has finished
+     *
+     * @param inputPaths  the file paths of the input files (text or binary snapshots)
+     * @param parallelism the most worlds to set up and simulate at the same time
+     * @param onResult    called (on the calling thread) with the result of each world as it finishes
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the worlds
+     */
+    default void simulateBatch(List<String> inputPaths, int parallelism, Consumer<WorldResult> onResult)
+            throws InterruptedException {
+        List<Callable<World>> creators = new ArrayList<>();
+        for (String inputPath : inputPaths) {
+            creators.add(() -> createWorld(new String[]{inputPath}));
+        }
+        BatchSimulation.run(this, inputPaths, creators, parallelism, onResult);
+    }
+
+    /**
+     * Set up and simulate many worlds concurrently, handing back each result as soon as its world has finished
+     *
+     * @param inputs      the streams to read the set up details of each world from (each is closed once read)
+     * @param parallelism the most worlds to set up and simulate at the same time
+     * @param onResult    called (on the calling thread) with the result of each world as it finishes - the source of
+     *                    each result is "stream-n" where n is the position of the stream in the list
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the worlds
+     */
+    default void simulateStreams(List<InputStream> inputs, int parallelism, Consumer<WorldResult> onResult)
+            throws InterruptedException {
+        List<String> names = new ArrayList<>();
+        List<Callable<World>> creators = new ArrayList<>();
+        for (InputStream input : inputs) {
+            names.add("stream-" + names.size());
+            creators.add(() -> {
+                try (InputStream stream = input) {
+                    return createWorld(stream);
+                }
+            });
+        }
+        BatchSimulation.run(this, names, creators, parallelism, onResult);
+    }
 }
@@ -1,33 +1,28 @@
 package com.zombie.service;
 
 import com.zombie.ZombieWorld;
-import com.zombie.data.Creature;
+import com.zombie.data.MovementProgram;
 import com.zombie.data.World;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import com.zombie.data.ZombieQueue;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 
 /**
- * The implementation of the zombie service
+ * The implementation of the zombie service.
+ * <p>
+ * The service keeps no state of its own between calls - everything about a world lives in the world - so the single
+ * instance can set up and simulate any number of worlds at the same time.
  */
 public class ZombieServiceImpl implements ZombieService {
     /**
      * The name of the file in the resources folder used as the default input file
      */
-    private static final String DEFAULT_FILE_NAME = "Input.txt";
-    /**
-     * The regex pattern to retrieve the co-ordinates of the creatures or zombies
-     */
-    private static final String COORDINATE_PATTERN = "\\((.*?)\\)";
+    public static final String DEFAULT_FILE_NAME = "Input.txt";
 
     /**
      * The single instance of the zombie service
@@ -49,238 +44,110 @@ public class ZombieServiceImpl implements ZombieService {
     /**
      * Set up the world either by the internal resources file information or the external supplied text file info
      *
-     * @param args either empty (if using the default resources file) or a file path to an external input file
+     * @param args either empty (if using the default resources file) or a file path to an external input file (in the
+     *             4 line text format or a binary world snapshot)
      * @return World object populated with creatures/zombies (or null if the set up instructions were invalid)
      */
     public World createWorld(String[] args) {
-        List<String> setUp;
-        World world = null;
-
         if (args.length > 0) {
-            setUp = readFile(args[0]);
-        } else {
-            setUp = readDefault();
-        }
-
-        if (!setUp.isEmpty() && isValid(setUp)) {
-            world = new World(Integer.parseInt(setUp.get(0)));
-            addCreatures(world, setUp.get(1), true);
-            addCreatures(world, setUp.get(2), false);
-            world.setZombieMovements(setUp.get(3));
+            return readFile(args[0]);
         }
-
-        return world;
+        return readDefault();
     }
 
     /**
-     * Monitor the movement of the zombies around the world
+     * Set up the world from details in the 4 line text format
      *
-     * @param world the world in which the creatures and zombies co-exist
+     * @param input the stream to read the set up details from (it is not closed)
+     * @return World object populated with creatures/zombies (or null if the set up instructions were invalid)
      */
-    public void monitorZombie(World world) {
-        Creature zombie = world.getActiveZombies().remove(0);
-
-        String movements = world.getZombieMovements();
-
-        for (char movement : movements.toUpperCase().toCharArray()) {
-            processMovement(world, zombie, movement);
+    public World createWorld(InputStream input) {
+        try {
+            return new WorldParser().parse(Channels.newChannel(input));
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-
-        world.getFinishedZombies().add(zombie);
+        return null;
     }
 
     /**
-     * Process the movement of a zombie around the world (grid)
+     * Monitor the movement of the zombies around the world
      *
-     * @param world    the world (or grid) in which the zombie lives
-     * @param zombie   the active zombie (running around biting people)
-     * @param movement the movement action (either U - Up, D - Down, L - Left or R - Right)
+     * @param world the world in which the creatures and zombies co-exist
      */
-    private void processMovement(World world, Creature zombie, char movement) {
-        int max = world.getSize() - 1; // 0 to size - 1 is the horizontal and vertical dimensions
-        switch (movement) {
-            case 'U':
-                zombie.moveUp(max);
-                break;
-            case 'D':
-                zombie.moveDown(max);
-                break;
-            case 'L':
-                zombie.moveLeft(max);
-                break;
-            case 'R':
-                zombie.moveRight(max);
-                break;
-            default:
-                System.err.println("Movement was skipped - Incorrect zombie movement specified: " + movement);
-        }
-
-        // Once the zombie has moved - check if any creatures have been bitten (and are now zombies)
-        String key = zombie.getxPosition() + "-" + zombie.getyPosition();
-        if (world.getCreatures().containsKey(key)) {
-            List<Creature> creatures = world.getCreatures().get(key);
-            world.addScore(creatures.size()); // update the zombie's overall score
-            world.getActiveZombies().addAll(creatures); // add new zombies to start moving...
-
-            world.getCreatures().get(key).clear(); // remove the creatures that are now zombies
-            world.getCreatures().remove(key);
+    public void monitorZombie(World world) {
+        if (world.finishZombiesIfNoCreatures()) {
+            return;
         }
-    }
-
-    /**
-     * Add all the creatures (and one lone zombie) to the new world
-     *
-     * @param world     the new world (grid)
-     * @param positions the list of creatures (or zombie) and their positions on the grid (world)
-     * @param isZombie  true, if a zombie is being added, false if a series of creatures are being added
-     */
-    private void addCreatures(World world, String positions, boolean isZombie) {
-        Pattern p = Pattern.compile(COORDINATE_PATTERN);
-        Matcher m = p.matcher(positions);
-
-        while (m.find()) {
-            Creature creature = new Creature();
-            String[] position = m.group(1).split(",");
-            creature.setxPosition(Integer.parseInt(position[0].trim()));
-            creature.setyPosition(Integer.parseInt(position[1].trim()));
 
-            if (isZombie) {
-                world.getActiveZombies().add(creature);
-            } else {
-                String key = creature.getxPosition() + "-" + creature.getyPosition();
-                if (!world.getCreatures().containsKey(key)) {
-                    world.getCreatures().put(key, new ArrayList<>());
-                }
-                world.getCreatures().get(key).add(creature);
+        ZombieQueue activeZombies = world.getActiveZombies();
+        int startX = activeZombies.firstX();
+        int startY = activeZombies.firstY();
+        activeZombies.removeFirst();
+        MovementProgram program = world.getMovementProgram();
+        int zombie = world.getFinishedZombies().size();
+
+        int step = 0;
+        while (step < program.length()) {
+            boolean bitten = processMovement(world, program.xAt(startX, step), program.yAt(startY, step), zombie, step);
+            step++;
+            if (bitten && world.getCreatures().getCreatureCount() == 0) {
+                break; // the rest of the walk cannot bite anything
             }
         }
-    }
-
-    /**
-     * A validation check on the details supplied in the file
-     *
-     * @param setUp the list of set up information
-     * @return true if valid set up information, false otherwise
-     */
-    private boolean isValid(List<String> setUp) {
-        boolean valid = true;
-
-        if (setUp.size() != 4) {
-            System.err.println("Incorrect number of lines in the input file. Required 4 but found " + setUp.size());
-            valid = false;
-        } else if (!checkNumber(setUp.get(0))) {
-            System.err.println("The 1st line should be a positive number defining the height and length of the world (grid)" +
-                    " but found " + setUp.get(0));
-            valid = false;
-        } else if (!checkPositions(setUp.get(1), setUp.get(0), true)) {
-            System.err.println("The 2nd line should be valid zombie co-ordinates but found " + setUp.get(1));
-            valid = false;
-        } else if (!checkPositions(setUp.get(2), setUp.get(0), false)) {
-            System.err.println("The 3rd line should be valid creature co-ordinates but found " + setUp.get(2));
-            valid = false;
-        }
+        world.getMetrics().addSteps(step);
 
-        return valid;
-    }
-
-    private boolean checkNumber(String number) {
-        if (number == null || number.length() == 0) {
-            System.err.println("No number is provided");
-            return false;
-        }
-
-        int validNumber = -1;
-        try {
-            validNumber = Integer.parseInt(number);
-        } catch (NumberFormatException nfe) {
-            System.err.println("Number provided is not a valid number: " + number);
-            return false;
-        }
-
-        if (validNumber >= 0) {
-            return true;
-        }
-
-        System.err.println("Number provided is not a positive number: " + validNumber);
-        return false;
+        world.getFinishedZombies().add(program.finalX(startX), program.finalY(startY));
     }
 
     /**
-     * Check the zombie and creature co-ordinates to make sure they are valid
+     * Process the movement of a zombie around the world (grid)
      *
-     * @param position the zombie/creature co-ordinates
-     * @param sizeStr  the size of the world (n by n)
-     * @param isZombie whether the co-ordinates relate to a single zombie or a collection of creatures
-     * @return true if the co-ordinates are valid, false otherwise
+     * @param world  the world (or grid) in which the zombie lives
+     * @param x      the horizontal position the zombie has moved to
+     * @param y      the vertical position the zombie has moved to
+     * @param zombie the number of the zombie (zombies are numbered from 0 in the order they set off)
+     * @param step   the step of the zombie's movements that took it to the position
+     * @return whether any creatures were bitten
      */
-    private boolean checkPositions(String position, String sizeStr, boolean isZombie) {
-        boolean isValid = true;
-        int size = Integer.parseInt(sizeStr); // we already checked if it was a valid number
-
-        Pattern p = Pattern.compile(COORDINATE_PATTERN);
-        Matcher m = p.matcher(position);
-
-        int numberOfPositions = 0;
-        while (m.find()) {
-            String[] positionArray = m.group(1).split(",");
-            String xStr = positionArray[0].trim();
-            String yStr = positionArray[1].trim();
-
-            if (checkNumber(xStr) && checkNumber(yStr)) {
-                int x = Integer.parseInt(xStr);
-                int y = Integer.parseInt(yStr);
-
-                if (x >= size || y >= size) {
-                    System.err.println("One of the position co-ordinates is outside the grid: " + m.group(1));
-                    isValid = false;
-                }
-            } else {
-                System.err.println("One of the position co-ordinates is not a valid number: " + m.group(1));
-                isValid = false;
-            }
-            numberOfPositions++;
-        }
-
-        if (isZombie && numberOfPositions > 1) {
-            System.err.println("More than one zombie has been provided: " + position);
-            isValid = false;
-        }
-
-        return isValid;
+    private boolean processMovement(World world, int x, int y, int zombie, int step) {
+        // Once the zombie has moved - check if any creatures have been bitten (and are now zombies)
+        return world.infect(x, y, zombie, step) > 0;
     }
 
     /**
-     * Read the external file provided in the command arguments for the world set up details
+     * Read the external file provided in the command arguments for the world set up details. The file is either a
+     * binary world snapshot or the 4 line text format.
      *
      * @param fileName the external file name
-     * @return the list of set up details for the zombie world
+     * @return the world created from the set up details (or null if they could not be read or were invalid)
      */
-    private List<String> readFile(String fileName) {
-        List<String> lines = new ArrayList<>();
-        File initialFile = new File(fileName);
-
-        try (InputStream inputStream = FileUtils.openInputStream(initialFile)) {
-            lines = IOUtils.readLines(inputStream, StandardCharsets.UTF_8);
+    private World readFile(String fileName) {
+        try (FileInputStream inputStream = new FileInputStream(new File(fileName));
+             FileChannel channel = inputStream.getChannel()) {
+            if (WorldSnapshot.isSnapshot(channel)) {
+                return WorldSnapshot.read(channel);
+            }
+            return new WorldParser().parse(channel);
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return lines;
+        return null;
     }
 
     /**
-     * Read the internal resources file set up details
+     * Read and parse the internal resources file set up details
      *
-     * @return the list of set up details for the zombie world
+     * @return the world created from the set up details (or null if they could not be read or were invalid)
      */
-    private List<String> readDefault() {
-        List<String> lines = new ArrayList<>();
+    private World readDefault() {
         ClassLoader classLoader = ZombieWorld.class.getClassLoader();
 
         try (InputStream inputStream = classLoader.getResourceAsStream(DEFAULT_FILE_NAME)) {
-            lines = IOUtils.readLines(inputStream, StandardCharsets.UTF_8);
+            return createWorld(inputStream);
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return lines;
+        return null;
     }
 }
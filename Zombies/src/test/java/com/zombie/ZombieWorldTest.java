@@ -41,4 +41,11 @@ public class ZombieWorldTest {
         Assert.assertThat(testError.toString(), CoreMatchers.containsString("FileNotFoundException"));
     }
 
+    @Test
+    public void main_invalidServerPort() {
+        ZombieWorld.main(new String[]{"--server", "http"});
+        Assert.assertThat(testOutput.toString(),
+                CoreMatchers.containsString("The server port must be a number from 0 to 65535 but was: http"));
+    }
+
 }
@@ -0,0 +1,134 @@
+package com.zombie.data;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The behaviour every {@link CellIndex} must share - each index's own test extends this and adds the tests of
+ * anything particular to it
+ */
+public abstract class CellIndexContractTest {
+    private CellIndex index;
+
+    /**
+     * @param size the length and height of the world the index is for
+     * @return an empty index
+     */
+    protected abstract CellIndex newIndex(int size) throws IOException;
+
+    protected CellIndex createIndex(int size) throws IOException {
+        index = newIndex(size);
+        return index;
+    }
+
+    @After
+    public void closeIndex() throws IOException {
+        if (index instanceof Closeable) {
+            ((Closeable) index).close();
+        }
+    }
+
+    @Test
+    public void addAndCount() throws IOException {
+        CellIndex index = createIndex(4);
+        index.add(1, 2, 1);
+        index.add(1, 2, 1);
+        index.add(3, 3, 1);
+
+        Assert.assertEquals(2, index.count(1, 2));
+        Assert.assertEquals(1, index.count(3, 3));
+        Assert.assertEquals(0, index.count(2, 1));
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(3, index.getCreatureCount());
+    }
+
+    @Test
+    public void add_none() throws IOException {
+        CellIndex index = createIndex(4);
+        index.add(1, 2, 0);
+        index.add(3, 3, 2);
+        index.add(3, 3, 0);
+
+        Assert.assertEquals(0, index.count(1, 2));
+        Assert.assertEquals(2, index.count(3, 3));
+        Assert.assertEquals(1, index.size());
+        Assert.assertEquals(2, index.getCreatureCount());
+        Map<Long, Integer> visited = new HashMap<>();
+        index.forEach((x, y, count) -> visited.put(SparseCellIndex.pack(x, y), count));
+        Assert.assertEquals(Collections.singletonMap(SparseCellIndex.pack(3, 3), 2), visited);
+    }
+
+    @Test
+    public void remove() throws IOException {
+        CellIndex index = createIndex(3);
+        index.add(0, 1, 3);
+        index.add(2, 2, 1);
+
+        Assert.assertEquals(3, index.remove(0, 1));
+        Assert.assertEquals(0, index.remove(0, 1));
+        Assert.assertEquals(0, index.count(0, 1));
+        Assert.assertEquals(1, index.count(2, 2));
+        Assert.assertEquals(1, index.size());
+        Assert.assertEquals(1, index.getCreatureCount());
+    }
+
+    @Test
+    public void countMany() throws IOException {
+        CellIndex index = createIndex(3);
+        index.add(2, 0, 1);
+        index.add(1, 2, 2);
+
+        int[] counts = new int[4];
+        index.count(new int[]{2, 1, 0, 1, 9}, new int[]{0, 2, 0, 2, 9}, 4, counts);
+
+        Assert.assertArrayEquals(new int[]{1, 2, 0, 2}, counts);
+    }
+
+    @Test
+    public void forEach() throws IOException {
+        CellIndex index = createIndex(100);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            index.add(i, 99 - i, i + 1);
+            expected.put(SparseCellIndex.pack(i, 99 - i), i + 1);
+        }
+
+        Map<Long, Integer> visited = new HashMap<>();
+        index.forEach((x, y, count) -> Assert.assertNull(visited.put(SparseCellIndex.pack(x, y), count)));
+        Assert.assertEquals(expected, visited);
+    }
+
+    @Test
+    public void growAndRemoveMany() throws IOException {
+        int size = 300;
+        CellIndex index = createIndex(size);
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                index.add(x, y, x % 3 + 1);
+            }
+        }
+        Assert.assertEquals(size * size, index.size());
+
+        // remove every other cell, which exercises shifting entries back through the probe runs of the hash tables
+        for (int x = 0; x < size; x++) {
+            for (int y = x % 2; y < size; y += 2) {
+                Assert.assertEquals(x % 3 + 1, index.remove(x, y));
+            }
+        }
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int expected = (y % 2 == x % 2) ? 0 : x % 3 + 1;
+                Assert.assertEquals(expected, index.count(x, y));
+            }
+        }
+        Assert.assertEquals(size * size / 2, index.size());
+    }
+}
@@ -0,0 +1,54 @@
+package com.zombie.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CellIndexOverlayTest extends CellIndexContractTest {
+    @Override
+    protected CellIndex newIndex(int size) {
+        return new CellIndexOverlay(new SparseCellIndex());
+    }
+
+    @Test
+    public void frozenIndexUnchanged() throws IOException {
+        CellIndex frozen = new DenseCellIndex(4);
+        frozen.add(1, 1, 2);
+        frozen.add(2, 3, 1);
+        CellIndexOverlay overlay = new CellIndexOverlay(frozen);
+
+        Assert.assertEquals(2, overlay.remove(1, 1));
+        overlay.add(1, 1, 3);
+        overlay.add(0, 2, 1);
+        Assert.assertEquals(1, overlay.remove(2, 3));
+        Assert.assertEquals(0, overlay.remove(2, 3));
+
+        Assert.assertEquals(2, frozen.count(1, 1));
+        Assert.assertEquals(1, frozen.count(2, 3));
+        Assert.assertEquals(2, frozen.size());
+        Assert.assertEquals(3, overlay.count(1, 1));
+        Assert.assertEquals(0, overlay.count(2, 3));
+        Assert.assertEquals(2, overlay.size());
+        Assert.assertEquals(4, overlay.getCreatureCount());
+
+        Map<Long, Integer> cells = new HashMap<>();
+        overlay.forEach((x, y, count) -> cells.put(SparseCellIndex.pack(x, y), count));
+        Assert.assertEquals(2, cells.size());
+        Assert.assertEquals(Integer.valueOf(3), cells.get(SparseCellIndex.pack(1, 1)));
+        Assert.assertEquals(Integer.valueOf(1), cells.get(SparseCellIndex.pack(0, 2)));
+
+        int[] found = new int[3];
+        overlay.count(new int[]{1, 2, 0}, new int[]{1, 3, 2}, 3, found);
+        Assert.assertArrayEquals(new int[]{3, 0, 1}, found);
+
+        Assert.assertSame(frozen, overlay.merge());
+        Assert.assertEquals(3, frozen.count(1, 1));
+        Assert.assertEquals(0, frozen.count(2, 3));
+        Assert.assertEquals(1, frozen.count(0, 2));
+        Assert.assertEquals(2, frozen.size());
+        Assert.assertEquals(4, frozen.getCreatureCount());
+    }
+}
@@ -0,0 +1,25 @@
+package com.zombie.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class DenseCellIndexTest extends CellIndexContractTest {
+    @Override
+    protected CellIndex newIndex(int size) {
+        return new DenseCellIndex(size);
+    }
+
+    @Test
+    public void forEach_rowOrder() throws IOException {
+        CellIndex index = createIndex(3);
+        index.add(2, 0, 1);
+        index.add(1, 2, 2);
+
+        StringBuilder visited = new StringBuilder();
+        index.forEach((x, y, count) -> visited.append(x).append(',').append(y).append('=').append(count).append(' '));
+
+        Assert.assertEquals("2,0=1 1,2=2 ", visited.toString());
+    }
+}
@@ -0,0 +1,115 @@
+package com.zombie.data;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+public class MovementProgramTest {
+    private final ByteArrayOutputStream testError = new ByteArrayOutputStream();
+    private final PrintStream systemError = System.err;
+
+    @Before
+    public void redirectError() {
+        System.setErr(new PrintStream(testError));
+    }
+
+    @After
+    public void restoreError() {
+        System.setErr(systemError);
+    }
+
+    @Test
+    public void compile() {
+        MovementProgram program = MovementProgram.compile("DLUURR", 4);
+
+        Assert.assertEquals(6, program.length());
+        Assert.assertEquals(0, program.getInvalidMovements());
+        Assert.assertEquals(1, program.getNetX());
+        Assert.assertEquals(3, program.getNetY());
+    }
+
+    @Test
+    public void positions_wrapAroundEdges() {
+        MovementProgram program = MovementProgram.compile("UULLDR", 3);
+
+        int[][] expected = {{0, 2}, {0, 1}, {2, 1}, {1, 1}, {1, 2}, {2, 2}};
+        for (int step = 0; step < program.length(); step++) {
+            Assert.assertEquals(expected[step][0], program.xAt(0, step));
+            Assert.assertEquals(expected[step][1], program.yAt(0, step));
+        }
+        Assert.assertEquals(2, program.finalX(0));
+        Assert.assertEquals(2, program.finalY(0));
+    }
+
+    @Test
+    public void positions_largestWorld() {
+        int size = Integer.MAX_VALUE;
+        MovementProgram program = MovementProgram.compile("RRRDL", size);
+
+        // the start plus the offset overflows an int from the 3rd step
+        int[] expected = {size - 1, 0, 1, 1, 0};
+        for (int step = 0; step < program.length(); step++) {
+            Assert.assertEquals(expected[step], program.xAt(size - 2, step));
+        }
+        Assert.assertEquals(0, program.finalX(size - 2));
+        Assert.assertEquals(0, program.finalY(size - 1));
+    }
+
+    @Test
+    public void positions_matchCreatureMovements() {
+        String movements = "RRDDDLURDLLLUUUUDR";
+        MovementProgram program = MovementProgram.compile(movements, 5);
+        Creature creature = new Creature(3, 1);
+
+        for (int step = 0; step < movements.length(); step++) {
+            switch (movements.charAt(step)) {
+                case 'U':
+                    creature.moveUp(4);
+                    break;
+                case 'D':
+                    creature.moveDown(4);
+                    break;
+                case 'L':
+                    creature.moveLeft(4);
+                    break;
+                default:
+                    creature.moveRight(4);
+            }
+            Assert.assertEquals(creature.getxPosition(), program.xAt(3, step));
+            Assert.assertEquals(creature.getyPosition(), program.yAt(1, step));
+        }
+    }
+
+    @Test
+    public void lowerCaseMovements() {
+        MovementProgram program = MovementProgram.compile("dr", 3);
+
+        Assert.assertEquals(0, program.getInvalidMovements());
+        Assert.assertEquals(1, program.finalX(0));
+        Assert.assertEquals(1, program.finalY(0));
+    }
+
+    @Test
+    public void invalidMovements_reportedOnce() {
+        MovementProgram program = MovementProgram.compile("XRXXK", 3);
+
+        Assert.assertEquals(5, program.length());
+        Assert.assertEquals(4, program.getInvalidMovements());
+        Assert.assertEquals(1, program.finalX(0));
+        Assert.assertEquals(0, program.finalY(0));
+        Assert.assertThat(testError.toString(),
+                CoreMatchers.containsString("Incorrect zombie movement specified: X (3 times)"));
+        Assert.assertThat(testError.toString(),
+                CoreMatchers.containsString("Incorrect zombie movement specified: K (1 times)"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void of_offsetOutsideGrid() {
+        MovementProgram.of(3, new int[]{1, 3}, new int[]{0, 0}, 0);
+    }
+}
@@ -0,0 +1,76 @@
+package com.zombie.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class OffHeapCellIndexTest extends CellIndexContractTest {
+    @Override
+    protected CellIndex newIndex(int size) {
+        return new OffHeapCellIndex();
+    }
+
+    @Test
+    public void addAndCount_farApart() throws IOException {
+        CellIndex index = createIndex(Integer.MAX_VALUE);
+        index.add(1, 2, 1);
+        index.add(2000000000, 1999999999, 1);
+
+        Assert.assertEquals(1, index.count(1, 2));
+        Assert.assertEquals(1, index.count(2000000000, 1999999999));
+        Assert.assertEquals(0, index.count(1999999999, 2000000000));
+        Assert.assertEquals(2, index.size());
+    }
+
+    @Test
+    public void forEach_visitsEveryCellAfterGrowing() {
+        CellIndex index = new OffHeapCellIndex(4);
+        for (int i = 0; i < 1000; i++) {
+            index.add(i, 1000 - i, i + 1);
+        }
+
+        long[] total = new long[2];
+        index.forEach((x, y, count) -> {
+            Assert.assertEquals(1000 - x, y);
+            Assert.assertEquals(x + 1, count);
+            total[0]++;
+            total[1] += count;
+        });
+        Assert.assertEquals(1000, total[0]);
+        Assert.assertEquals(index.getCreatureCount(), total[1]);
+    }
+
+    @Test
+    public void manySegments() {
+        // 16 slots to a segment, so the table ends up split across hundreds of segments (and probe runs cross them)
+        CellIndex index = new OffHeapCellIndex(0, 4);
+        int size = 60;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                index.add(x, y, y + 1);
+            }
+        }
+        for (int x = 0; x < size; x += 2) {
+            for (int y = 0; y < size; y++) {
+                Assert.assertEquals(y + 1, index.remove(x, y));
+            }
+        }
+
+        long[] total = new long[2];
+        index.forEach((x, y, count) -> {
+            Assert.assertEquals(1, x % 2);
+            Assert.assertEquals(y + 1, count);
+            total[0]++;
+            total[1] += count;
+        });
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                Assert.assertEquals(x % 2 == 0 ? 0 : y + 1, index.count(x, y));
+            }
+        }
+        Assert.assertEquals(size * size / 2, index.size());
+        Assert.assertEquals(size * size / 2, total[0]);
+        Assert.assertEquals(index.getCreatureCount(), total[1]);
+    }
+}
@@ -0,0 +1,25 @@
+package com.zombie.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class SparseCellIndexTest extends CellIndexContractTest {
+    @Override
+    protected CellIndex newIndex(int size) {
+        return new SparseCellIndex();
+    }
+
+    @Test
+    public void addAndCount_farApart() throws IOException {
+        CellIndex index = createIndex(Integer.MAX_VALUE);
+        index.add(1, 2, 1);
+        index.add(2000000000, 1999999999, 1);
+
+        Assert.assertEquals(1, index.count(1, 2));
+        Assert.assertEquals(1, index.count(2000000000, 1999999999));
+        Assert.assertEquals(0, index.count(1999999999, 2000000000));
+        Assert.assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,95 @@
+package com.zombie.data;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class TiledCellIndexTest extends CellIndexContractTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Override
+    protected CellIndex newIndex(int size) throws IOException {
+        // tiles of 32 by 32 cells with only 4 held in memory, so the larger worlds spill to disk
+        return new TiledCellIndex(32, 4, folder.getRoot().toPath());
+    }
+
+    @Test
+    public void addAndCount_farApart() throws IOException {
+        try (TiledCellIndex index = new TiledCellIndex(4, 2, folder.getRoot().toPath())) {
+            index.add(1, 2, 1);
+            index.add(1, 2, 1);
+            index.add(2000000000, 1999999999, 1);
+
+            Assert.assertEquals(2, index.count(1, 2));
+            Assert.assertEquals(1, index.count(2000000000, 1999999999));
+            Assert.assertEquals(0, index.count(2, 1));
+            Assert.assertEquals(0, index.count(500, 500));
+            Assert.assertEquals(2, index.size());
+            Assert.assertEquals(3, index.getCreatureCount());
+        }
+    }
+
+    @Test
+    public void spillAndPageIn() throws IOException {
+        Random random = new Random(11);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        // 64 tiles of 8 by 8 cells with only 3 held in memory, so most lookups page a tile in from the spill file
+        try (TiledCellIndex index = new TiledCellIndex(8, 3, folder.getRoot().toPath())) {
+            for (int i = 0; i < 5000; i++) {
+                int x = random.nextInt(64);
+                int y = random.nextInt(64);
+                if (random.nextInt(4) == 0) {
+                    Integer removed = expected.remove(SparseCellIndex.pack(x, y));
+                    Assert.assertEquals(removed == null ? 0 : removed, index.remove(x, y));
+                } else {
+                    expected.merge(SparseCellIndex.pack(x, y), 1, Integer::sum);
+                    index.add(x, y, 1);
+                }
+            }
+
+            for (int x = 0; x < 64; x++) {
+                for (int y = 0; y < 64; y++) {
+                    Assert.assertEquals((int) expected.getOrDefault(SparseCellIndex.pack(x, y), 0), index.count(x, y));
+                }
+            }
+            Assert.assertEquals(expected.size(), index.size());
+            Assert.assertEquals(expected.values().stream().mapToLong(Integer::longValue).sum(),
+                    index.getCreatureCount());
+            Assert.assertTrue(index.getTilesWritten() > 0);
+            Assert.assertTrue(index.getTilesRead() > 0);
+
+            Map<Long, Integer> visited = new HashMap<>();
+            index.forEach((x, y, count) -> Assert.assertNull(visited.put(SparseCellIndex.pack(x, y), count)));
+            Assert.assertEquals(expected, visited);
+        }
+    }
+
+    @Test
+    public void emptyTilesAreDropped() throws IOException {
+        try (TiledCellIndex index = new TiledCellIndex(4, 1, folder.getRoot().toPath())) {
+            index.add(0, 0, 2);
+            index.add(10, 10, 1); // evicts the first tile to the spill file
+            Assert.assertEquals(2, index.remove(0, 0));
+            index.add(20, 20, 1); // the first tile is now empty so gives up its slot
+            index.add(30, 30, 1);
+
+            Assert.assertEquals(0, index.count(0, 0));
+            Assert.assertEquals(1, index.count(10, 10));
+            Assert.assertEquals(1, index.count(20, 20));
+            Assert.assertEquals(3, index.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tileSizeNotPowerOfTwo() throws IOException {
+        new TiledCellIndex(100, 1, folder.getRoot().toPath());
+    }
+}
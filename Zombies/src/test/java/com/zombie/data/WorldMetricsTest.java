@@ -0,0 +1,65 @@
+package com.zombie.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+public class WorldMetricsTest {
+    @Test
+    public void counters() {
+        World world = new World(4);
+        world.getCreatures().add(1, 1, 3);
+        world.getCreatures().add(2, 2, 1);
+        WorldMetrics metrics = world.getMetrics();
+
+        world.infect(1, 1);
+        metrics.addSteps(10);
+        metrics.addSteps(5);
+
+        Assert.assertEquals(15, metrics.getStepsProcessed());
+        Assert.assertEquals(3, metrics.getInfections());
+        Assert.assertEquals(3, metrics.getActiveZombies());
+        Assert.assertEquals(0, metrics.getFinishedZombies());
+        Assert.assertEquals(1, metrics.getCreaturesRemaining());
+        Assert.assertEquals(3, metrics.getScore());
+    }
+
+    @Test
+    public void phaseTimes() {
+        WorldMetrics metrics = new World(4).getMetrics();
+
+        metrics.addPhaseTime(WorldMetrics.Phase.READ, 3_000_000);
+        metrics.addPhaseTime(WorldMetrics.Phase.READ, 2_000_000);
+        metrics.addPhaseTime(WorldMetrics.Phase.RENDER, 7_000_000);
+        metrics.startSimulation();
+        metrics.addSteps(100);
+        metrics.endSimulation();
+
+        Assert.assertEquals(5, metrics.getReadMillis());
+        Assert.assertEquals(7, metrics.getRenderMillis());
+        Assert.assertEquals(0, metrics.getValidateMillis());
+        Assert.assertTrue(metrics.getPhaseNanos(WorldMetrics.Phase.SIMULATE) > 0);
+        Assert.assertTrue(metrics.getStepsPerSecond() > 0);
+    }
+
+    @Test
+    public void register() throws JMException {
+        World world = new World(4);
+        world.addScore(6);
+        WorldMetrics metrics = world.getMetrics();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        metrics.register();
+        ObjectName name = metrics.getName();
+        Assert.assertTrue(server.isRegistered(name));
+        Assert.assertEquals(6, server.getAttribute(name, "Score"));
+
+        metrics.unregister();
+        Assert.assertFalse(server.isRegistered(name));
+        Assert.assertNull(metrics.getName());
+    }
+}
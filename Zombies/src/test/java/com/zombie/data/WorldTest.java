@@ -1,11 +1,18 @@
 package com.zombie.data;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
-import java.util.stream.Collectors;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 public class WorldTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void addScore() {
         World world = new World(2);
@@ -30,6 +37,151 @@ public class WorldTest {
         Assert.assertTrue(world.isActiveZombies());
     }
 
+    @Test
+    public void infect() {
+        World world = new World(3);
+        world.getCreatures().add(1, 2, 2);
+
+        Assert.assertEquals(0, world.infect(2, 1));
+        Assert.assertEquals(2, world.infect(1, 2));
+        Assert.assertEquals(0, world.infect(1, 2));
+
+        Assert.assertEquals(2, world.getScore());
+        Assert.assertEquals(2, world.getActiveZombies().size());
+        Assert.assertEquals(0, world.getCreatures().size());
+    }
+
+    @Test
+    public void freezeCreatures() {
+        World world = new World(3);
+        world.getCreatures().add(1, 2, 2);
+        world.getCreatures().add(0, 1, 1);
+
+        CellIndex frozen = world.freezeCreatures();
+        Assert.assertEquals(2, world.infect(1, 2));
+        world.addCreatures(new int[]{2, 2, 0, 1}, 4);
+        Assert.assertEquals(2, frozen.count(1, 2));
+        Assert.assertEquals(0, frozen.count(2, 2));
+        Assert.assertEquals(1, frozen.count(0, 1));
+        Assert.assertEquals(0, world.getCreatures().count(1, 2));
+        Assert.assertEquals(2, world.getCreatures().count(0, 1));
+        Assert.assertEquals(3, world.query().getCreaturesRemaining());
+
+        world.thawCreatures();
+        Assert.assertSame(frozen, world.getCreatures());
+        Assert.assertEquals(0, frozen.count(1, 2));
+        Assert.assertEquals(1, frozen.count(2, 2));
+        Assert.assertEquals(2, frozen.count(0, 1));
+        Assert.assertEquals(2, frozen.size());
+        Assert.assertEquals(3, frozen.getCreatureCount());
+    }
+
+    @Test
+    public void finishZombiesIfNoCreatures() {
+        World world = new World(3);
+        world.getActiveZombies().add(0, 0);
+        world.getActiveZombies().add(2, 2);
+        world.getCreatures().add(1, 1, 1);
+        world.setZombieMovements("LLU");
+
+        Assert.assertFalse(world.finishZombiesIfNoCreatures());
+        Assert.assertEquals(2, world.getActiveZombies().size());
+
+        world.infect(1, 1);
+        world.getActiveZombies().removeFirst();
+        Assert.assertTrue(world.finishZombiesIfNoCreatures());
+        Assert.assertFalse(world.isActiveZombies());
+        Assert.assertEquals("(0, 1) (2, 0)", world.getZombiePositions());
+    }
+
+    @Test
+    public void query() {
+        World world = new World(3);
+        world.getActiveZombies().add(0, 0);
+        world.getCreatures().add(1, 2, 2);
+        world.getCreatures().add(2, 2, 1);
+
+        WorldStatus before = world.query();
+        Assert.assertEquals(0, before.getScore());
+        Assert.assertEquals(1, before.getActiveZombies());
+        Assert.assertEquals(3, before.getCreaturesRemaining());
+
+        world.finishZombiesIfNoCreatures();
+        world.getActiveZombies().removeFirst(); // the zombie sets off
+        world.infect(1, 2);
+        world.addCreatures(new int[]{0, 1, 0, 1}, 4);
+
+        WorldStatus after = world.query();
+        Assert.assertTrue(after.getVersion() > before.getVersion());
+        Assert.assertEquals(2, after.getScore());
+        // the zombie that is moving is still active, along with the two it bit
+        Assert.assertEquals(3, after.getActiveZombies());
+        Assert.assertEquals(0, after.getFinishedZombies());
+        Assert.assertEquals(3, after.getCreaturesRemaining());
+        Assert.assertEquals(0, world.queryCreaturesAt(1, 2));
+        Assert.assertEquals(2, world.queryCreaturesAt(0, 1));
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void queryCreaturesAt_failureNotRetried() {
+        // nothing is changing the world, so the query fails straight away rather than trying again for ever
+        new World(3, new DenseCellIndex(3)).queryCreaturesAt(3, 3);
+    }
+
+    @Test
+    public void creatureIndexSelection() throws IOException {
+        Assert.assertTrue(new World(4).getCreatures() instanceof DenseCellIndex);
+        Assert.assertTrue(new World(1000000, 10).getCreatures() instanceof SparseCellIndex);
+
+        // more creatures than would fit in the heap
+        try (World world = new World(1000000, Runtime.getRuntime().maxMemory())) {
+            Assert.assertTrue(world.getCreatures() instanceof TiledCellIndex);
+        }
+    }
+
+    @Test
+    public void close() throws IOException {
+        World world = new World(64, new TiledCellIndex(4, 1, folder.getRoot().toPath()));
+        world.getCreatures().add(1, 1, 1);
+        world.getCreatures().add(60, 60, 1);
+        world.getFinishedZombies().add(createCreature(2, 3));
+
+        world.close();
+
+        // the spill file is deleted once the index is closed, so tiles can no longer be spilled to it
+        Assert.assertEquals(0, folder.getRoot().list().length);
+        Assert.assertEquals("(2, 3)", world.getZombiePositions());
+        try {
+            world.getCreatures().add(1, 1, 1);
+            world.getCreatures().add(60, 60, 1);
+            Assert.fail("The closed spill file was written to");
+        } catch (UncheckedIOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void close_releasesResources() throws IOException {
+        World world = new World(2);
+        StringBuilder closed = new StringBuilder();
+        world.addResource(() -> closed.append("first "));
+        world.addResource(() -> {
+            closed.append("second ");
+            throw new IOException("already gone");
+        });
+
+        try {
+            world.close();
+            Assert.fail("The failure to close a resource was not passed on");
+        } catch (IOException e) {
+            Assert.assertEquals("already gone", e.getMessage());
+        }
+        Assert.assertEquals("second first ", closed.toString());
+
+        world.close();
+        Assert.assertEquals("second first ", closed.toString());
+    }
+
     @Test
     public void getZombiePositions() {
         World world = new World(2);
@@ -45,6 +197,28 @@ public class WorldTest {
         Assert.assertEquals("(0, 0) (0, 0) (1, 0) (1, 0) (0, 1) (0, 1) (1, 1)", world.getZombiePositions());
     }
 
+    @Test
+    public void writeZombiePositions() throws IOException {
+        World world = new World(5);
+        for (int i = 0; i < 10000; i++) {
+            world.getFinishedZombies().add(createCreature(i % 5, i % 3));
+        }
+        world.getFinishedZombies().add(createCreature(Integer.MAX_VALUE, 1234567890));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        world.writeZombiePositions(output);
+
+        Assert.assertEquals(world.getZombiePositions(), output.toString("UTF-8"));
+    }
+
+    @Test
+    public void writeZombiePositions_noZombies() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new World(3).writeZombiePositions(output);
+
+        Assert.assertEquals("", output.toString("UTF-8"));
+    }
+
     private Creature createCreature(int x, int y) {
         Creature creature = new Creature();
         creature.setxPosition(x);
@@ -0,0 +1,84 @@
+package com.zombie.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class ZombieQueueTest {
+    @Test
+    public void addAndRemoveFirst() {
+        ZombieQueue queue = new ZombieQueue();
+        queue.add(1, 2);
+        queue.add(new Creature(3, 4));
+
+        Assert.assertEquals(2, queue.size());
+        Assert.assertEquals(1, queue.firstX());
+        Assert.assertEquals(2, queue.firstY());
+
+        queue.removeFirst();
+        Assert.assertEquals(1, queue.size());
+        Assert.assertEquals(3, queue.firstX());
+        Assert.assertEquals(4, queue.asCreatures().get(0).getyPosition());
+    }
+
+    @Test
+    public void wrapAndGrow() {
+        ZombieQueue queue = new ZombieQueue();
+        int next = 0;
+        int first = 0;
+        // keep the head moving around the ring while it grows, so it is unwrapped in different places
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 3; i++) {
+                queue.add(next, -next);
+                next++;
+            }
+            queue.removeFirst();
+            first++;
+        }
+
+        Assert.assertEquals(next - first, queue.size());
+        for (int i = 0; i < queue.size(); i++) {
+            Assert.assertEquals(first + i, queue.getX(i));
+            Assert.assertEquals(-(first + i), queue.getY(i));
+        }
+    }
+
+    @Test
+    public void creaturesAreCopies() {
+        ZombieQueue queue = new ZombieQueue();
+        queue.add(1, 1);
+        List<Creature> creatures = queue.asCreatures();
+        creatures.get(0).setxPosition(5);
+        Assert.assertEquals(1, queue.getX(0));
+
+        // the view follows the queue
+        queue.set(0, 5, 6);
+        queue.add(7, 8);
+        Assert.assertEquals("(5, 6)", creatures.get(0).getPosition());
+        Assert.assertEquals(2, creatures.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void creaturesAreReadOnly() {
+        new ZombieQueue().asCreatures().add(new Creature(1, 1));
+    }
+
+    @Test
+    public void removeFromMiddle() {
+        ZombieQueue queue = new ZombieQueue();
+        for (int i = 0; i < 5; i++) {
+            queue.add(i, i);
+        }
+        queue.remove(2);
+        Assert.assertEquals(4, queue.size());
+        Assert.assertEquals(1, queue.getX(1));
+        Assert.assertEquals(3, queue.getX(2));
+        Assert.assertEquals(4, queue.getX(3));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void removeFirst_empty() {
+        new ZombieQueue().removeFirst();
+    }
+}
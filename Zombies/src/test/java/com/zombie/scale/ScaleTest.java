@@ -0,0 +1,239 @@
+package com.zombie.scale;
+
+import com.zombie.data.World;
+import com.zombie.service.LockstepZombieServiceImpl;
+import com.zombie.service.WorldGenerator;
+import com.zombie.service.ZombieService;
+import com.zombie.service.ZombieServiceImpl;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Runs the engines on large generated worlds and fails if the wall time, peak heap or allocation per (thousand) steps
+ * of a run is more than the tolerance (1.5 times by default, or {@code -Dzombie.scale.tolerance=<factor>}) over its
+ * recorded baseline, and also more than a fixed amount over it (so a small baseline does not fail on noise).
+ * <p>
+ * Each world is simulated once to warm up the JIT, and then a few more times ({@code -Dzombie.scale.runs=<count>}),
+ * keeping the best of each measurement. The allocation is counted across every thread that is alive at the end of the
+ * run, so an engine working on pooled threads is counted in full (a thread that starts and ends within the run would
+ * not be).
+ * <p>
+ * The suite only runs with the scale profile ({@code mvn -Pscale test}). The baselines depend on the machine, so run
+ * {@code mvn -Pscale test -Dzombie.scale.record=true} to record them again (into
+ * {@code -Dzombie.scale.baselines=<file>} or the file in the test resources).
+ */
+@RunWith(Parameterized.class)
+public class ScaleTest {
+    private static final String BASELINES = System.getProperty("zombie.scale.baselines",
+            "src/test/resources/scale/baselines.properties");
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("zombie.scale.tolerance", "1.5"));
+    private static final boolean RECORD = Boolean.getBoolean("zombie.scale.record");
+    private static final int RUNS = Math.max(1, Integer.getInteger("zombie.scale.runs", 3));
+    /**
+     * The least each measurement may go over its baseline before it fails, whatever the tolerance
+     */
+    private static final Map<String, Long> FLOORS = new TreeMap<>();
+
+    static {
+        FLOORS.put("wallMillis", 100L);
+        FLOORS.put("peakHeapMegabytes", 32L);
+        FLOORS.put("bytesPerThousandSteps", 256L);
+    }
+
+    /**
+     * The measurements of this run, written out as the new baselines when recording
+     */
+    private static final Properties measured = new Properties();
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private final String scenario;
+    private final WorldGenerator generator;
+    private final String engine;
+    private final ZombieService service;
+
+    public ScaleTest(String scenario, WorldGenerator generator, String engine, ZombieService service) {
+        this.scenario = scenario;
+        this.generator = generator;
+        this.engine = engine;
+        this.service = service;
+    }
+
+    @Parameterized.Parameters(name = "{0} ({2})")
+    public static Collection<Object[]> scenarios() {
+        Object[][] worlds = {
+                {"uniform", new WorldGenerator(2000, 1000000, WorldGenerator.Distribution.UNIFORM, 1000, 4, 1)},
+                {"clustered", new WorldGenerator(5000, 500000, WorldGenerator.Distribution.CLUSTERED, 1000, 4, 2)},
+                {"dense-rows", new WorldGenerator(3000, 300000, WorldGenerator.Distribution.DENSE_ROWS, 5000, 2, 3)}
+        };
+        Object[][] engines = {
+                {"sequential", ZombieServiceImpl.getService()},
+                {"lockstep", LockstepZombieServiceImpl.getService()}
+        };
+
+        List<Object[]> parameters = new ArrayList<>();
+        for (Object[] world : worlds) {
+            for (Object[] engine : engines) {
+                parameters.add(new Object[]{world[0], world[1], engine[0], engine[1]});
+            }
+        }
+        return parameters;
+    }
+
+    @Test
+    public void simulate() throws IOException {
+        Path input = folder.getRoot().toPath().resolve(scenario + ".txt");
+        if (!Files.exists(input)) {
+            generator.write(input);
+        }
+
+        run(input); // warm up
+        long[] best = run(input);
+        for (int i = 1; i < RUNS; i++) {
+            long[] measurements = run(input);
+            for (int metric = 0; metric < best.length; metric++) {
+                best[metric] = Math.min(best[metric], measurements[metric]);
+            }
+        }
+
+        check("wallMillis", best[0]);
+        check("peakHeapMegabytes", best[1]);
+        if (best[2] >= 0) {
+            check("bytesPerThousandSteps", best[2]);
+        }
+    }
+
+    /**
+     * Simulate a fresh world from the input
+     *
+     * @return the wall time in milliseconds, the peak heap in megabytes and the bytes allocated per thousand steps (or
+     * -1 if the JVM does not count them)
+     */
+    private long[] run(Path input) throws IOException {
+        try (World world = service.createWorld(new String[]{input.toString()})) {
+            Assert.assertNotNull(world);
+            return measure(world);
+        }
+    }
+
+    private long[] measure(World world) {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        Map<Long, Long> allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+
+        service.simulate(world);
+
+        long wallMillis = (System.nanoTime() - start) / 1000000;
+        long allocated = 0;
+        if (allocatedBefore != null) {
+            for (Map.Entry<Long, Long> thread : allocatedBytes().entrySet()) {
+                allocated += thread.getValue() - allocatedBefore.getOrDefault(thread.getKey(), 0L);
+            }
+        }
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        long steps = Math.max(1, world.getMetrics().getStepsProcessed());
+        Assert.assertFalse(world.isActiveZombies());
+
+        return new long[]{wallMillis, peakHeap >> 20, allocatedBefore != null ? allocated * 1000 / steps : -1};
+    }
+
+    @AfterClass
+    public static void recordBaselines() throws IOException {
+        if (RECORD) {
+            Path file = Paths.get(BASELINES);
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            // write the baselines in order, so recording them again gives a readable diff
+            List<String> lines = new ArrayList<>();
+            lines.add("# Scale test baselines - recorded with mvn -Pscale test -Dzombie.scale.record=true");
+            for (Map.Entry<Object, Object> baseline : new TreeMap<>(measured).entrySet()) {
+                lines.add(baseline.getKey() + "=" + baseline.getValue());
+            }
+            Files.write(file, lines, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Compare a measurement with its baseline (or just note it, when recording)
+     */
+    private void check(String metric, long value) throws IOException {
+        String key = scenario + "." + engine + "." + metric;
+        measured.setProperty(key, Long.toString(value));
+        if (RECORD) {
+            return;
+        }
+
+        String baseline = loadBaselines().getProperty(key);
+        Assert.assertNotNull("There is no baseline for " + key + " in " + BASELINES +
+                " - record one with -Dzombie.scale.record=true", baseline);
+        long limit = Math.max((long) Math.ceil(Long.parseLong(baseline) * TOLERANCE),
+                Long.parseLong(baseline) + FLOORS.get(metric));
+        Assert.assertTrue(key + " was " + value + " but the baseline is " + baseline + " (limit " + limit + ")",
+                value <= limit);
+    }
+
+    private static Properties loadBaselines() throws IOException {
+        Properties baselines = new Properties();
+        Path file = Paths.get(BASELINES);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                baselines.load(in);
+            }
+        }
+        return baselines;
+    }
+
+    /**
+     * @return the bytes allocated so far by each live thread (keyed by its id), or null if the JVM does not count them
+     */
+    private static Map<Long, Long> allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(ids);
+        Map<Long, Long> byThread = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            // a thread that has ended since its id was taken is given as -1
+            if (allocated[i] >= 0) {
+                byThread.put(ids[i], allocated[i]);
+            }
+        }
+        return byThread;
+    }
+}
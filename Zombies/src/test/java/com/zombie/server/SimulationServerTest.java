@@ -0,0 +1,181 @@
+package com.zombie.server;
+
+import com.zombie.data.World;
+import com.zombie.service.ResultCache;
+import com.zombie.service.ZombieService;
+import com.zombie.service.ZombieServiceImpl;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SimulationServerTest {
+    private static final String INPUT = "4\n(2,1)\n(0,1)(1,2)(3,1)\nDLUURR";
+
+    @Test
+    public void simulate() throws IOException {
+        try (SimulationServer server = new SimulationServer(ZombieServiceImpl.getService(), 0, 2)) {
+            server.start();
+
+            for (int i = 0; i < 3; i++) {
+                Response response = post(server, "POST", INPUT);
+                Assert.assertEquals(200, response.status);
+                Assert.assertEquals("zombies score: 3\nzombies positions: (3, 0) (2, 1) (1, 0) (0, 0)\n",
+                        response.body);
+            }
+        }
+    }
+
+    @Test
+    public void simulate_cached() throws IOException {
+        AtomicInteger moves = new AtomicInteger();
+        ZombieService counting = new ZombieService() {
+            @Override
+            public World createWorld(String[] args) {
+                return null;
+            }
+
+            @Override
+            public World createWorld(InputStream input) {
+                return null;
+            }
+
+            @Override
+            public void monitorZombie(World world) {
+                moves.incrementAndGet();
+                ZombieServiceImpl.getService().monitorZombie(world);
+            }
+        };
+
+        try (SimulationServer server = new SimulationServer(counting, 0, 2, new ResultCache(1024 * 1024))) {
+            server.start();
+
+            Response response = post(server, "POST", INPUT);
+            Assert.assertEquals(200, response.status);
+            Assert.assertEquals(4, moves.get());
+
+            Assert.assertEquals(response.body, post(server, "POST", INPUT).body);
+            // the same world laid out differently
+            Assert.assertEquals(response.body, post(server, "POST", "4\r\n(2, 1)\r\n(3,1)(1,2)(0,1)\r\nDLUURR").body);
+            Assert.assertEquals(4, moves.get());
+
+            // the errors in an invalid world are still reported
+            Assert.assertEquals(400, post(server, "POST", "4\n(2,1)\n(0,1)(7,2)\nDLUURR").status);
+        }
+    }
+
+    @Test
+    public void simulate_invalidWorld() throws IOException {
+        try (SimulationServer server = new SimulationServer(ZombieServiceImpl.getService(), 0, 2)) {
+            server.start();
+
+            Response response = post(server, "POST", "4\n(2,1)\n(0,1)(7,2)\nDLUURR");
+            Assert.assertEquals(400, response.status);
+            Assert.assertThat(response.body, CoreMatchers.containsString(
+                    "line 3, column 6: One of the position co-ordinates is outside the grid: 7,2"));
+        }
+    }
+
+    @Test
+    public void simulate_tooLarge() throws IOException {
+        try (SimulationServer server = new SimulationServer(ZombieServiceImpl.getService(), 0, 2, null, 10)) {
+            server.start();
+            Assert.assertEquals(413, post(server, "POST", INPUT).status);
+        }
+    }
+
+    @Test
+    public void methodNotAllowed() throws IOException {
+        try (SimulationServer server = new SimulationServer(ZombieServiceImpl.getService(), 0, 2)) {
+            server.start();
+            Assert.assertEquals(405, post(server, "GET", null).status);
+        }
+    }
+
+    @Test
+    public void tooManyWorlds() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ZombieService slow = new ZombieService() {
+            @Override
+            public World createWorld(String[] args) {
+                return null;
+            }
+
+            @Override
+            public World createWorld(InputStream input) {
+                return null;
+            }
+
+            @Override
+            public void monitorZombie(World world) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                ZombieServiceImpl.getService().monitorZombie(world);
+            }
+        };
+
+        try (SimulationServer server = new SimulationServer(slow, 0, 1)) {
+            server.start();
+            Response[] first = new Response[1];
+            Thread client = new Thread(() -> {
+                try {
+                    first[0] = post(server, "POST", INPUT);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            client.start();
+            Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            Assert.assertEquals(503, post(server, "POST", INPUT).status);
+
+            release.countDown();
+            client.join(10000);
+            Assert.assertEquals(200, first[0].status);
+        }
+    }
+
+    private static Response post(SimulationServer server, String method, String body) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getPort() + SimulationServer.PATH);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        Response response = new Response();
+        response.status = connection.getResponseCode();
+        InputStream input = response.status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read; (read = input.read(buffer)) >= 0; ) {
+            text.write(buffer, 0, read);
+        }
+        input.close();
+        response.body = new String(text.toByteArray(), StandardCharsets.UTF_8);
+        return response;
+    }
+
+    private static class Response {
+        private int status;
+        private String body;
+    }
+}
@@ -0,0 +1,140 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncZombieServiceTest {
+    private static final String INPUT = "4\n(2,1)\n(0,1)(1,2)(3,1)\nDLUURR";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AsyncZombieService async = new AsyncZombieService(ZombieServiceImpl.getService());
+
+    @After
+    public void close() {
+        async.close();
+    }
+
+    @Test
+    public void createWorldAndSimulate() throws Exception {
+        World world = async.createWorld(toStream(INPUT)).get(10, TimeUnit.SECONDS);
+        WorldResult result = async.simulate("input", world).get(10, TimeUnit.SECONDS);
+
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertEquals(3, result.getScore());
+        Assert.assertEquals("(3, 0) (2, 1) (1, 0) (0, 0)", result.getPositions());
+    }
+
+    @Test
+    public void run() throws Exception {
+        File input = folder.newFile("input.txt");
+        Files.write(input.toPath(), INPUT.getBytes(StandardCharsets.UTF_8));
+
+        WorldResult result = async.run(input.getPath(), 10, TimeUnit.SECONDS).get();
+        Assert.assertEquals(3, result.getScore());
+    }
+
+    @Test
+    public void run_invalidWorld() throws Exception {
+        File input = folder.newFile("input.txt");
+        Files.write(input.toPath(), "4\n(2,1)\n".getBytes(StandardCharsets.UTF_8));
+
+        WorldResult result = async.run(input.getPath(), 10, TimeUnit.SECONDS).get();
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertEquals("The zombie world could not be set up...", result.getError());
+    }
+
+    @Test
+    public void simulate_timesOutAndStops() throws Exception {
+        SlowService slow = new SlowService();
+        try (AsyncZombieService slowAsync = new AsyncZombieService(slow)) {
+            World world = slowAsync.createWorld(toStream(INPUT)).get(10, TimeUnit.SECONDS);
+            try {
+                slowAsync.simulate("input", world, 50, TimeUnit.MILLISECONDS).get();
+                Assert.fail("The simulation should have timed out");
+            } catch (ExecutionException e) {
+                Assert.assertThat(e.getCause(), CoreMatchers.instanceOf(TimeoutException.class));
+            }
+
+            slow.release.countDown();
+            Thread.sleep(100);
+            // the zombie that was moving finishes, but no more zombies are moved
+            Assert.assertEquals(1, slow.moves.get());
+            Assert.assertEquals(1, world.getFinishedZombies().size());
+        }
+    }
+
+    @Test
+    public void simulate_cancelled() throws Exception {
+        SlowService slow = new SlowService();
+        try (AsyncZombieService slowAsync = new AsyncZombieService(slow)) {
+            World world = slowAsync.createWorld(toStream(INPUT)).get(10, TimeUnit.SECONDS);
+            CompletableFuture<WorldResult> result = slowAsync.simulate("input", world);
+            slow.started.await(10, TimeUnit.SECONDS);
+
+            Assert.assertTrue(result.cancel(true));
+            slow.release.countDown();
+            try {
+                result.get();
+                Assert.fail("The simulation should have been cancelled");
+            } catch (CancellationException e) {
+                Thread.sleep(100);
+                Assert.assertEquals(1, slow.moves.get());
+            }
+        }
+    }
+
+    private InputStream toStream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A zombie service that holds up the first zombie until it is released
+     */
+    private static class SlowService implements ZombieService {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger moves = new AtomicInteger();
+
+        @Override
+        public World createWorld(String[] args) {
+            return ZombieServiceImpl.getService().createWorld(args);
+        }
+
+        @Override
+        public World createWorld(InputStream input) {
+            return ZombieServiceImpl.getService().createWorld(input);
+        }
+
+        @Override
+        public void monitorZombie(World world) {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            moves.incrementAndGet();
+            ZombieServiceImpl.getService().monitorZombie(world);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class BandedZombieServiceTest {
+    @Test
+    public void monitorZombie_movesWholeGeneration() {
+        World world = new World(4);
+        world.getActiveZombies().add(2, 1);
+        world.getActiveZombies().add(0, 0);
+        world.getCreatures().add(0, 1, 1);
+        world.getCreatures().add(1, 2, 1);
+        world.getCreatures().add(3, 1, 1);
+        world.setZombieMovements("DLUURR");
+
+        new BandedZombieServiceImpl(ForkJoinPool.commonPool(), 2).monitorZombie(world);
+
+        Assert.assertEquals(2, world.getFinishedZombies().size());
+        Assert.assertEquals(3, world.getActiveZombies().size());
+        Assert.assertEquals(3, world.getScore());
+    }
+
+    @Test
+    public void simulate_sameResultAsSequential() {
+        // a single helper thread is enough to finish the walks of every band
+        EngineEquivalence.assertSameAsSequential(17, 20, 16,
+                run -> new BandedZombieServiceImpl(new ForkJoinPool(1 + run % 4), 1 + run % 8));
+    }
+
+    @Test
+    public void simulate_manyWalksPerBand() {
+        // enough hand offs that each band's queue of walks runs over several chunks
+        String movements = EngineEquivalence.randomMovements(new Random(7), 200);
+        World expected = EngineEquivalence.createWorld(300, 3000, 40000, movements, 13);
+        World actual = EngineEquivalence.createWorld(300, 3000, 40000, movements, 13);
+
+        ZombieServiceImpl.getService().simulate(expected);
+        new BandedZombieServiceImpl(new ForkJoinPool(4), 4).simulate(actual);
+
+        EngineEquivalence.assertSameResult(expected, actual);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parallelism_notPositive() {
+        new BandedZombieServiceImpl(ForkJoinPool.commonPool(), 0);
+    }
+}
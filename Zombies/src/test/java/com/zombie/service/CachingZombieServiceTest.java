@@ -0,0 +1,101 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CachingZombieServiceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger worldsCreated = new AtomicInteger();
+    private final AtomicInteger worldsSimulated = new AtomicInteger();
+    private final ZombieService counting = new ZombieService() {
+        @Override
+        public World createWorld(String[] args) {
+            worldsCreated.incrementAndGet();
+            return ZombieServiceImpl.getService().createWorld(args);
+        }
+
+        @Override
+        public World createWorld(InputStream input) {
+            worldsCreated.incrementAndGet();
+            return ZombieServiceImpl.getService().createWorld(input);
+        }
+
+        @Override
+        public void monitorZombie(World world) {
+            ZombieServiceImpl.getService().monitorZombie(world);
+        }
+
+        @Override
+        public void simulate(World world) {
+            worldsSimulated.incrementAndGet();
+            ZombieService.super.simulate(world);
+        }
+    };
+    private final CachingZombieService service = new CachingZombieService(counting, new ResultCache(1024 * 1024));
+
+    @Test
+    public void simulateStreams_repeatedWorlds() throws InterruptedException {
+        String input = "4\n(2,1)\n(0,1)(1,2)(3,1)\nDLUURR";
+        String sameWorld = "4\r\n(2,1)\r\n(3,1) (1,2) (0,1)\r\nDLUURR\r\n";
+        List<WorldResult> results = new ArrayList<>();
+        service.simulateStreams(Arrays.asList(toStream(input), toStream(input), toStream(sameWorld)), 1, results::add);
+
+        Assert.assertEquals(3, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Assert.assertEquals("stream-" + i, results.get(i).getSource());
+            Assert.assertEquals(3, results.get(i).getScore());
+            Assert.assertEquals("(3, 0) (2, 1) (1, 0) (0, 0)", results.get(i).getPositions());
+        }
+        // the repeated input is not even set up, and the same world set up from a different layout is not simulated
+        Assert.assertEquals(2, worldsCreated.get());
+        Assert.assertEquals(1, worldsSimulated.get());
+    }
+
+    @Test
+    public void simulateBatch_answeredFromCache() throws IOException, InterruptedException {
+        File input = folder.newFile("input.txt");
+        Files.write(input.toPath(), "4\n(2,1)\n(0,1)(1,2)(3,1)\nDLUURR".getBytes(StandardCharsets.UTF_8));
+        List<String> paths = Collections.singletonList(input.getPath());
+
+        List<WorldResult> results = new ArrayList<>();
+        service.simulateBatch(paths, 1, results::add);
+        service.simulateBatch(paths, 1, results::add);
+
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(3, results.get(1).getScore());
+        Assert.assertEquals(input.getPath(), results.get(1).getSource());
+        Assert.assertEquals(1, worldsCreated.get());
+    }
+
+    @Test
+    public void simulateBatch_missingFile() throws InterruptedException {
+        List<WorldResult> results = new ArrayList<>();
+        service.simulateBatch(Collections.singletonList(new File(folder.getRoot(), "missing.txt").getPath()), 1,
+                results::add);
+
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals("The zombie world could not be set up...", results.get(0).getError());
+        Assert.assertEquals(0, worldsCreated.get());
+    }
+
+    private static InputStream toStream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+}
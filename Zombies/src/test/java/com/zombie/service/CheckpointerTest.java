@@ -0,0 +1,153 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class CheckpointerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ZombieService service = ZombieServiceImpl.getService();
+
+    @Test
+    public void resumeFromCheckpoint_sameResult() throws Exception {
+        String input = randomInput(new Random(7), 30, 600, 25);
+        World expected = service.createWorld(toStream(input));
+        service.simulate(expected);
+
+        Path file = folder.getRoot().toPath().resolve("world.checkpoint");
+        World world = service.createWorld(toStream(input));
+        try (Checkpointer checkpointer = new Checkpointer(file, 1, TimeUnit.DAYS)) {
+            // move some of the zombies, then checkpoint and abandon the world (as if the process died)
+            for (int i = 0; i < 40 && world.isActiveZombies(); i++) {
+                service.monitorZombie(world);
+            }
+            checkpointer.checkpoint(world).get();
+            service.monitorZombie(world);
+        }
+
+        World resumed = service.createWorld(new String[]{file.toString()});
+        service.simulate(resumed);
+
+        Assert.assertEquals(expected.getScore(), resumed.getScore());
+        Assert.assertEquals(expected.getZombiePositions(), resumed.getZombiePositions());
+    }
+
+    @Test
+    public void checkpointIfDue() throws InterruptedException, ExecutionException {
+        Path file = folder.getRoot().toPath().resolve("world.checkpoint");
+        World world = service.createWorld(new String[0]);
+
+        try (Checkpointer checkpointer = new Checkpointer(file, 0, TimeUnit.SECONDS)) {
+            service.simulate(world, checkpointer);
+        }
+
+        Assert.assertTrue(Files.exists(file));
+        Assert.assertFalse(Files.exists(file.resolveSibling("world.checkpoint.tmp")));
+        // a checkpoint is skipped while the previous one is still being written, so it may be from part way through
+        World checkpointed = service.createWorld(new String[]{file.toString()});
+        Assert.assertNotNull(checkpointed);
+        Assert.assertTrue(checkpointed.getScore() <= 3);
+    }
+
+    @Test
+    public void checkpoint_worldMovesWhileWritten() throws Exception {
+        String input = randomInput(new Random(5), 40, 1000, 30);
+        World expected = service.createWorld(toStream(input));
+        service.simulate(expected);
+
+        Path file = folder.getRoot().toPath().resolve("world.checkpoint");
+        World world = service.createWorld(toStream(input));
+        World checkpointed;
+        try (Checkpointer checkpointer = new Checkpointer(file, 1, TimeUnit.DAYS)) {
+            for (int i = 0; i < 20 && world.isActiveZombies(); i++) {
+                service.monitorZombie(world);
+            }
+            int score = world.getScore();
+            long creatures = world.getCreatures().getCreatureCount();
+            Future<?> written = checkpointer.checkpoint(world);
+            // the zombies keep moving (against the changes kept aside) while the creatures are written out
+            for (int i = 0; i < 20 && world.isActiveZombies(); i++) {
+                service.monitorZombie(world);
+            }
+            written.get();
+
+            checkpointed = service.createWorld(new String[]{file.toString()});
+            Assert.assertEquals(score, checkpointed.getScore());
+            Assert.assertEquals(creatures, checkpointed.getCreatures().getCreatureCount());
+            service.simulate(world, checkpointer);
+        }
+
+        service.simulate(checkpointed);
+        Assert.assertEquals(expected.getScore(), world.getScore());
+        Assert.assertEquals(expected.getZombiePositions(), world.getZombiePositions());
+        Assert.assertEquals(expected.getZombiePositions(), checkpointed.getZombiePositions());
+    }
+
+    @Test
+    public void checkpoint_failedWriteRemovesTemporaryFile() throws Exception {
+        // the checkpoint can not be moved over a directory that is not empty
+        Path file = folder.newFolder("world.checkpoint").toPath();
+        Files.createFile(file.resolve("blocker"));
+
+        try (Checkpointer checkpointer = new Checkpointer(file, 1, TimeUnit.DAYS)) {
+            checkpointer.checkpoint(service.createWorld(new String[0])).get();
+        }
+        Assert.assertFalse(Files.exists(file.resolveSibling("world.checkpoint.tmp")));
+    }
+
+    @Test
+    public void checkpoint_keepsInputKey() throws Exception {
+        String input = randomInput(new Random(11), 20, 100, 10);
+        String inputKey = ResultCache.key(toStream(input));
+        Path file = folder.getRoot().toPath().resolve("world.checkpoint");
+        try (Checkpointer checkpointer = new Checkpointer(file, inputKey, 1, TimeUnit.DAYS)) {
+            checkpointer.checkpoint(service.createWorld(toStream(input))).get();
+        }
+        Assert.assertEquals(inputKey, WorldSnapshot.readInputKey(file));
+
+        Path snapshot = folder.getRoot().toPath().resolve("world.snapshot");
+        WorldSnapshot.write(service.createWorld(toStream(input)), snapshot);
+        Assert.assertEquals("", WorldSnapshot.readInputKey(snapshot));
+    }
+
+    @Test
+    public void delete() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("world.checkpoint");
+        try (Checkpointer checkpointer = new Checkpointer(file, 1, TimeUnit.HOURS)) {
+            Assert.assertFalse(checkpointer.checkpointIfDue(service.createWorld(new String[0])));
+            checkpointer.checkpoint(service.createWorld(new String[0]));
+            checkpointer.delete();
+        }
+        Assert.assertFalse(Files.exists(file));
+    }
+
+    private String randomInput(Random random, int size, int creatures, int movements) {
+        StringBuilder input = new StringBuilder().append(size).append('\n');
+        input.append('(').append(random.nextInt(size)).append(',').append(random.nextInt(size)).append(")\n");
+        for (int i = 0; i < creatures; i++) {
+            input.append('(').append(random.nextInt(size)).append(',').append(random.nextInt(size)).append(')');
+        }
+        input.append('\n');
+        for (int i = 0; i < movements; i++) {
+            input.append("UDLR".charAt(random.nextInt(4)));
+        }
+        return input.toString();
+    }
+
+    private ByteArrayInputStream toStream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,159 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import com.zombie.data.WorldStatus;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CreatureFeedTest {
+    private final ZombieService service = ZombieServiceImpl.getService();
+    private final ByteArrayOutputStream testError = new ByteArrayOutputStream();
+    private final PrintStream systemError = System.err;
+
+    @Before
+    public void redirectError() {
+        System.setErr(new PrintStream(testError));
+    }
+
+    @After
+    public void restoreError() {
+        System.setErr(systemError);
+    }
+
+    @Test
+    public void mergeInto() throws IOException, InterruptedException {
+        World world = new World(4);
+        try (CreatureFeed feed = new CreatureFeed(toStream("(0,1)(1,2)\n\n(3,1)(3,1)\n(4,0)\n(1,x)\n"), 4)) {
+            while (feed.isOpen()) {
+                feed.awaitBatch(1, TimeUnit.SECONDS);
+                feed.mergeInto(world);
+            }
+
+            Assert.assertEquals(4, feed.getCreaturesMerged());
+            Assert.assertEquals(5, feed.getBatchesRead());
+            Assert.assertEquals(2, feed.getBatchesSkipped());
+        }
+
+        Assert.assertEquals(4, world.getCreatures().getCreatureCount());
+        Assert.assertEquals(2, world.getCreatures().count(3, 1));
+        Assert.assertThat(testError.toString(),
+                CoreMatchers.containsString("One of the position co-ordinates is outside the grid: 4,0"));
+        Assert.assertThat(testError.toString(),
+                CoreMatchers.containsString("One of the position co-ordinates is not a valid number: 1,x"));
+    }
+
+    @Test
+    public void simulate_sameResultAsSetUp() throws InterruptedException {
+        World world = service.createWorld(toStream("4\n(2,1)\n\nDLUURR"));
+        List<WorldStatus> updates = new ArrayList<>();
+        service.simulate(world, new CreatureFeed(toStream("(0,1)(1,2)(3,1)\n"), 4), 60000, updates::add);
+
+        // the creatures fed in are bitten just as if they had been in the set up details
+        Assert.assertEquals(3, world.getScore());
+        Assert.assertEquals("(3, 0) (2, 1) (1, 0) (0, 0)", world.getZombiePositions());
+        Assert.assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    public void simulate_waitsForCreatures() throws IOException, InterruptedException {
+        World world = service.createWorld(toStream("4\n(2,1)\n\nDLUURR"));
+        PipedOutputStream input = new PipedOutputStream();
+        CreatureFeed feed = new CreatureFeed(new PipedInputStream(input), 4);
+        List<WorldStatus> updates = new ArrayList<>();
+
+        Thread simulation = new Thread(() -> {
+            try {
+                service.simulate(world, feed, 10, update -> {
+                    synchronized (updates) {
+                        updates.add(update);
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        simulation.start();
+
+        // the zombie waits (publishing running results) rather than finishing while there are no creatures
+        Thread.sleep(100);
+        Assert.assertTrue(simulation.isAlive());
+        synchronized (updates) {
+            Assert.assertFalse(updates.isEmpty());
+            Assert.assertEquals(0, updates.get(0).getScore());
+            Assert.assertEquals(1, updates.get(0).getActiveZombies());
+            Assert.assertEquals(0, updates.get(0).getFinishedZombies());
+        }
+
+        input.write("(0,1)(1,2)(3,1)\n".getBytes(StandardCharsets.UTF_8));
+        input.close();
+        simulation.join(10000);
+
+        Assert.assertFalse(simulation.isAlive());
+        Assert.assertEquals(3, world.getScore());
+        Assert.assertEquals("(3, 0) (2, 1) (1, 0) (0, 0)", world.getZombiePositions());
+    }
+
+    @Test
+    public void mergeInto_queueIsBounded() throws IOException, InterruptedException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            input.append("(1,2)\n");
+        }
+
+        World world = new World(4);
+        try (CreatureFeed feed = new CreatureFeed(toStream(input.toString()), 4, true, 2)) {
+            // the reading thread waits once the queue is full (two queued, and one read waiting to be queued)
+            Thread.sleep(100);
+            Assert.assertTrue(feed.getBatchesRead() <= 3);
+
+            while (feed.isOpen()) {
+                feed.awaitBatch(1, TimeUnit.SECONDS);
+                feed.mergeInto(world);
+            }
+            Assert.assertEquals(100, feed.getBatchesRead());
+        }
+
+        Assert.assertEquals(100, world.getCreatures().count(1, 2));
+    }
+
+    @Test
+    public void close_leavesInputOpen() throws IOException, InterruptedException {
+        AtomicBoolean closed = new AtomicBoolean();
+        InputStream input = new ByteArrayInputStream("(1,2)\n".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        try (CreatureFeed feed = new CreatureFeed(input, 4, false)) {
+            while (feed.isOpen()) {
+                feed.awaitBatch(1, TimeUnit.SECONDS);
+                feed.mergeInto(new World(4));
+            }
+        }
+
+        // neither the end of the input nor closing the feed closes a stream the feed does not own
+        Assert.assertFalse(closed.get());
+    }
+
+    private InputStream toStream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+}
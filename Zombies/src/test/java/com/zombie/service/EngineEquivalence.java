@@ -0,0 +1,75 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import org.junit.Assert;
+
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Checks that an engine gives exactly the same score and positions as the sequential service, on random worlds
+ */
+final class EngineEquivalence {
+    private EngineEquivalence() {
+    }
+
+    /**
+     * Simulate random worlds with the sequential service and with an engine, and check they end up the same
+     *
+     * @param seed    the seed of the random worlds
+     * @param runs    the number of worlds to simulate
+     * @param minSize the smallest world to simulate (the largest is 150 more)
+     * @param engine  the engine to check for each run (which may change from run to run)
+     */
+    static void assertSameAsSequential(long seed, int runs, int minSize, IntFunction<ZombieService> engine) {
+        Random random = new Random(seed);
+        for (int run = 0; run < runs; run++) {
+            int size = minSize + random.nextInt(150);
+            int creatures = random.nextInt(size * size);
+            int zombies = 1 + random.nextInt(20);
+            String movements = randomMovements(random, 1 + random.nextInt(400));
+            long worldSeed = random.nextLong();
+
+            World expected = createWorld(size, zombies, creatures, movements, worldSeed);
+            World actual = createWorld(size, zombies, creatures, movements, worldSeed);
+
+            ZombieServiceImpl.getService().simulate(expected);
+            engine.apply(run).simulate(actual);
+
+            assertSameResult(expected, actual);
+        }
+    }
+
+    /**
+     * Check two worlds have the same score, zombie positions and creatures left
+     */
+    static void assertSameResult(World expected, World actual) {
+        Assert.assertEquals(expected.getScore(), actual.getScore());
+        Assert.assertEquals(expected.getZombiePositions(), actual.getZombiePositions());
+        Assert.assertEquals(expected.getCreatures().getCreatureCount(), actual.getCreatures().getCreatureCount());
+    }
+
+    /**
+     * Create a world with zombies and creatures at random positions (the same seed always gives the same world)
+     */
+    static World createWorld(int size, int zombies, int creatures, String movements, long seed) {
+        Random random = new Random(seed);
+        World world = new World(size, creatures);
+        for (int i = 0; i < zombies; i++) {
+            world.getActiveZombies().add(random.nextInt(size), random.nextInt(size));
+        }
+        for (int i = 0; i < creatures; i++) {
+            world.getCreatures().add(random.nextInt(size), random.nextInt(size), 1);
+        }
+        world.setZombieMovements(movements);
+        return world;
+    }
+
+    static String randomMovements(Random random, int length) {
+        StringBuilder movements = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            movements.append("UDLR".charAt(random.nextInt(4)));
+        }
+        return movements.toString();
+    }
+}
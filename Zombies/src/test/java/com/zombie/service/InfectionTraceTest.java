@@ -0,0 +1,103 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class InfectionTraceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ZombieService service = ZombieServiceImpl.getService();
+
+    @Test
+    public void infected_recordsWhichZombieBitWhichCell() {
+        World world = createWorld();
+        List<String> events = new ArrayList<>();
+        world.setInfectionListener((zombie, step, x, y, victims) ->
+                events.add(zombie + ":" + step + ":(" + x + "," + y + ")x" + victims));
+
+        service.simulate(world);
+
+        // each zombie bites the creature that becomes the next zombie
+        Assert.assertEquals(Arrays.asList("0:1:(1,2)x1", "1:3:(0,1)x1", "2:2:(3,1)x1"), events);
+    }
+
+    @Test
+    public void replay_rebuildsTheWorld() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("world.trace");
+        World simulated = createWorld();
+        try (InfectionTrace trace = new InfectionTrace(file)) {
+            simulated.setInfectionListener(trace);
+            service.simulate(simulated);
+            trace.finish(simulated);
+            Assert.assertEquals(3, trace.getInfections());
+        }
+
+        World replayed = createWorld();
+        Assert.assertEquals(3, InfectionTraceReplay.replay(replayed, file));
+        Assert.assertEquals(simulated.getScore(), replayed.getScore());
+        Assert.assertEquals(simulated.getZombiePositions(), replayed.getZombiePositions());
+        Assert.assertEquals(0, replayed.getCreatures().getCreatureCount());
+    }
+
+    @Test
+    public void replay_sameTraceFromEveryEngine() throws IOException {
+        Path sequential = trace(service, "sequential.trace");
+        Path banded = trace(BandedZombieServiceImpl.getService(), "banded.trace");
+        Path parallel = trace(ParallelZombieServiceImpl.getService(), "parallel.trace");
+
+        Assert.assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(banded));
+        Assert.assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void replay_traceOfAnotherWorld() throws IOException {
+        Path file = trace(service, "world.trace");
+        World other = createWorld();
+        other.getCreatures().add(3, 1, 1);
+
+        InfectionTraceReplay.replay(other, file);
+    }
+
+    @Test(expected = IOException.class)
+    public void replay_unfinishedTrace() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("world.trace");
+        World world = createWorld();
+        try (InfectionTrace trace = new InfectionTrace(file)) {
+            world.setInfectionListener(trace);
+            service.simulate(world);
+        }
+
+        InfectionTraceReplay.replay(createWorld(), file);
+    }
+
+    private Path trace(ZombieService engine, String name) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        World world = createWorld();
+        InfectionTrace trace = new InfectionTrace(file);
+        world.setInfectionListener(trace);
+        engine.simulate(world);
+        trace.finish(world);
+        return file;
+    }
+
+    private World createWorld() {
+        World world = new World(4);
+        world.getActiveZombies().add(2, 1);
+        world.getCreatures().add(0, 1, 1);
+        world.getCreatures().add(1, 2, 1);
+        world.getCreatures().add(3, 1, 1);
+        world.setZombieMovements("DLUURR");
+        return world;
+    }
+}
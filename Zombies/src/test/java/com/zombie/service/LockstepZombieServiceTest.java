@@ -0,0 +1,58 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LockstepZombieServiceTest {
+    @Test
+    public void monitorZombie_movesWholeGeneration() {
+        World world = new World(4);
+        world.getActiveZombies().add(2, 1);
+        world.getActiveZombies().add(0, 0);
+        world.getCreatures().add(0, 1, 1);
+        world.getCreatures().add(1, 2, 1);
+        world.getCreatures().add(3, 1, 1);
+        world.setZombieMovements("DLUURR");
+
+        LockstepZombieServiceImpl.getService().monitorZombie(world);
+
+        Assert.assertEquals(2, world.getFinishedZombies().size());
+        Assert.assertEquals(3, world.getActiveZombies().size());
+        Assert.assertEquals(3, world.getScore());
+    }
+
+    @Test
+    public void simulate_largestWorld() {
+        // the zombie starts near the far edge, so its start plus the offset overflows an int as it wraps around
+        World world = new World(Integer.MAX_VALUE);
+        world.getActiveZombies().add(Integer.MAX_VALUE - 2, 0);
+        world.getCreatures().add(0, 0, 1);
+        world.getCreatures().add(1, 1, 1);
+        world.setZombieMovements("RRRD");
+
+        LockstepZombieServiceImpl.getService().simulate(world);
+
+        Assert.assertEquals(2, world.getScore());
+        Assert.assertEquals("(1, 1) (3, 1) (4, 2)", world.getZombiePositions());
+    }
+
+    @Test
+    public void simulate_sameResultAsSequential() {
+        EngineEquivalence.assertSameAsSequential(22, 20, 1, run -> LockstepZombieServiceImpl.getService());
+    }
+
+    @Test
+    public void simulate_generationsLargerThanABlock() {
+        String movements = EngineEquivalence.randomMovements(new Random(5), 200);
+        World expected = EngineEquivalence.createWorld(300, 3000, 40000, movements, 11);
+        World actual = EngineEquivalence.createWorld(300, 3000, 40000, movements, 11);
+
+        ZombieServiceImpl.getService().simulate(expected);
+        LockstepZombieServiceImpl.getService().simulate(actual);
+
+        EngineEquivalence.assertSameResult(expected, actual);
+    }
+}
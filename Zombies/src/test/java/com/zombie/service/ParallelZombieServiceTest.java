@@ -0,0 +1,69 @@
+package com.zombie.service;
+
+import com.zombie.data.Creature;
+import com.zombie.data.World;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelZombieServiceTest {
+    private final ZombieService sequential = ZombieServiceImpl.getService();
+    private final ZombieService parallel = new ParallelZombieServiceImpl(new ForkJoinPool(4));
+
+    @Test
+    public void createWorld() {
+        World world = ParallelZombieServiceImpl.getService().createWorld(new String[0]);
+
+        Assert.assertNotNull(world);
+        Assert.assertEquals(4, world.getSize());
+        Assert.assertEquals(1, world.getActiveZombies().size());
+    }
+
+    @Test
+    public void monitorZombie_movesWholeGeneration() {
+        World world = new World(4);
+        world.getActiveZombies().add(createCreature(2, 1));
+        world.getCreatures().add(0, 1, 1);
+        world.getCreatures().add(1, 2, 1);
+        world.getCreatures().add(3, 1, 1);
+        world.setZombieMovements("DLUURR");
+
+        parallel.monitorZombie(world);
+
+        Assert.assertEquals(1, world.getFinishedZombies().size());
+        Assert.assertEquals(1, world.getActiveZombies().size()); // bitten at (1, 2)
+        Assert.assertEquals(1, world.getScore());
+    }
+
+    @Test
+    public void monitorZombie_sameResultAsSequential() {
+        Random random = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            int size = 2 + random.nextInt(40);
+            int creatures = random.nextInt(size * size * 2);
+            String movements = EngineEquivalence.randomMovements(random, 1 + random.nextInt(60));
+            long seed = random.nextLong();
+
+            World expected = EngineEquivalence.createWorld(size, 1, creatures, movements, seed);
+            World actual = EngineEquivalence.createWorld(size, 1, creatures, movements, seed);
+
+            while (expected.isActiveZombies()) {
+                sequential.monitorZombie(expected);
+            }
+            while (actual.isActiveZombies()) {
+                parallel.monitorZombie(actual);
+            }
+
+            EngineEquivalence.assertSameResult(expected, actual);
+        }
+    }
+
+    private Creature createCreature(int x, int y) {
+        Creature creature = new Creature();
+        creature.setxPosition(x);
+        creature.setyPosition(y);
+        return creature;
+    }
+}
@@ -0,0 +1,111 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+public class ResultCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void key_stream() throws IOException {
+        StringBuilder input = new StringBuilder("500\n(2,1)\n");
+        for (int i = 0; i < 5000; i++) {
+            input.append('(').append(i % 500).append(',').append(i / 500).append(')');
+        }
+        input.append("\nDLUURR");
+
+        Assert.assertEquals(ResultCache.key(bytes(input.toString())),
+                ResultCache.key(new ByteArrayInputStream(bytes(input.toString()))));
+    }
+
+    @Test
+    public void key_sameWorldDifferentLayout() {
+        String input = "4\n(2,1)\n(0,1)(1,2)(3,1)(1,2)\nDLUURR";
+        String sameWorld = "4\r\n( 2, 1)\r\n(1,2) (3,1)(1,2) (0,1)\r\nDLUURR\r\n";
+
+        Assert.assertNotEquals(ResultCache.key(bytes(input)), ResultCache.key(bytes(sameWorld)));
+        Assert.assertEquals(ResultCache.key(world(input)), ResultCache.key(world(sameWorld)));
+        Assert.assertNotEquals(ResultCache.key(world(input)),
+                ResultCache.key(world("4\n(2,1)\n(0,1)(1,2)(3,1)\nDLUURR")));
+        Assert.assertNotEquals(ResultCache.key(world(input)),
+                ResultCache.key(world("4\n(2,1)\n(0,1)(1,2)(3,1)(1,2)\nDLUUR")));
+    }
+
+    @Test
+    public void getAndPut() {
+        ResultCache cache = new ResultCache(1024 * 1024);
+        Assert.assertNull(cache.get("a", "input"));
+
+        cache.put("a", WorldResult.of("first", 3, "(0, 0)"));
+        WorldResult result = cache.get("a", "second");
+        Assert.assertEquals("second", result.getSource());
+        Assert.assertEquals(3, result.getScore());
+        Assert.assertEquals("(0, 0)", result.getPositions());
+
+        cache.put("b", WorldResult.failed("input", "The zombie world could not be set up..."));
+        Assert.assertNull(cache.get("b", "input"));
+    }
+
+    @Test
+    public void memoryEvictsLeastRecentlyUsed() {
+        // room for two results with 100 character positions
+        ResultCache cache = new ResultCache(2 * (128 + 200));
+        cache.put("a", WorldResult.of("a", 1, positions(100)));
+        cache.put("b", WorldResult.of("b", 2, positions(100)));
+        cache.get("a", "a");
+        cache.put("c", WorldResult.of("c", 3, positions(100)));
+
+        Assert.assertEquals(2, cache.getMemoryEntries());
+        Assert.assertNotNull(cache.get("a", "a"));
+        Assert.assertNull(cache.get("b", "b"));
+        Assert.assertNotNull(cache.get("c", "c"));
+    }
+
+    @Test
+    public void diskTier() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("cache");
+        // no room in memory, and room on disk for two results with 100 character positions
+        ResultCache cache = new ResultCache(0, directory, 2 * 104);
+        cache.put("a", WorldResult.of("a", 1, positions(100)));
+        cache.put("b", WorldResult.of("b", 2, positions(100)));
+        cache.get("a", "a");
+        cache.put("c", WorldResult.of("c", 3, positions(100)));
+
+        Assert.assertEquals(0, cache.getMemoryEntries());
+        Assert.assertEquals(2, cache.getDiskEntries());
+        Assert.assertNull(cache.get("b", "b"));
+
+        // the results are still there for a new cache
+        ResultCache reopened = new ResultCache(1024, directory, 1024);
+        Assert.assertEquals(2, reopened.getDiskEntries());
+        WorldResult result = reopened.get("c", "again");
+        Assert.assertEquals(3, result.getScore());
+        Assert.assertEquals(positions(100), result.getPositions());
+        Assert.assertEquals(1, reopened.getMemoryEntries());
+    }
+
+    private static String positions(int length) {
+        StringBuilder positions = new StringBuilder();
+        while (positions.length() < length) {
+            positions.append('x');
+        }
+        return positions.toString();
+    }
+
+    private static byte[] bytes(String input) {
+        return input.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static World world(String input) {
+        return ZombieServiceImpl.getService().createWorld(new ByteArrayInputStream(bytes(input)));
+    }
+}
@@ -0,0 +1,82 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+public class ShardedZombieServiceTest {
+    @Test
+    public void monitorZombie_movesWholeGeneration() throws IOException {
+        World world = new World(4);
+        world.getActiveZombies().add(2, 1);
+        world.getActiveZombies().add(0, 0);
+        world.getCreatures().add(0, 1, 1);
+        world.getCreatures().add(1, 2, 1);
+        world.getCreatures().add(3, 1, 1);
+        world.setZombieMovements("DLUURR");
+
+        try (ShardCoordinator coordinator = new ShardCoordinator(world, 2, Collections.emptyList())) {
+            Assert.assertEquals(2, coordinator.getShardCount());
+            coordinator.monitorZombie();
+        }
+
+        Assert.assertEquals(2, world.getFinishedZombies().size());
+        Assert.assertEquals(3, world.getActiveZombies().size());
+        Assert.assertEquals(3, world.getScore());
+        Assert.assertEquals(0, world.getCreatures().getCreatureCount());
+    }
+
+    @Test
+    public void monitorZombie_addedCreaturesSentToWorkers() throws IOException {
+        World world = new World(4);
+        world.getActiveZombies().add(0, 0);
+        world.getCreatures().add(1, 0, 1);
+        world.setZombieMovements("R");
+
+        try (ShardCoordinator coordinator = new ShardCoordinator(world, 2, Collections.emptyList())) {
+            coordinator.monitorZombie();
+            Assert.assertEquals(1, world.getScore());
+
+            // the workers keep running, and are sent the new creatures before the next generation moves
+            world.addCreatures(new int[]{2, 0, 3, 3}, 4);
+            coordinator.monitorZombie();
+        }
+
+        Assert.assertEquals(2, world.getScore());
+        Assert.assertEquals(1, world.getCreatures().getCreatureCount());
+        Assert.assertEquals(1, world.queryCreaturesAt(3, 3));
+        Assert.assertNull(world.getCreatureListener());
+    }
+
+    @Test
+    public void close_stopsWorkers() throws IOException {
+        ShardedZombieServiceImpl service = new ShardedZombieServiceImpl(2, Collections.emptyList());
+        World world = new World(4);
+        world.getActiveZombies().add(2, 1);
+        world.getCreatures().add(2, 2, 1);
+        world.getCreatures().add(0, 3, 1);
+        world.setZombieMovements("DLUURR");
+
+        // the zombie bites a creature, so there is another generation to come and the workers are left running
+        service.monitorZombie(world);
+        Assert.assertTrue(world.isActiveZombies());
+        Assert.assertTrue(service.hasWorkers(world));
+
+        world.close();
+        Assert.assertFalse(service.hasWorkers(world));
+    }
+
+    @Test
+    public void simulate_sameResultAsSequential() {
+        EngineEquivalence.assertSameAsSequential(18, 4, 16,
+                run -> new ShardedZombieServiceImpl(1 + run, Collections.emptyList()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shards_notPositive() {
+        new ShardedZombieServiceImpl(0, Collections.emptyList());
+    }
+}
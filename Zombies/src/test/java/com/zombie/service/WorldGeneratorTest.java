@@ -0,0 +1,75 @@
+package com.zombie.service;
+
+import com.zombie.data.World;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+public class WorldGeneratorTest {
+    @Test
+    public void write_sameSeedSameWorld() throws IOException {
+        for (WorldGenerator.Distribution distribution : WorldGenerator.Distribution.values()) {
+            Assert.assertEquals(generate(200, 1000, distribution, 50, 3, 7),
+                    generate(200, 1000, distribution, 50, 3, 7));
+            Assert.assertNotEquals(generate(200, 1000, distribution, 50, 3, 7),
+                    generate(200, 1000, distribution, 50, 3, 8));
+        }
+    }
+
+    @Test
+    public void write_parses() throws IOException {
+        for (WorldGenerator.Distribution distribution : WorldGenerator.Distribution.values()) {
+            World world = parse(generate(300, 20000, distribution, 40, 5, 1));
+
+            Assert.assertNotNull(distribution.name(), world);
+            Assert.assertEquals(300, world.getSize());
+            Assert.assertEquals(5, world.getActiveZombies().size());
+            Assert.assertEquals(20000, world.getCreatures().getCreatureCount());
+            Assert.assertEquals(40, world.getZombieMovements().length());
+        }
+    }
+
+    @Test
+    public void write_denseRows() throws IOException {
+        World world = parse(generate(500, 10000, WorldGenerator.Distribution.DENSE_ROWS, 1, 1, 3));
+
+        // 5 rows of 500 cells can hold at most 2500 different cells
+        Assert.assertTrue(world.getCreatures().size() <= 2500);
+    }
+
+    @Test
+    public void write_clustered() throws IOException {
+        World clustered = parse(generate(1000, 20000, WorldGenerator.Distribution.CLUSTERED, 1, 1, 4));
+        World uniform = parse(generate(1000, 20000, WorldGenerator.Distribution.UNIFORM, 1, 1, 4));
+
+        // the clustered creatures share far more cells than creatures spread over the whole world
+        Assert.assertTrue(clustered.getCreatures().size() < uniform.getCreatures().size() * 0.9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_invalidSize() {
+        new WorldGenerator(0, 10, WorldGenerator.Distribution.UNIFORM, 10, 1, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_noZombies() {
+        new WorldGenerator(10, 10, WorldGenerator.Distribution.UNIFORM, 10, 0, 0);
+    }
+
+    private String generate(int size, long creatures, WorldGenerator.Distribution distribution, int movementLength,
+                            int zombies, long seed) throws IOException {
+        StringWriter writer = new StringWriter();
+        new WorldGenerator(size, creatures, distribution, movementLength, zombies, seed).write(writer);
+        return writer.toString();
+    }
+
+    private World parse(String input) throws IOException {
+        return new WorldParser().parse(Channels.newChannel(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))));
+    }
+}
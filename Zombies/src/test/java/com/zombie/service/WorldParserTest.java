@@ -0,0 +1,254 @@
+package com.zombie.service;
+
+import com.zombie.data.CellIndexFactory;
+import com.zombie.data.TiledCellIndex;
+import com.zombie.data.World;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class WorldParserTest {
+    private final ByteArrayOutputStream testError = new ByteArrayOutputStream();
+    private final PrintStream systemError = System.err;
+
+    @Before
+    public void redirectError() {
+        System.setErr(new PrintStream(testError));
+    }
+
+    @After
+    public void restoreError() {
+        System.setErr(systemError);
+    }
+
+    @Test
+    public void parse() throws IOException {
+        World world = parse("4\n(2,1)\n(0,1)(1,2)(3,1)\nDLUURR");
+
+        Assert.assertNotNull(world);
+        Assert.assertEquals(4, world.getSize());
+        Assert.assertEquals(1, world.getActiveZombies().size());
+        Assert.assertEquals(2, world.getActiveZombies().asCreatures().get(0).getxPosition());
+        Assert.assertEquals(1, world.getActiveZombies().asCreatures().get(0).getyPosition());
+        Assert.assertEquals(3, world.getCreatures().size());
+        Assert.assertEquals(1, world.getCreatures().count(1, 2));
+        Assert.assertEquals("DLUURR", world.getZombieMovements());
+    }
+
+    @Test
+    public void parse_tiledStore() throws IOException {
+        System.setProperty(CellIndexFactory.STORE_PROPERTY, "tiled");
+        try {
+            World world = parse("4\n(2,1)\n(0,1)(1,2)(3,1)(1,2)\nDLUURR");
+
+            Assert.assertNotNull(world);
+            Assert.assertTrue(world.getCreatures() instanceof TiledCellIndex);
+            Assert.assertEquals(3, world.getCreatures().size());
+            Assert.assertEquals(2, world.getCreatures().count(1, 2));
+
+            ZombieServiceImpl.getService().simulate(world);
+            Assert.assertEquals(4, world.getScore());
+            ((TiledCellIndex) world.getCreatures()).close();
+        } finally {
+            System.clearProperty(CellIndexFactory.STORE_PROPERTY);
+        }
+    }
+
+    @Test
+    public void parse_lineEndings() throws IOException {
+        Assert.assertNotNull(parse("4\r\n(2,1)\r\n(0,1)\r\nDLUURR\r\n"));
+        Assert.assertNotNull(parse("4\r(2,1)\r(0,1)\rDLUURR\r"));
+        Assert.assertNotNull(parse("4\n(2,1)\n(0,1)\nDLUURR\n"));
+    }
+
+    @Test
+    public void parse_textOutsideBracketsAndSpaces() throws IOException {
+        World world = parse("5\nzombie: ( 2 , 1 )\n(0,1), (1, 2) and (1,2) (4,4\n\n");
+
+        Assert.assertNotNull(world);
+        Assert.assertEquals(2, world.getCreatures().size());
+        Assert.assertEquals(2, world.getCreatures().count(1, 2));
+        Assert.assertEquals(0, world.getCreatures().count(4, 4)); // the bracket is never closed
+        Assert.assertEquals("", world.getZombieMovements());
+    }
+
+    @Test
+    public void parse_emptyInput() throws IOException {
+        Assert.assertNull(parse(""));
+        Assert.assertEquals("", testError.toString());
+    }
+
+    @Test
+    public void parse_emptyLinesCount() throws IOException {
+        Assert.assertNull(parse("4\n(2,1)\n\n\n\n"));
+        Assert.assertThat(testError.toString(), CoreMatchers.containsString("Required 4 but found 5"));
+    }
+
+    @Test
+    public void parse_invalidCoordinates() throws IOException {
+        Assert.assertNull(parse("4\n(2,1)\n(0,1)(+1,-2)(3)(,1)(2147483648,1)\nD"));
+
+        String errors = testError.toString();
+        Assert.assertThat(errors, CoreMatchers.containsString("Number provided is not a positive number: -2"));
+        Assert.assertThat(errors, CoreMatchers.containsString("not a valid number: +1,-2"));
+        Assert.assertThat(errors, CoreMatchers.containsString("not a valid number: 3"));
+        Assert.assertThat(errors, CoreMatchers.containsString("No number is provided"));
+        Assert.assertThat(errors, CoreMatchers.containsString("Number provided is not a valid number: 2147483648"));
+        Assert.assertThat(errors, CoreMatchers.containsString("The 3rd line should be valid creature co-ordinates"));
+    }
+
+    @Test
+    public void parse_onlyFirstInvalidLineReported() throws IOException {
+        Assert.assertNull(parse("4\n(5,1)\n(0,9)\nD"));
+
+        String errors = testError.toString();
+        Assert.assertThat(errors, CoreMatchers.containsString("outside the grid: 5,1"));
+        Assert.assertThat(errors, CoreMatchers.not(CoreMatchers.containsString("outside the grid: 0,9")));
+    }
+
+    @Test
+    public void parse_largeInput() throws IOException {
+        StringBuilder input = new StringBuilder("1000\n(999,0)\n");
+        for (int i = 0; i < 50000; i++) {
+            input.append('(').append(i % 1000).append(", ").append(i / 1000).append(')');
+        }
+        input.append("\nUDLR\n");
+
+        World world = parse(input.toString());
+
+        Assert.assertNotNull(world);
+        Assert.assertEquals(50000, world.getCreatures().size());
+        Assert.assertEquals(50000, world.getCreatures().getCreatureCount());
+        Assert.assertEquals(1, world.getCreatures().count(999, 49));
+    }
+
+    @Test
+    public void load_errorsWithLineAndColumn() throws IOException {
+        LoadResult result = load("4\n(2,1)\n(0,1) (x,2)(1,9)\nDL", WorldParser.DEFAULT_ERROR_LIMIT);
+
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertNull(result.getWorld());
+        List<LoadError> errors = result.getErrors();
+        Assert.assertEquals(4, errors.size());
+        assertError(errors.get(0), 3, 8, "Number provided is not a valid number: x");
+        assertError(errors.get(1), 3, 7, "One of the position co-ordinates is not a valid number: x,2");
+        assertError(errors.get(2), 3, 12, "One of the position co-ordinates is outside the grid: 1,9");
+        assertError(errors.get(3), 3, 1, "The 3rd line should be valid creature co-ordinates but found " +
+                "(0,1) (x,2)(1,9)");
+        Assert.assertEquals("", testError.toString()); // loading does not report the errors itself
+    }
+
+    @Test
+    public void load_multipleZombies() throws IOException {
+        World world = load("4\n(2,1) (1,1)(3,3)\n(0,1)\nDL", 10).getWorld();
+
+        Assert.assertNotNull(world);
+        Assert.assertEquals(3, world.getActiveZombies().size());
+        Assert.assertEquals("(1, 1)", world.getActiveZombies().asCreatures().get(1).getPosition());
+        Assert.assertEquals("(3, 3)", world.getActiveZombies().asCreatures().get(2).getPosition());
+    }
+
+    @Test
+    public void load_valid() throws IOException {
+        LoadResult result = load("4\n(2,1)\n(0,1)\nDL", 1);
+
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertTrue(result.getErrors().isEmpty());
+        Assert.assertEquals(1, result.getWorld().getCreatures().size());
+    }
+
+    @Test
+    public void load_stopsAtErrorLimit() throws IOException {
+        // an endless creature line of invalid positions
+        byte[] start = "4\n(1,1)\n".getBytes(StandardCharsets.UTF_8);
+        byte[] invalid = "(x,1)".getBytes(StandardCharsets.UTF_8);
+        long[] bytesRead = new long[1];
+
+        LoadResult result = new WorldParser(10).load(endless(start, invalid, bytesRead));
+
+        Assert.assertFalse(result.isSuccess());
+        List<LoadError> errors = result.getErrors();
+        Assert.assertEquals(12, errors.size()); // the 10 errors, the line summary and why reading stopped
+        // each invalid position is two errors, so reading stops at the end of the 5th position
+        assertError(errors.get(9), 3, 21, "One of the position co-ordinates is not a valid number: x,1");
+        assertError(errors.get(11), 3, 25, "Stopped reading the input after 10 errors");
+        Assert.assertTrue(bytesRead[0] <= 1024 * 1024);
+    }
+
+    @Test
+    public void load_stopsAtInvalidSize() throws IOException {
+        // an endless creature line after an invalid size
+        byte[] start = "four\n(1,1)\n".getBytes(StandardCharsets.UTF_8);
+        byte[] creature = "(0,1)".getBytes(StandardCharsets.UTF_8);
+        long[] bytesRead = new long[1];
+
+        LoadResult result = new WorldParser().load(endless(start, creature, bytesRead));
+
+        Assert.assertFalse(result.isSuccess());
+        List<LoadError> errors = result.getErrors();
+        Assert.assertEquals(2, errors.size());
+        assertError(errors.get(0), 1, 1, "Number provided is not a valid number: four");
+        Assert.assertTrue(bytesRead[0] <= 1024 * 1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void errorLimit_notPositive() {
+        new WorldParser(0);
+    }
+
+    /**
+     * @return a channel of the start followed by the repeated bytes for ever (counting the bytes read)
+     */
+    private static ReadableByteChannel endless(byte[] start, byte[] repeated, long[] bytesRead) {
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer buffer) {
+                int count = 0;
+                while (buffer.hasRemaining()) {
+                    long offset = bytesRead[0]++;
+                    buffer.put(offset < start.length ? start[(int) offset] :
+                            repeated[(int) ((offset - start.length) % repeated.length)]);
+                    count++;
+                }
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static void assertError(LoadError error, int line, int column, String message) {
+        Assert.assertEquals(message, error.getMessage());
+        Assert.assertEquals(line, error.getLine());
+        Assert.assertEquals(column, error.getColumn());
+    }
+
+    private LoadResult load(String input, int errorLimit) throws IOException {
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+        return new WorldParser(errorLimit).load(Channels.newChannel(inputStream));
+    }
+
+    private World parse(String input) throws IOException {
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+        return new WorldParser().parse(Channels.newChannel(inputStream));
+    }
+}
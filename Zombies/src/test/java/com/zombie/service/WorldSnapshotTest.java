@@ -0,0 +1,112 @@
+package com.zombie.service;
+
+import com.zombie.data.Creature;
+import com.zombie.data.World;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+public class WorldSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ZombieService service = ZombieServiceImpl.getService();
+
+    @Test
+    public void writeAndRead() throws IOException {
+        World world = service.createWorld(new String[0]);
+        File snapshot = folder.newFile("world.snapshot");
+        WorldSnapshot.write(world, snapshot.toPath());
+
+        World loaded;
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+            Assert.assertTrue(WorldSnapshot.isSnapshot(channel));
+            loaded = WorldSnapshot.read(channel);
+        }
+
+        Assert.assertEquals(world.getSize(), loaded.getSize());
+        Assert.assertEquals(world.getZombieMovements(), loaded.getZombieMovements());
+        Assert.assertEquals(world.getCreatures().size(), loaded.getCreatures().size());
+        Assert.assertEquals(1, loaded.getCreatures().count(1, 2));
+        Assert.assertEquals(1, loaded.getActiveZombies().size());
+
+        while (loaded.isActiveZombies()) {
+            service.monitorZombie(loaded);
+        }
+        Assert.assertEquals(3, loaded.getScore());
+        Assert.assertEquals("(3, 0) (2, 1) (1, 0) (0, 0)", loaded.getZombiePositions());
+    }
+
+    @Test
+    public void writeAndRead_partlySimulated() throws IOException {
+        World world = new World(5);
+        world.getActiveZombies().add(new Creature(0, 0));
+        world.getCreatures().add(0, 1, 2);
+        world.getCreatures().add(4, 4, 1);
+        world.setZombieMovements("DDRRX");
+        service.monitorZombie(world);
+
+        File snapshot = folder.newFile("world.snapshot");
+        WorldSnapshot.write(world, snapshot.toPath());
+        World loaded = service.createWorld(new String[]{snapshot.getAbsolutePath()});
+
+        Assert.assertEquals(2, loaded.getScore());
+        Assert.assertEquals(2, loaded.getActiveZombies().size());
+        Assert.assertEquals(1, loaded.getFinishedZombies().size());
+        Assert.assertEquals(world.getZombiePositions(), loaded.getZombiePositions());
+        Assert.assertEquals(1, loaded.getCreatures().count(4, 4));
+        Assert.assertEquals(1, loaded.getMovementProgram().getInvalidMovements());
+        Assert.assertEquals(world.getMovementProgram().finalX(3), loaded.getMovementProgram().finalX(3));
+    }
+
+    @Test
+    public void isSnapshot_textInput() throws IOException {
+        File text = folder.newFile("input.txt");
+        Files.write(text.toPath(), "4\n(2,1)\n(0,1)\nDLUURR".getBytes());
+
+        try (FileChannel channel = FileChannel.open(text.toPath(), StandardOpenOption.READ)) {
+            Assert.assertFalse(WorldSnapshot.isSnapshot(channel));
+            Assert.assertEquals(0, channel.position());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void read_truncated() throws IOException {
+        World world = service.createWorld(new String[0]);
+        File snapshot = folder.newFile("world.snapshot");
+        WorldSnapshot.write(world, snapshot.toPath());
+
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+            WorldSnapshot.read(channel);
+        }
+    }
+
+    @Test
+    public void read_positionOutsideGrid() throws IOException {
+        World world = service.createWorld(new String[0]);
+        File snapshot = folder.newFile("world.snapshot");
+        WorldSnapshot.write(world, snapshot.toPath());
+
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // the x of the first active zombie follows the magic number, version, size, score and zombie count
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 99), 5 * Integer.BYTES);
+            channel.position(0);
+            WorldSnapshot.read(channel);
+            Assert.fail("A zombie outside the grid was loaded");
+        } catch (IOException e) {
+            Assert.assertEquals("The world snapshot is corrupt - the position of an active zombie is outside the " +
+                    "grid: 99,1", e.getMessage());
+        }
+    }
+}
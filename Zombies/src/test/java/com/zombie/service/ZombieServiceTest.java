@@ -2,17 +2,37 @@ package com.zombie.service;
 
 import com.zombie.data.Creature;
 import com.zombie.data.World;
+import com.zombie.data.WorldMetrics;
+import com.zombie.data.WorldStatus;
 import org.hamcrest.CoreMatchers;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ZombieServiceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private final ZombieService service = ZombieServiceImpl.getService();
     private final ByteArrayOutputStream testError = new ByteArrayOutputStream();
     private final PrintStream systemError = System.err;
@@ -115,9 +135,10 @@ public class ZombieServiceTest {
         String filePath = getTestInputFilePath("MultipleZombies.txt");
         World world = service.createWorld(new String[]{filePath});
 
-        Assert.assertNull(world);
-        Assert.assertThat(testError.toString(),
-                CoreMatchers.containsString("More than one zombie has been provided"));
+        Assert.assertNotNull(world);
+        Assert.assertEquals(2, world.getActiveZombies().size());
+        Assert.assertEquals(1, world.getActiveZombies().asCreatures().get(0).getxPosition());
+        Assert.assertEquals(2, world.getActiveZombies().asCreatures().get(1).getxPosition());
     }
 
     @Test
@@ -177,8 +198,8 @@ public class ZombieServiceTest {
 
         Assert.assertEquals(0, world.getActiveZombies().size());
         Assert.assertEquals(1, world.getFinishedZombies().size());
-        Assert.assertEquals(1, world.getFinishedZombies().get(0).getxPosition());
-        Assert.assertEquals(1, world.getFinishedZombies().get(0).getyPosition());
+        Assert.assertEquals(1, world.getFinishedZombies().asCreatures().get(0).getxPosition());
+        Assert.assertEquals(1, world.getFinishedZombies().asCreatures().get(0).getyPosition());
     }
 
     @Test
@@ -190,12 +211,165 @@ public class ZombieServiceTest {
 
         Assert.assertEquals(0, world.getActiveZombies().size());
         Assert.assertEquals(1, world.getFinishedZombies().size());
-        Assert.assertEquals(0, world.getFinishedZombies().get(0).getxPosition()); // no zombie movement
-        Assert.assertEquals(0, world.getFinishedZombies().get(0).getyPosition());
+        Assert.assertEquals(0, world.getFinishedZombies().asCreatures().get(0).getxPosition()); // no zombie movement
+        Assert.assertEquals(0, world.getFinishedZombies().asCreatures().get(0).getyPosition());
         Assert.assertThat(testError.toString(),
                 CoreMatchers.containsString("Movement was skipped - Incorrect zombie movement specified:"));
     }
 
+    @Test
+    public void createWorldTest_inputStream() {
+        World world = service.createWorld(toStream("3\n(1,1)\n(0,0)(2,2)\nUL"));
+
+        Assert.assertNotNull(world);
+        Assert.assertEquals(3, world.getSize());
+        Assert.assertEquals(2, world.getCreatures().size());
+        Assert.assertEquals("UL", world.getZombieMovements());
+    }
+
+    @Test
+    public void simulate() {
+        World world = service.createWorld(new String[0]);
+        service.simulate(world);
+
+        Assert.assertFalse(world.isActiveZombies());
+        Assert.assertEquals(3, world.getScore());
+        // the third zombie stops walking once it has bitten the last creature and the fourth is not walked at all
+        Assert.assertEquals(15, world.getMetrics().getStepsProcessed());
+    }
+
+    @Test
+    public void simulate_noCreaturesLeft() {
+        World world = new World(7);
+        for (int i = 0; i < 5; i++) {
+            world.getActiveZombies().add(createCreature(i, 6 - i));
+        }
+        world.setZombieMovements("RRRRRRRRRRUUULLD");
+        service.simulate(world);
+
+        // every zombie moves 8 right and 2 up (wrapping around the world) without walking the movements
+        Assert.assertEquals("(1, 4) (2, 3) (3, 2) (4, 1) (5, 0)", world.getZombiePositions());
+        Assert.assertEquals(0, world.getMetrics().getStepsProcessed());
+    }
+
+    @Test
+    public void simulate_concurrentQueries() throws InterruptedException {
+        Random random = new Random(25);
+        World world = new World(1000, 200000);
+        for (int i = 0; i < 200000; i++) {
+            world.getCreatures().add(random.nextInt(1000), random.nextInt(1000), 1);
+        }
+        world.getActiveZombies().add(500, 500);
+        StringBuilder movements = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            movements.append("UDLRR".charAt(random.nextInt(5)));
+        }
+        world.setZombieMovements(movements.toString());
+
+        AtomicBoolean simulating = new AtomicBoolean(true);
+        AtomicReference<String> inconsistency = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            Thread reader = new Thread(() -> {
+                long lastVersion = -1;
+                while (simulating.get()) {
+                    WorldStatus status = world.query();
+                    // every answer must be a state the world was actually in
+                    if (status.getScore() + status.getCreaturesRemaining() != 200000 ||
+                            status.getActiveZombies() + status.getFinishedZombies() != 1 + status.getScore() ||
+                            status.getVersion() < lastVersion || world.queryCreaturesAt(500, 499) > 200000) {
+                        inconsistency.compareAndSet(null, status.toString());
+                    }
+                    lastVersion = status.getVersion();
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        service.simulate(world);
+        simulating.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        Assert.assertNull(inconsistency.get());
+        Assert.assertEquals(world.getScore(), world.query().getScore());
+        Assert.assertEquals(0, world.query().getActiveZombies());
+        Assert.assertEquals(world.getFinishedZombies().size(), world.query().getFinishedZombies());
+    }
+
+    @Test
+    public void simulateBatch() throws IOException, InterruptedException {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            File input = folder.newFile("input" + i + ".txt");
+            Files.write(input.toPath(), ("4\n(2,1)\n(0,1)(1,2)(3,1)\n" + (i % 2 == 0 ? "DLUURR" : "X")).getBytes());
+            inputs.add(input.getAbsolutePath());
+        }
+        inputs.add("C:/InvalidPath.txt");
+
+        Map<String, WorldResult> results = new HashMap<>();
+        service.simulateBatch(inputs, 3, result -> results.put(result.getSource(), result));
+
+        Assert.assertEquals(9, results.size());
+        for (int i = 0; i < 8; i++) {
+            WorldResult result = results.get(inputs.get(i));
+            Assert.assertTrue(result.isSuccess());
+            Assert.assertEquals(i % 2 == 0 ? 3 : 0, result.getScore());
+        }
+        Assert.assertEquals("(3, 0) (2, 1) (1, 0) (0, 0)", results.get(inputs.get(0)).getPositions());
+        Assert.assertFalse(results.get("C:/InvalidPath.txt").isSuccess());
+    }
+
+    @Test
+    public void simulateStreams() throws InterruptedException {
+        List<InputStream> inputs = Arrays.asList(toStream("4\n(2,1)\n(0,1)(1,2)(3,1)\nDLUURR"),
+                toStream("3\n(0,0)\n\nR"), toStream("Not a world"));
+
+        Map<String, WorldResult> results = new HashMap<>();
+        service.simulateStreams(inputs, 2, result -> results.put(result.getSource(), result));
+
+        Assert.assertEquals(3, results.get("stream-0").getScore());
+        Assert.assertEquals("(1, 0)", results.get("stream-1").getPositions());
+        Assert.assertFalse(results.get("stream-2").isSuccess());
+    }
+
+    @Test
+    public void simulate_failureEndsSimulationTime() {
+        World world = service.createWorld(toStream("4\n(2,1)\n(0,1)\nDLUURR"));
+        ZombieService failing = new ZombieService() {
+            @Override
+            public World createWorld(String[] args) {
+                return null;
+            }
+
+            @Override
+            public World createWorld(InputStream input) {
+                return null;
+            }
+
+            @Override
+            public void monitorZombie(World world) {
+                throw new IllegalStateException("The zombie tripped");
+            }
+        };
+
+        try {
+            failing.simulate(world);
+            Assert.fail("The failure should be passed on");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("The zombie tripped", e.getMessage());
+        }
+
+        // the time up to the failure is recorded, rather than the simulation still looking to be running
+        Assert.assertTrue(world.getMetrics().getPhaseNanos(WorldMetrics.Phase.SIMULATE) > 0);
+    }
+
+    private InputStream toStream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+
     private String getTestInputFilePath(String fileName) {
         ClassLoader classLoader = getClass().getClassLoader();
         File file = new File(classLoader.getResource(fileName).getFile());
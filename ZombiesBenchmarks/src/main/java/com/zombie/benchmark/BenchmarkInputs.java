@@ -0,0 +1,70 @@
+package com.zombie.benchmark;
+
+import com.zombie.service.ParallelZombieServiceImpl;
+import com.zombie.service.ZombieService;
+import com.zombie.service.ZombieServiceImpl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Helpers for setting up the benchmark worlds
+ */
+final class BenchmarkInputs {
+    /**
+     * The seed used for every generated world, so runs are comparable
+     */
+    private static final long SEED = 20200101L;
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * Write a world input file in the 4 line text format, with the creatures spread uniformly over the grid
+     *
+     * @param gridSize       the length and height of the world
+     * @param density        the number of creatures per cell of the grid
+     * @param movementLength the number of zombie movements
+     * @return the temporary input file (deleted when the JVM exits)
+     * @throws IOException if the file could not be written
+     */
+    static Path writeInput(int gridSize, double density, int movementLength) throws IOException {
+        Random random = new Random(SEED);
+        long creatures = (long) ((double) gridSize * gridSize * density);
+        Path input = Files.createTempFile("zombies-" + gridSize + "-" + density + "-" + movementLength, ".txt");
+        input.toFile().deleteOnExit();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+            writer.write(Integer.toString(gridSize));
+            writer.newLine();
+            writer.write("(" + random.nextInt(gridSize) + "," + random.nextInt(gridSize) + ")");
+            writer.newLine();
+            for (long i = 0; i < creatures; i++) {
+                writer.write("(" + random.nextInt(gridSize) + "," + random.nextInt(gridSize) + ")");
+            }
+            writer.newLine();
+            for (int i = 0; i < movementLength; i++) {
+                writer.write("UDLR".charAt(random.nextInt(4)));
+            }
+            writer.newLine();
+        }
+        return input;
+    }
+
+    /**
+     * Get the zombie service for an engine
+     *
+     * @param engine the name of the engine - either sequential or parallel
+     * @return the zombie service that implements the engine
+     */
+    static ZombieService getService(String engine) {
+        if ("parallel".equals(engine)) {
+            return ParallelZombieServiceImpl.getService();
+        }
+        return ZombieServiceImpl.getService();
+    }
+}
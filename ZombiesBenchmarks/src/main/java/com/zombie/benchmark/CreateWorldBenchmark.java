@@ -0,0 +1,67 @@
+package com.zombie.benchmark;
+
+import com.zombie.data.World;
+import com.zombie.service.WorldSnapshot;
+import com.zombie.service.ZombieService;
+import com.zombie.service.ZombieServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to set up a world from the text input and from a binary snapshot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CreateWorldBenchmark {
+    @Param({"100", "1000"})
+    public int gridSize;
+
+    @Param({"0.05", "0.5"})
+    public double density;
+
+    @Param({"10", "1000"})
+    public int movementLength;
+
+    private final ZombieService service = ZombieServiceImpl.getService();
+    private String[] textArgs;
+    private String[] snapshotArgs;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path input = BenchmarkInputs.writeInput(gridSize, density, movementLength);
+        Path snapshot = Files.createTempFile("zombies", ".snapshot");
+        snapshot.toFile().deleteOnExit();
+        WorldSnapshot.write(service.createWorld(new String[]{input.toString()}), snapshot);
+
+        textArgs = new String[]{input.toString()};
+        snapshotArgs = new String[]{snapshot.toString()};
+    }
+
+    @Benchmark
+    public World createWorld_text() {
+        return service.createWorld(textArgs);
+    }
+
+    @Benchmark
+    public World createWorld_snapshot() {
+        return service.createWorld(snapshotArgs);
+    }
+}
@@ -0,0 +1,89 @@
+package com.zombie.benchmark;
+
+import com.zombie.data.Creature;
+import com.zombie.data.World;
+import com.zombie.service.WorldSnapshot;
+import com.zombie.service.ZombieService;
+import com.zombie.service.ZombieServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the hot path - a single zombie following the movements through a populated world, looking up every cell
+ * it passes through (monitorZombie and processMovement).
+ * <p>
+ * Each zombie bites the creatures it meets, so every invocation starts from a fresh copy of the world (loaded from a
+ * snapshot, outside the measured time) rather than one the earlier zombies have already emptied.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MonitorZombieBenchmark {
+    @Param({"sequential", "parallel"})
+    public String engine;
+
+    @Param({"100", "10000"})
+    public int gridSize;
+
+    @Param({"0.05", "0.5"})
+    public double density;
+
+    @Param({"100", "10000"})
+    public int movementLength;
+
+    private ZombieService service;
+    private String[] snapshotArgs;
+    private World world;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUpInput() throws IOException {
+        service = BenchmarkInputs.getService(engine);
+        // keep the large grids to a manageable number of creatures
+        double creatures = Math.min(density, 1_000_000d / ((double) gridSize * gridSize));
+        Path input = BenchmarkInputs.writeInput(gridSize, creatures, movementLength);
+        Path snapshot = Files.createTempFile("zombies", ".snapshot");
+        snapshot.toFile().deleteOnExit();
+        WorldSnapshot.write(ZombieServiceImpl.getService().createWorld(new String[]{input.toString()}), snapshot);
+        snapshotArgs = new String[]{snapshot.toString()};
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpWorld() {
+        // start each zombie from a different cell, and only that one zombie
+        world = service.createWorld(snapshotArgs);
+        world.getActiveZombies().clear();
+        int start = next++ % gridSize;
+        world.getActiveZombies().add(new Creature(start, (start * 7) % gridSize));
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownWorld() throws IOException {
+        world.close();
+    }
+
+    @Benchmark
+    public int monitorZombie() {
+        service.monitorZombie(world);
+        return world.getScore();
+    }
+}
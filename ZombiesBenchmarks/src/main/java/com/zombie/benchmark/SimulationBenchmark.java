@@ -0,0 +1,73 @@
+package com.zombie.benchmark;
+
+import com.zombie.data.World;
+import com.zombie.service.WorldSnapshot;
+import com.zombie.service.ZombieService;
+import com.zombie.service.ZombieServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a whole simulation - every zombie moving until there are no active zombies left - for each engine
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SimulationBenchmark {
+    @Param({"sequential", "parallel"})
+    public String engine;
+
+    @Param({"100", "1000"})
+    public int gridSize;
+
+    @Param({"0.05", "0.5"})
+    public double density;
+
+    @Param({"10", "100"})
+    public int movementLength;
+
+    private ZombieService service;
+    private String[] snapshotArgs;
+    private World world;
+
+    @Setup(Level.Trial)
+    public void setUpInput() throws IOException {
+        service = BenchmarkInputs.getService(engine);
+        Path input = BenchmarkInputs.writeInput(gridSize, density, movementLength);
+        Path snapshot = Files.createTempFile("zombies", ".snapshot");
+        snapshot.toFile().deleteOnExit();
+        WorldSnapshot.write(ZombieServiceImpl.getService().createWorld(new String[]{input.toString()}), snapshot);
+        snapshotArgs = new String[]{snapshot.toString()};
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpWorld() {
+        world = service.createWorld(snapshotArgs);
+    }
+
+    @Benchmark
+    public int simulate() {
+        while (world.isActiveZombies()) {
+            service.monitorZombie(world);
+        }
+        return world.getScore();
+    }
+}
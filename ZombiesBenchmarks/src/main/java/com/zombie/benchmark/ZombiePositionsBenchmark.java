@@ -0,0 +1,51 @@
+package com.zombie.benchmark;
+
+import com.zombie.data.Creature;
+import com.zombie.data.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering the positions of the finished zombies
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ZombiePositionsBenchmark {
+    @Param({"10000", "10000000"})
+    public int gridSize;
+
+    @Param({"1000", "1000000"})
+    public int finishedZombies;
+
+    private World world;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(finishedZombies);
+        world = new World(gridSize);
+        for (int i = 0; i < finishedZombies; i++) {
+            world.getFinishedZombies().add(new Creature(random.nextInt(gridSize), random.nextInt(gridSize)));
+        }
+    }
+
+    @Benchmark
+    public String getZombiePositions() {
+        return world.getZombiePositions();
+    }
+}